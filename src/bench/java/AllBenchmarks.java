@@ -0,0 +1,27 @@
+package bench.java;
+
+// Runs every benchmark at small sizes, as a quick check for regressions before a release.
+// Larger runs are made by calling a benchmark's own main with explicit sizes.
+public class AllBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		IngestBenchmark.main(new String[] {"100000"});
+		InternBenchmark.main(new String[] {"100000"});
+		CsvBenchmark.main(new String[] {"100000"});
+		FollowBenchmark.main(new String[] {"100000"});
+		StoreBenchmark.main(new String[] {"100000"});
+		IncrementBenchmark.main(new String[] {"100000"});
+		TopNBenchmark.main(new String[] {"100000"});
+		RangeBenchmark.main(new String[] {"100000"});
+		AuthorBenchmark.main(new String[] {"100000"});
+		SearchBenchmark.main(new String[] {"100000"});
+		StatsBenchmark.main(new String[] {"100000"});
+		QueryBenchmark.main(new String[] {"100000"});
+		ScriptBenchmark.main(new String[] {"100000"});
+		MissBenchmark.main(new String[] {"100000"});
+		MetricsBenchmark.main(new String[] {"100000"});
+		CacheBenchmark.main(new String[] {"100000"});
+		PostBenchmark.main(new String[] {"100000"});
+		DateTimeBenchmark.main(new String[] {"100000"});
+	}
+}
@@ -0,0 +1,25 @@
+package bench.java;
+
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+
+// Measures per-author lookups and author rankings for each engine, over 10,000 authors.
+// Engines without an author index answer by scanning every post.
+// Usage: java -cp bin bench.java.AuthorBenchmark [size ...]
+public class AuthorBenchmark {
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000, 1_000_000)) {
+			String author = new PostGenerator(42).author();
+
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore db = StoreBenchmark.fill(engine, new PostGenerator(42).posts(size));
+
+				Bench.measure("getByAuthor, " + engine, 1, () -> db.getByAuthor(author));
+				Bench.measure("getAuthorStats, " + engine, 1, () -> db.getAuthorStats(author));
+				Bench.measure("getTopAuthors likes N=10, " + engine, 1, () -> db.getTopAuthors("likes", 10));
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package bench.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import smanalyzer.java.service.Engine;
+
+// Minimal warm-up/measure harness for the benchmarks in this folder. Every result is written
+// to a volatile sink so the JIT cannot eliminate the measured work.
+// Tuned with -Dbench.warmup=N, -Dbench.iterations=N and -Dbench.engines=name,name.
+public final class Bench {
+
+	static final int WARMUP = Integer.getInteger("bench.warmup", 5);
+	static final int ITERATIONS = Integer.getInteger("bench.iterations", 10);
+
+	static volatile Object sink;
+
+	private Bench() {
+	}
+
+	// Runs 'op' for the warm-up and measured iterations and prints the mean time per operation.
+	// 'opsPerCall' is the number of logical operations done in one call of 'op'.
+	public static double measure(String name, long opsPerCall, Supplier<?> op) {
+		return measure(name, opsPerCall, () -> null, ignored -> op.get());
+	}
+
+	// As measure, but 'setup' prepares fresh state for every call and is not timed.
+	public static <T> double measure(String name, long opsPerCall, Supplier<T> setup, Function<T, ?> op) {
+		for (int i = 0; i < WARMUP; i++) {
+			sink = op.apply(setup.get());
+		}
+
+		long total = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			T state = setup.get();
+			long start = System.nanoTime();
+			sink = op.apply(state);
+			total += System.nanoTime() - start;
+		}
+
+		double nanosPerOp = (double) total / ITERATIONS / opsPerCall;
+		System.out.printf("%-48s %14.1f ns/op %16.1f ops/s\n", name, nanosPerOp, 1e9 / nanosPerOp);
+		return nanosPerOp;
+	}
+
+	// Parses the sizes given on the command line, falling back to 'defaults'.
+	public static int[] sizes(String[] args, int... defaults) {
+		if (args.length == 0) {
+			return defaults;
+		}
+		int[] sizes = new int[args.length];
+		for (int i = 0; i < args.length; i++) {
+			sizes[i] = Integer.parseInt(args[i]);
+		}
+		return sizes;
+	}
+
+	// The engines named by -Dbench.engines, or every engine.
+	public static List<Engine> engines() {
+		List<Engine> engines = new ArrayList<Engine>();
+		String names = System.getProperty("bench.engines");
+
+		if (names == null) {
+			engines.addAll(List.of(Engine.values()));
+		} else {
+			for (String name : names.split(",")) {
+				engines.add(Engine.fromName(name.trim()));
+			}
+		}
+		return engines;
+	}
+}
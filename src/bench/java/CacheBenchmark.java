@@ -0,0 +1,62 @@
+package bench.java;
+
+import java.util.List;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.CachingPostStore;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+
+// Measures a dashboard polling the same top-N queries, on each engine with and without a
+// CachingPostStore, and the same polls interleaved with adds of posts too weak to enter the
+// top N, which should not cost the cache its answers.
+// Usage: java -cp bin bench.java.CacheBenchmark [size ...]
+public class CacheBenchmark {
+
+	static final int[] COUNTS = {10, 50, 100};
+	static final int POLLS = 100;
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000)) {
+			List<Post> posts = new PostGenerator(42).posts(size);
+			int[] nextID = {Integer.MAX_VALUE / 2};
+
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore plain = StoreBenchmark.fill(engine, posts);
+				CachingPostStore cached = new CachingPostStore(plain);
+
+				for (int count : COUNTS) {
+					Bench.measure("top " + count + " likes, " + engine, POLLS, () -> poll(plain, count));
+					Bench.measure("top " + count + " likes cached, " + engine, POLLS, () -> poll(cached, count));
+				}
+				Bench.measure("top 10 likes with adds, " + engine, POLLS, () -> pollWithAdds(plain, 10, nextID));
+				Bench.measure("top 10 likes with adds cached, " + engine, POLLS, () -> pollWithAdds(cached, 10, nextID));
+				System.out.println(cached.formatCache());
+			}
+		}
+	}
+
+	static int poll(PostStore db, int count) {
+		int posts = 0;
+		for (int i = 0; i < POLLS; i++) {
+			posts += db.getMulti(i % 2 == 0 ? "likes" : "shares", count).size();
+		}
+		return posts;
+	}
+
+	// Before each poll, adds a post with no likes or shares under a fresh ID.
+	static int pollWithAdds(PostStore db, int count, int[] nextID) {
+		int posts = 0;
+		try {
+			for (int i = 0; i < POLLS; i++) {
+				db.putIfAbsent(new Post(nextID[0]++, "content", "author", 0, 0, "01/01/2000 12:00"));
+				posts += db.getMulti("likes", count).size();
+			}
+		} catch (InvalidPostException e) {
+			throw new IllegalStateException(e);
+		}
+		return posts;
+	}
+}
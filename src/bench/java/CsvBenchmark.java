@@ -0,0 +1,116 @@
+package bench.java;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.BatchResult;
+import smanalyzer.java.service.CsvLoader;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.ForwardingPostStore;
+
+// Measures CSV parsing throughput on plain rows and on rows whose content is quoted and holds
+// commas, quotes and line breaks: Post.convertFromCSV on single rows, and CsvLoader on whole
+// files, next to the line-by-line Scanner read the loader replaced. Whole files are read into
+// a store that only counts posts, so the figures are parsing alone rather than indexing.
+// Usage: java -cp bin bench.java.CsvBenchmark [rows ...]
+public class CsvBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		for (int rows : Bench.sizes(args, 100_000, 1_000_000)) {
+			for (boolean quoted : new boolean[] {false, true}) {
+				String kind = quoted ? "quoted" : "plain";
+				File csv = File.createTempFile("posts", ".csv");
+				csv.deleteOnExit();
+				new PostGenerator(42).writeCSV(csv, rows, quoted);
+				List<String> lines = sampleRows(quoted, Math.min(rows, 100_000));
+
+				System.out.printf("-- %d %s rows, %d MB\n", rows, kind, csv.length() >> 20);
+				Bench.measure("convertFromCSV, " + kind, lines.size(), () -> convertAll(lines));
+				if (!quoted) {
+					Bench.measure("Scanner lines, " + kind, rows, () -> scan(csv));
+				}
+				Bench.measure("CsvLoader, " + kind, rows, () -> load(csv));
+				csv.delete();
+			}
+		}
+	}
+
+	static List<String> sampleRows(boolean quoted, int rows) {
+		PostGenerator generator = new PostGenerator(7);
+		List<String> lines = new ArrayList<String>(rows);
+		for (int ID = 0; ID < rows; ID++) {
+			lines.add(quoted ? generator.quotedCsvRow(ID) : generator.csvRow(ID));
+		}
+		return lines;
+	}
+
+	static int convertAll(List<String> lines) {
+		int likes = 0;
+		try {
+			for (String line : lines) {
+				likes += Post.convertFromCSV(line).getLikes();
+			}
+		} catch (InvalidPostException e) {
+			throw new IllegalStateException(e);
+		}
+		return likes;
+	}
+
+	// The original import: a Scanner over lines, each converted and put one at a time.
+	// Only valid for rows without line breaks inside quotes.
+	static CountingStore scan(File csv) {
+		CountingStore db = new CountingStore();
+		try (Scanner scanner = new Scanner(new BufferedReader(new FileReader(csv)))) {
+			scanner.nextLine();
+			while (scanner.hasNextLine()) {
+				db.putIfAbsent(Post.convertFromCSV(scanner.nextLine()));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InvalidPostException e) {
+			throw new IllegalStateException(e);
+		}
+		return db;
+	}
+
+	static CountingStore load(File csv) {
+		CountingStore db = new CountingStore();
+		try {
+			new CsvLoader().load(csv, db);
+		} catch (FileNotFoundException e) {
+			throw new UncheckedIOException(e);
+		}
+		return db;
+	}
+
+	// Counts the posts put into it instead of keeping them.
+	static final class CountingStore extends ForwardingPostStore {
+
+		long posts;
+
+		CountingStore() {
+			super(new Database());
+		}
+
+		@Override
+		public boolean putIfAbsent(Post post) {
+			posts++;
+			return true;
+		}
+
+		@Override
+		public BatchResult putAll(List<Post> batch) {
+			posts += batch.size();
+			return new BatchResult(batch.size());
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package bench.java;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+
+import smanalyzer.java.exception.InvalidDateException;
+import smanalyzer.java.model.Post;
+
+// Compares date-time parsing and formatting as Post did it before (a formatter compiled on every
+// call) with the shared formatter and the fixed-width fast path now used by Post.
+// Usage: java -cp bin bench.java.DateTimeBenchmark [batch size]
+public class DateTimeBenchmark {
+
+	public static void main(String[] args) {
+		int size = Bench.sizes(args, 100_000)[0];
+		PostGenerator generator = new PostGenerator(42);
+		String[] dateStrings = new String[size];
+		LocalDateTime[] dateTimes = new LocalDateTime[size];
+
+		for (int i = 0; i < size; i++) {
+			dateStrings[i] = generator.dateTime();
+			dateTimes[i] = LocalDateTime.parse(dateStrings[i], Post.DATE_TIME_FORMATTER);
+		}
+
+		System.out.printf("-- %d date-times\n", size);
+		Bench.measure("parse, formatter per call", size, () -> {
+			LocalDateTime last = null;
+			for (String dateString : dateStrings) {
+				last = LocalDateTime.parse(dateString,
+					DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm").withResolverStyle(ResolverStyle.STRICT));
+			}
+			return last;
+		});
+		Bench.measure("parse, shared formatter", size, () -> {
+			LocalDateTime last = null;
+			for (String dateString : dateStrings) {
+				last = LocalDateTime.parse(dateString, Post.DATE_TIME_FORMATTER);
+			}
+			return last;
+		});
+		Bench.measure("parse, Post.convertDateTime", size, () -> {
+			LocalDateTime last = null;
+			try {
+				for (String dateString : dateStrings) {
+					last = Post.convertDateTime(dateString);
+				}
+			} catch (InvalidDateException e) {
+				throw new IllegalStateException(e);
+			}
+			return last;
+		});
+		Bench.measure("format, formatter per call", size, () -> {
+			String last = null;
+			for (LocalDateTime dateTime : dateTimes) {
+				last = dateTime.format(DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm"));
+			}
+			return last;
+		});
+		Bench.measure("format, Post.formatDateTime", size, () -> {
+			String last = null;
+			for (LocalDateTime dateTime : dateTimes) {
+				last = Post.formatDateTime(dateTime);
+			}
+			return last;
+		});
+	}
+}
@@ -0,0 +1,72 @@
+package bench.java;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import smanalyzer.java.service.ConcurrentDatabase;
+import smanalyzer.java.service.CsvTailer;
+import smanalyzer.java.service.LatencyHistogram;
+
+// Measures following a growing CSV with CsvTailer: the throughput of one poll over a large
+// appended tail, and the time from a row being appended to it being queryable while the
+// tailer follows on its own thread.
+// Usage: java -cp bin bench.java.FollowBenchmark [rows ...]
+public class FollowBenchmark {
+
+	static final int APPENDS = 200;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		for (int rows : Bench.sizes(args, 100_000, 1_000_000)) {
+			File csv = File.createTempFile("posts", ".csv");
+			csv.deleteOnExit();
+			new PostGenerator(42).writeCSV(csv, rows);
+
+			System.out.printf("-- %d rows appended\n", rows);
+			Bench.measure("poll, whole tail", rows, () -> new CsvTailer(csv, new ConcurrentDatabase(), 0), FollowBenchmark::poll);
+			csv.delete();
+		}
+
+		File csv = File.createTempFile("posts", ".csv");
+		csv.deleteOnExit();
+		new PostGenerator(42).writeCSV(csv, 0);
+		LatencyHistogram latency = follow(csv, APPENDS);
+		System.out.printf("append to queryable, %d rows: p50 %.2f ms, p99 %.2f ms, max %.2f ms\n", APPENDS,
+			latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6, latency.getMaxNanos() / 1e6);
+		csv.delete();
+	}
+
+	static int poll(CsvTailer tailer) {
+		try {
+			return tailer.poll();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Appends 'rows' rows one at a time, a few milliseconds apart, and times each until a
+	// lookup finds it.
+	static LatencyHistogram follow(File csv, int rows) throws IOException, InterruptedException {
+		ConcurrentDatabase db = new ConcurrentDatabase();
+		PostGenerator generator = new PostGenerator(7);
+		LatencyHistogram latency = new LatencyHistogram();
+
+		try (CsvTailer tailer = new CsvTailer(csv, db, csv.length());
+				FileOutputStream out = new FileOutputStream(csv, true)) {
+			tailer.start();
+			for (int ID = 0; ID < rows; ID++) {
+				byte[] row = (generator.csvRow(ID) + "\n").getBytes(StandardCharsets.UTF_8);
+				long start = System.nanoTime();
+				out.write(row);
+				while (!db.find(ID).isPresent()) {
+					Thread.onSpinWait();
+				}
+				latency.record(System.nanoTime() - start);
+				Thread.sleep(2);
+			}
+		}
+		return latency;
+	}
+}
@@ -0,0 +1,100 @@
+package bench.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.LatencyHistogram;
+import smanalyzer.java.service.PostStore;
+
+// Measures like/share increments on random posts for each engine, then the concurrent engine's
+// throughput as the number of updating threads grows, alone and with a thread reading the top
+// 10 throughout. Thread counts are set with -Dbench.threads=1,2,4,8; on fewer cores than
+// threads the figures show contention cost rather than speed-up.
+// Usage: java -cp bin bench.java.IncrementBenchmark [size ...]
+public class IncrementBenchmark {
+
+	static final int INCREMENTS = 200_000;
+	static final String THREADS = System.getProperty("bench.threads", "1,2,4,8");
+
+	public static void main(String[] args) throws Exception {
+		for (int size : Bench.sizes(args, 100_000, 1_000_000)) {
+			int[] IDs = new Random(size).ints(INCREMENTS, 0, size).toArray();
+
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore db = StoreBenchmark.fill(engine, new PostGenerator(42).posts(size));
+
+				Bench.measure("incrementLikes, " + engine, IDs.length, () -> increment(db, IDs));
+			}
+
+			PostStore db = StoreBenchmark.fill(Engine.CONCURRENT, new PostGenerator(42).posts(size));
+			for (String count : THREADS.split(",")) {
+				int threads = Integer.parseInt(count.trim());
+				ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+
+				Bench.measure("incrementLikes, concurrent, " + threads + " threads", (long) IDs.length * threads,
+					() -> incrementAll(pool, db, IDs, threads));
+
+				AtomicBoolean reading = new AtomicBoolean();
+				LatencyHistogram reads = new LatencyHistogram();
+				Bench.measure("  with a top-10 reader", (long) IDs.length * threads, () -> {
+					reading.set(true);
+					Future<?> reader = pool.submit(() -> {
+						while (reading.get()) {
+							long start = System.nanoTime();
+							Bench.sink = db.getMulti("likes", 10);
+							reads.record(System.nanoTime() - start);
+						}
+					});
+					int total = incrementAll(pool, db, IDs, threads);
+					reading.set(false);
+					try {
+						reader.get();
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+					return total;
+				});
+				System.out.printf("  top-10 reads: %d, p50 %.1f us, p99 %.1f us, max %.1f us\n", reads.getCount(),
+					reads.percentile(0.5) / 1e3, reads.percentile(0.99) / 1e3, reads.getMaxNanos() / 1e3);
+				pool.shutdown();
+			}
+		}
+	}
+
+	// Runs 'threads' workers that each make every increment of 'IDs', and waits for them.
+	static int incrementAll(ExecutorService pool, PostStore db, int[] IDs, int threads) {
+		List<Future<Integer>> workers = new ArrayList<Future<Integer>>();
+		for (int thread = 0; thread < threads; thread++) {
+			workers.add(pool.submit(() -> increment(db, IDs)));
+		}
+		int total = 0;
+		try {
+			for (Future<Integer> worker : workers) {
+				total += worker.get();
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return total;
+	}
+
+	static int increment(PostStore db, int[] IDs) {
+		int last = 0;
+		try {
+			for (int ID : IDs) {
+				last = db.incrementLikes(ID, 1);
+			}
+		} catch (PostNotExistException e) {
+			throw new IllegalStateException(e);
+		}
+		return last;
+	}
+}
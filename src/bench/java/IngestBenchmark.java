@@ -0,0 +1,49 @@
+package bench.java;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostFile;
+import smanalyzer.java.service.PostStore;
+
+// Measures import throughput (PostStore.init with "csv", then with "binary" from the same posts
+// converted to a PostFile) for each engine. The mapped engine's binary load is its cold start.
+// Usage: java -cp bin bench.java.IngestBenchmark [rows ...]
+public class IngestBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		for (int rows : Bench.sizes(args, 100_000, 1_000_000)) {
+			File csv = File.createTempFile("posts", ".csv");
+			csv.deleteOnExit();
+			new PostGenerator(42).writeCSV(csv, rows);
+
+			System.out.printf("-- %d rows, %d MB\n", rows, csv.length() >> 20);
+			for (Engine engine : Bench.engines()) {
+				Bench.measure("readCSV, " + engine, rows, () -> load(engine, "csv", csv));
+			}
+
+			File binary = File.createTempFile("posts", ".bin");
+			binary.deleteOnExit();
+			PostFile.convertCSV(csv, binary);
+			System.out.printf("-- %d rows, %d MB binary\n", rows, binary.length() >> 20);
+			for (Engine engine : Bench.engines()) {
+				Bench.measure("readBinary, " + engine, rows, () -> load(engine, "binary", binary));
+			}
+			csv.delete();
+			binary.delete();
+		}
+	}
+
+	static PostStore load(Engine engine, String type, File file) {
+		PostStore db = engine.create();
+		try {
+			db.init(type, file);
+		} catch (FileNotFoundException e) {
+			throw new UncheckedIOException(e);
+		}
+		return db;
+	}
+}
@@ -0,0 +1,63 @@
+package bench.java;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import smanalyzer.java.service.CsvLoader;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.LoadReport;
+
+// Measures CSV import into the hash map engine with the default loader, which pools authors,
+// and with content pooled as well, then the heap each post retains afterwards. The generated
+// posts have 10,000 authors and content drawn from a small vocabulary.
+// Usage: java -cp bin bench.java.InternBenchmark [rows ...]
+public class InternBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		for (int rows : Bench.sizes(args, 100_000, 1_000_000)) {
+			File csv = File.createTempFile("posts", ".csv");
+			csv.deleteOnExit();
+			new PostGenerator(42).writeCSV(csv, rows);
+
+			System.out.printf("-- %d rows\n", rows);
+			for (boolean poolContent : new boolean[] {false, true}) {
+				String name = poolContent ? "authors and content" : "authors";
+				CsvLoader loader = new CsvLoader(Runtime.getRuntime().availableProcessors(), 8 * 1024 * 1024, poolContent);
+
+				Bench.measure("readCSV, pooling " + name, rows, () -> load(loader, csv));
+				long before = usedHeap();
+				Database db = new Database();
+				LoadReport report = load(loader, csv, db);
+				long retained = usedHeap() - before;
+				System.out.printf("%-48s %14d bytes/post %10.1fx dedup\n", "retained, pooling " + name,
+					retained / rows, report.getDedupRatio());
+				Bench.sink = db;
+			}
+			csv.delete();
+		}
+	}
+
+	static Database load(CsvLoader loader, File csv) {
+		Database db = new Database();
+		load(loader, csv, db);
+		return db;
+	}
+
+	static LoadReport load(CsvLoader loader, File csv, Database db) {
+		try {
+			return loader.load(csv, db);
+		} catch (FileNotFoundException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,39 @@
+package bench.java;
+
+import java.util.List;
+
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.MeteredPostStore;
+import smanalyzer.java.service.PostStore;
+
+// Measures what collecting operation metrics costs: the same lookups and top-N queries on a
+// store with and without a MeteredPostStore around it.
+// Usage: java -cp bin bench.java.MetricsBenchmark [size ...]
+public class MetricsBenchmark {
+
+	static final int BATCH = 10_000;
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000)) {
+			List<Post> posts = new PostGenerator(42).posts(size);
+			int[] IDs = new int[Math.min(BATCH, size)];
+			for (int i = 0; i < IDs.length; i++) {
+				IDs[i] = posts.get(i).getID();
+			}
+
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore plain = StoreBenchmark.fill(engine, posts);
+				PostStore metered = new MeteredPostStore(plain);
+
+				Bench.measure("get, " + engine, IDs.length, () -> MissBenchmark.getAll(plain, IDs, 0));
+				Bench.measure("get metered, " + engine, IDs.length, () -> MissBenchmark.getAll(metered, IDs, 0));
+				Bench.measure("find miss, " + engine, IDs.length, () -> MissBenchmark.findAll(plain, IDs, Integer.MIN_VALUE));
+				Bench.measure("find miss metered, " + engine, IDs.length, () -> MissBenchmark.findAll(metered, IDs, Integer.MIN_VALUE));
+				Bench.measure("top 10 likes, " + engine, 1, () -> plain.getMulti("likes", 10));
+				Bench.measure("top 10 likes metered, " + engine, 1, () -> metered.getMulti("likes", 10));
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package bench.java;
+
+import java.util.List;
+
+import smanalyzer.java.exception.PostAlreadyExistsException;
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+
+// Measures lookups of missing IDs and inserts of duplicate IDs, through the throwing get and
+// put and through the non-throwing find and putIfAbsent, next to a lookup that hits.
+// Usage: java -cp bin bench.java.MissBenchmark [size ...]
+public class MissBenchmark {
+
+	static final int BATCH = 10_000;
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000)) {
+			List<Post> posts = new PostGenerator(42).posts(size);
+			List<Post> duplicates = posts.subList(0, Math.min(BATCH, size));
+
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore db = StoreBenchmark.fill(engine, posts);
+				int[] hits = new int[duplicates.size()];
+				for (int i = 0; i < hits.length; i++) {
+					hits[i] = duplicates.get(i).getID();
+				}
+
+				Bench.measure("get hit, " + engine, hits.length, () -> getAll(db, hits, 0));
+				Bench.measure("get miss (exception), " + engine, hits.length, () -> getAll(db, hits, Integer.MIN_VALUE));
+				Bench.measure("find miss, " + engine, hits.length, () -> findAll(db, hits, Integer.MIN_VALUE));
+				Bench.measure("put duplicate (exception), " + engine, duplicates.size(), () -> putAll(db, duplicates));
+				Bench.measure("putIfAbsent duplicate, " + engine, duplicates.size(), () -> putIfAbsentAll(db, duplicates));
+			}
+		}
+	}
+
+	// Generated IDs are non-negative, so offsetting them by Integer.MIN_VALUE always misses.
+	static int getAll(PostStore db, int[] IDs, int offset) {
+		int found = 0;
+		for (int ID : IDs) {
+			try {
+				db.get(ID + offset);
+				found++;
+			} catch (PostNotExistException e) {
+				// Counted as a miss.
+			}
+		}
+		return found;
+	}
+
+	static int findAll(PostStore db, int[] IDs, int offset) {
+		int found = 0;
+		for (int ID : IDs) {
+			if (db.find(ID + offset).isPresent()) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	static int putAll(PostStore db, List<Post> posts) {
+		int added = 0;
+		for (Post post : posts) {
+			try {
+				db.put(post);
+				added++;
+			} catch (PostAlreadyExistsException e) {
+				// Counted as a duplicate.
+			}
+		}
+		return added;
+	}
+
+	static int putIfAbsentAll(PostStore db, List<Post> posts) {
+		int added = 0;
+		for (Post post : posts) {
+			if (db.putIfAbsent(post)) {
+				added++;
+			}
+		}
+		return added;
+	}
+}
@@ -0,0 +1,51 @@
+package bench.java;
+
+import java.util.List;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.model.Post;
+
+// Measures single-row CSV parsing and post formatting.
+// Usage: java -cp bin bench.java.PostBenchmark [batch size]
+public class PostBenchmark {
+
+	public static void main(String[] args) {
+		int size = Bench.sizes(args, 100_000)[0];
+		PostGenerator generator = new PostGenerator(42);
+		String[] rows = new String[size];
+		for (int ID = 0; ID < size; ID++) {
+			rows[ID] = generator.csvRow(ID);
+		}
+		List<Post> posts = new PostGenerator(42).posts(size);
+
+		System.out.printf("-- %d posts\n", size);
+		Bench.measure("Post.convertFromCSV", size, () -> {
+			Post last = null;
+			try {
+				for (String row : rows) {
+					last = Post.convertFromCSV(row);
+				}
+			} catch (InvalidPostException e) {
+				throw new IllegalStateException(e);
+			}
+			return last;
+		});
+		Bench.measure("Post.formatPost", size, () -> {
+			long length = 0;
+			for (Post post : posts) {
+				length += post.formatPost().length();
+			}
+			return length;
+		});
+		StringBuilder output = new StringBuilder(1 << 16);
+		Bench.measure("Post.formatTo, reused buffer", size, () -> {
+			long length = 0;
+			for (Post post : posts) {
+				post.formatTo(output);
+				length += output.length();
+				output.setLength(0);
+			}
+			return length;
+		});
+	}
+}
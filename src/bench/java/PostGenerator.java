@@ -0,0 +1,100 @@
+package bench.java;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.model.Post;
+
+// Deterministic synthetic posts for the benchmarks. The same seed always yields the same data.
+public final class PostGenerator {
+
+	private static final String[] WORDS = {"meet", "us", "at", "building", "check", "out", "this",
+		"epic", "film", "christmas", "month", "already", "what", "a", "miracle", "fantastic", "day",
+		"today", "congratulations", "to", "all", "winners", "new", "post", "social", "media"};
+
+	private final Random random;
+	private final int authors;
+
+	public PostGenerator(long seed, int authors) {
+		this.random = new Random(seed);
+		this.authors = authors;
+	}
+
+	public PostGenerator(long seed) {
+		this(seed, 10_000);
+	}
+
+	// Returns the next post with the given ID.
+	public Post next(int ID) {
+		try {
+			return new Post(ID, content(), author(), random.nextInt(100_000), random.nextInt(100_000), dateTime());
+		} catch (InvalidPostException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Returns 'size' posts with IDs 0 to size - 1.
+	public List<Post> posts(int size) {
+		List<Post> posts = new ArrayList<Post>(size);
+		for (int ID = 0; ID < size; ID++) {
+			posts.add(next(ID));
+		}
+		return posts;
+	}
+
+	// Returns the next post as a CSV row in the posts.csv layout, without a line terminator.
+	public String csvRow(int ID) {
+		return String.format("%d,%s,%s,%d,%d,%s",
+			ID, content(), author(), random.nextInt(100_000), random.nextInt(100_000), dateTime());
+	}
+
+	// As csvRow, but the content holds a comma, quotes and a line break, so it is quoted.
+	public String quotedCsvRow(int ID) {
+		return String.format("%d,%s,%s,%d,%d,%s", ID, Post.quoteCSV(content() + ",\n\"" + content() + "\""),
+			author(), random.nextInt(100_000), random.nextInt(100_000), dateTime());
+	}
+
+	// Writes a posts.csv style file with a header and 'rows' posts with IDs 0 to rows - 1.
+	public File writeCSV(File csv, int rows) throws IOException {
+		return writeCSV(csv, rows, false);
+	}
+
+	// As writeCSV, with every row written by quotedCsvRow if 'quoted'.
+	public File writeCSV(File csv, int rows, boolean quoted) throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(csv), 1 << 16)) {
+			writer.write("ID,content,author,likes,shares,date-time\n");
+			for (int ID = 0; ID < rows; ID++) {
+				writer.write(quoted ? quotedCsvRow(ID) : csvRow(ID));
+				writer.write('\n');
+			}
+		}
+		return csv;
+	}
+
+	String content() {
+		StringBuilder content = new StringBuilder();
+		int words = 3 + random.nextInt(20);
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				content.append(' ');
+			}
+			content.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return content.toString();
+	}
+
+	String author() {
+		return String.format("%06X", random.nextInt(authors));
+	}
+
+	String dateTime() {
+		return String.format("%02d/%02d/%04d %02d:%02d", 1 + random.nextInt(28), 1 + random.nextInt(12),
+			2000 + random.nextInt(24), random.nextInt(24), random.nextInt(60));
+	}
+}
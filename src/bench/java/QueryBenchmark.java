@@ -0,0 +1,42 @@
+package bench.java;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+import smanalyzer.java.service.Query;
+import smanalyzer.java.service.TopN;
+
+// Measures an unindexed top-N query (long posts ranked on shares per like) run through
+// PostStore.query, which scans in parallel, against the same scan on one thread. The speed-up
+// is bounded by the number of cores; run with -Djava.util.concurrent.ForkJoinPool.common.parallelism
+// to try fewer.
+// Usage: java -cp bin bench.java.QueryBenchmark [size ...]
+public class QueryBenchmark {
+
+	static final Predicate<Post> LONG_POSTS = post -> post.getContent().length() > 60;
+	static final Comparator<Post> SHARES_PER_LIKE = Comparator
+		.comparingDouble((Post post) -> (double) post.getShares() / (post.getLikes() + 1)).reversed();
+
+	public static void main(String[] args) {
+		System.out.printf("%d cores\n", Runtime.getRuntime().availableProcessors());
+		for (int size : Bench.sizes(args, 100_000, 1_000_000)) {
+			List<Post> posts = new PostGenerator(42).posts(size);
+
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore db = StoreBenchmark.fill(engine, posts);
+
+				Bench.measure("sequential scan top 10, " + engine, 1,
+					() -> db.stream().filter(LONG_POSTS).collect(TopN.collector(SHARES_PER_LIKE, 10)));
+				Bench.measure("query top 10, " + engine, 1,
+					() -> db.query(Query.all().where(LONG_POSTS).orderBy(SHARES_PER_LIKE).limit(10)));
+				Bench.measure("query count, " + engine, 1,
+					() -> db.query(Query.all().where(LONG_POSTS).select(Post::getID)).size());
+			}
+		}
+	}
+}
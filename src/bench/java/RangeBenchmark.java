@@ -0,0 +1,31 @@
+package bench.java;
+
+import java.time.LocalDateTime;
+
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+
+// Measures date-range queries for each engine. Generated posts span 24 years, so a month holds
+// about 0.35% of them. Engines without a date-time index answer by scanning every post.
+// Usage: java -cp bin bench.java.RangeBenchmark [size ...]
+public class RangeBenchmark {
+
+	static final LocalDateTime FROM = LocalDateTime.of(2011, 11, 1, 0, 0);
+	static final LocalDateTime MONTH = FROM.plusMonths(1);
+	static final LocalDateTime YEAR = FROM.plusYears(1);
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000, 1_000_000)) {
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore db = StoreBenchmark.fill(engine, new PostGenerator(42).posts(size));
+
+				Bench.measure("getBetween, month, " + engine, 1, () -> db.getBetween(FROM, MONTH));
+				Bench.measure("getMultiBetween likes, month, N=10, " + engine, 1,
+					() -> db.getMultiBetween("likes", FROM, MONTH, 10));
+				Bench.measure("getMultiBetween likes, year, N=10, " + engine, 1,
+					() -> db.getMultiBetween("likes", FROM, YEAR, 10));
+			}
+		}
+	}
+}
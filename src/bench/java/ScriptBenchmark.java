@@ -0,0 +1,65 @@
+package bench.java;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Random;
+
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+import smanalyzer.java.service.ScriptRunner;
+
+// Measures script-mode throughput on a mix of commands: every post is added, then gets,
+// deletes and top-10 queries are interleaved. Answers go to a buffered writer that discards
+// them, so the figure is the cost of parsing, running and formatting.
+// Usage: java -cp bin bench.java.ScriptBenchmark [size ...]
+public class ScriptBenchmark {
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000, 1_000_000)) {
+			String script = script(new PostGenerator(42).posts(size));
+			long commands = script.chars().filter(c -> c == '\n').count();
+
+			System.out.printf("-- %d posts, %d commands\n", size, commands);
+			for (Engine engine : Bench.engines()) {
+				Bench.measure("script commands, " + engine, commands, engine::create, db -> run(db, script));
+			}
+		}
+	}
+
+	static String script(List<Post> posts) {
+		StringBuilder script = new StringBuilder();
+		Random random = new Random(42);
+
+		for (Post post : posts) {
+			script.append("add ").append(post.convertToCSV()).append('\n');
+		}
+		for (int i = 0; i < posts.size(); i++) {
+			int ID = posts.get(random.nextInt(posts.size())).getID();
+			int action = random.nextInt(100);
+
+			if (action < 80) {
+				script.append("get ").append(ID).append('\n');
+			} else if (action < 95) {
+				script.append("delete ").append(ID).append('\n');
+			} else {
+				script.append(action % 2 == 0 ? "top likes 10\n" : "top shares 10\n");
+			}
+		}
+		return script.toString();
+	}
+
+	static long run(PostStore db, String script) {
+		try {
+			BufferedWriter out = new BufferedWriter(Writer.nullWriter(), 1 << 16);
+			return new ScriptRunner(db, out).run(new BufferedReader(new StringReader(script), 1 << 16));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
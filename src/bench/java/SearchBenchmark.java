@@ -0,0 +1,55 @@
+package bench.java;
+
+import java.util.List;
+
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+
+// Compares keyword search through the content index against a brute-force String.contains scan
+// and against engines without an index, which tokenize every post. Generated content draws
+// from a small vocabulary, so single words are common and AND queries narrow them down.
+// Usage: java -cp bin bench.java.SearchBenchmark [size ...]
+public class SearchBenchmark {
+
+	static final String[][] QUERIES = {{"christmas"}, {"meet", "building"}, {"check", "epic", "film"}};
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000, 1_000_000)) {
+			List<Post> posts = new PostGenerator(42).posts(size);
+
+			System.out.printf("-- %d posts\n", size);
+			for (String[] words : QUERIES) {
+				String keywords = String.join(" ", words);
+				Bench.measure("String.contains scan, all of '" + keywords + "'", 1, () -> containsAll(posts, words));
+			}
+			for (Engine engine : Bench.engines()) {
+				PostStore db = StoreBenchmark.fill(engine, posts);
+
+				for (String[] words : QUERIES) {
+					String keywords = String.join(" ", words);
+					Bench.measure("search all of '" + keywords + "', N=10, " + engine, 1,
+						() -> db.search(keywords, true, "likes", 10));
+				}
+				Bench.measure("search any of 'christmas film', N=10, " + engine, 1,
+					() -> db.search("christmas film", false, "likes", 10));
+			}
+		}
+	}
+
+	// The search a user would otherwise write: substring matching, so not even word-exact.
+	static int containsAll(List<Post> posts, String[] words) {
+		int found = 0;
+		for (Post post : posts) {
+			String content = post.getContent().toLowerCase();
+			boolean all = true;
+			for (String word : words) {
+				all &= content.contains(word);
+			}
+			if (all) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
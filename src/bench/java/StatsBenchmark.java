@@ -0,0 +1,27 @@
+package bench.java;
+
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+
+// Measures reading the engagement statistics for each engine, both straight after a change
+// (when the summaries are rebuilt from the histograms) and when nothing has changed since the
+// last read. Engines without running statistics aggregate every post on each read.
+// Usage: java -cp bin bench.java.StatsBenchmark [size ...]
+public class StatsBenchmark {
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 100_000, 1_000_000)) {
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore db = StoreBenchmark.fill(engine, new PostGenerator(42).posts(size));
+				int[] IDs = {db.stream().findFirst().get().getID()};
+
+				Bench.measure("getEngagementStats after a change, " + engine, 1, () -> {
+					IncrementBenchmark.increment(db, IDs);
+					return db.getEngagementStats();
+				});
+				Bench.measure("getEngagementStats unchanged, " + engine, 1, () -> db.getEngagementStats());
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package bench.java;
+
+import java.util.List;
+import java.util.Random;
+
+import smanalyzer.java.exception.PostAlreadyExistsException;
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+
+// Measures get/put/delete latency and getMulti for both rankings for each engine.
+// Usage: java -cp bin bench.java.StoreBenchmark [size ...]
+public class StoreBenchmark {
+
+	static final int LOOKUPS = 100_000;
+	static final int[] COUNTS = {1, 10, 100, 1000};
+
+	public static void main(String[] args) {
+		for (int size : Bench.sizes(args, 10_000, 1_000_000)) {
+			List<Post> posts = new PostGenerator(42).posts(size);
+			int[] hits = randomIDs(size, 0, size);
+			int[] misses = randomIDs(size, size, Integer.MAX_VALUE);
+
+			System.out.printf("-- %d posts\n", size);
+			for (Engine engine : Bench.engines()) {
+				PostStore db = fill(engine, posts);
+
+				Bench.measure("put, " + engine, size, () -> fill(engine, posts));
+				Bench.measure("delete, " + engine, size, () -> fill(engine, posts), StoreBenchmark::deleteAll);
+				Bench.measure("putAll, " + engine, size, () -> engine.create().putAll(posts));
+				Bench.measure("put duplicates, " + engine, size, () -> putDuplicates(db, posts));
+				Bench.measure("putAll duplicates, " + engine, size, () -> db.putAll(posts));
+				Bench.measure("get hit, " + engine, hits.length, () -> getAll(db, hits));
+				Bench.measure("getAll hit, " + engine, hits.length, () -> db.getAll(hits));
+				Bench.measure("get miss, " + engine, misses.length, () -> getAll(db, misses));
+				for (int count : COUNTS) {
+					Bench.measure("getMulti likes N=" + count + ", " + engine, 1, () -> db.getMulti("likes", count));
+					Bench.measure("getMulti shares N=" + count + ", " + engine, 1, () -> db.getMulti("shares", count));
+				}
+			}
+		}
+	}
+
+	static PostStore fill(Engine engine, List<Post> posts) {
+		PostStore db = engine.create();
+		try {
+			for (Post post : posts) {
+				db.put(post);
+			}
+		} catch (PostAlreadyExistsException e) {
+			throw new IllegalStateException(e);
+		}
+		return db;
+	}
+
+	static int putDuplicates(PostStore db, List<Post> posts) {
+		int duplicates = 0;
+		for (Post post : posts) {
+			try {
+				db.put(post);
+			} catch (PostAlreadyExistsException e) {
+				duplicates++;
+			}
+		}
+		return duplicates;
+	}
+
+	static PostStore deleteAll(PostStore db) {
+		try {
+			for (int ID = db.size() - 1; ID >= 0; ID--) {
+				db.delete(ID);
+			}
+		} catch (PostNotExistException e) {
+			throw new IllegalStateException(e);
+		}
+		return db;
+	}
+
+	static int getAll(PostStore db, int[] IDs) {
+		int found = 0;
+		for (int ID : IDs) {
+			try {
+				found += db.get(ID).getLikes();
+			} catch (PostNotExistException e) {
+				found--;
+			}
+		}
+		return found;
+	}
+
+	static int[] randomIDs(int seed, int from, int to) {
+		return new Random(seed).ints(LOOKUPS, from, to).toArray();
+	}
+}
@@ -0,0 +1,49 @@
+package bench.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import smanalyzer.java.exception.PostAlreadyExistsException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.TopN;
+
+// Compares the original copy-and-sort getMulti against bounded-heap selection and the indexed
+// likes ranking. Sizes default to 10^4, 10^6 and 10^7 posts; 10^7 needs around -Xmx6g.
+// Usage: java -cp bin bench.java.TopNBenchmark [size ...]
+public class TopNBenchmark {
+
+	static final int[] COUNTS = {5, 100};
+
+	public static void main(String[] args) throws PostAlreadyExistsException {
+		for (int size : Bench.sizes(args, 10_000, 1_000_000, 10_000_000)) {
+			List<Post> posts = new PostGenerator(42).posts(size);
+			Database db = new Database();
+			for (Post post : posts) {
+				db.put(post);
+			}
+
+			System.out.printf("-- %d posts\n", size);
+			for (int count : COUNTS) {
+				Bench.measure("copy and sort, by date, N=" + count, 1, () -> copyAndSort(posts, SORT_ON_DATE, count));
+				Bench.measure("bounded heap, by date, N=" + count, 1, () -> TopN.select(posts, SORT_ON_DATE, count));
+				Bench.measure("likes index, N=" + count, 1, () -> db.getMulti("likes", count));
+			}
+		}
+	}
+
+	// The getMulti path before the likes/shares indexes and partial selection were added.
+	static List<Post> copyAndSort(List<Post> posts, Comparator<Post> ranking, int count) {
+		List<Post> sortedPosts = new ArrayList<Post>(posts);
+		Collections.sort(sortedPosts, ranking);
+		return sortedPosts.subList(0, Math.min(count, sortedPosts.size()));
+	}
+
+	static final Comparator<Post> SORT_ON_DATE = new Comparator<Post>() {
+		public int compare(Post p1, Post p2) {
+			return p2.getDateTime().compareTo(p1.getDateTime());
+		}
+	};
+}
@@ -0,0 +1,35 @@
+package smanalyzer.java;
+
+import java.io.File;
+import java.io.IOException;
+
+import smanalyzer.java.service.LoadReport;
+import smanalyzer.java.service.PostFile;
+
+// Converts between the CSV layout and the binary post file read with --binary=<file>.
+// Usage: java -cp ./bin smanalyzer.java.Convert <from> <to>
+// A source ending in ".csv" is converted to binary, anything else is converted to CSV.
+public class Convert {
+
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.out.println("Usage: java smanalyzer.java.Convert <from> <to>");
+			System.exit(1);
+		}
+		File from = new File(args[0]);
+		File to = new File(args[1]);
+
+		try {
+			if (from.getName().toLowerCase().endsWith(".csv")) {
+				LoadReport report = PostFile.convertCSV(from, to);
+				System.out.printf("Converted %s to binary: %s\n", from, report);
+			} else {
+				PostFile.convertToCSV(from, to);
+				System.out.printf("Converted %s to CSV\n", from);
+			}
+		} catch (IOException e) {
+			System.out.printf("Could not convert %s: %s\n", from, e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -1,39 +1,182 @@
 package smanalyzer.java;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.management.JMException;
 
 import smanalyzer.java.service.*;
 
 public class Main {
 	static String USE_CSV = "csv";
 	static String USE_DEFAULT = "default";
+	static String USE_BINARY = "binary";
 	static String PATH_TO_CSV = "src/smanalyzer/resources/posts.csv";
+	static String ENGINE_OPTION = "--engine=";
+	static String DATA_DIR_OPTION = "--data-dir=";
+	static String BINARY_OPTION = "--binary=";
+	static String SCRIPT_OPTION = "--script=";
+	static String SCRIPT_STDIN = "-";
+	static String FOLLOW_OPTION = "--follow";
+	static String CACHE_OPTION = "--cache";
+	static int SCRIPT_BUFFER_SIZE = 1 << 16;
 
 	public static void main(String[] args) {
 		Menu menu = new Menu();
-		Database db = new Database(); 
-		
-		// Enter any argument into the command-line to use the hard-coded database.
-		if(args.length > 0) {
-			try {
-				File csv = new File(PATH_TO_CSV);
-				db.init(USE_DEFAULT, csv);
-			} catch(FileNotFoundException e) {
-				System.out.printf("Missing database file: %s\n", PATH_TO_CSV);
-				System.exit(1);
+		Engine engine = null;
+		String type = USE_CSV;
+		File source = new File(PATH_TO_CSV);
+		File dataDir = null;
+		String script = null;
+		boolean follow = false;
+		boolean cache = false;
+
+		// Select the storage engine with --engine=<name>, and keep changes across runs with
+		// --data-dir=<directory>. Load a binary post file instead of the CSV with --binary=<file>.
+		// Run commands from a file, or from standard input with "-", with --script=<file>.
+		// Keep adding the rows appended to the CSV while the program runs with --follow.
+		// Cache the answers of repeated top-N queries, e.g. for a dashboard, with --cache.
+		// Enter any other argument into the command-line to use the hard-coded database.
+		for (String arg : args) {
+			if (arg.startsWith(ENGINE_OPTION)) {
+				try {
+					engine = Engine.fromName(arg.substring(ENGINE_OPTION.length()));
+				} catch (IllegalArgumentException e) {
+					System.out.printf("%s. Available engines: %s\n", e.getMessage(), Arrays.toString(Engine.values()));
+					System.exit(1);
+				}
+			} else if (arg.startsWith(BINARY_OPTION)) {
+				type = USE_BINARY;
+				source = new File(arg.substring(BINARY_OPTION.length()));
+			} else if (arg.startsWith(DATA_DIR_OPTION)) {
+				dataDir = new File(arg.substring(DATA_DIR_OPTION.length()));
+			} else if (arg.startsWith(SCRIPT_OPTION)) {
+				script = arg.substring(SCRIPT_OPTION.length());
+			} else if (arg.equals(FOLLOW_OPTION)) {
+				follow = true;
+			} else if (arg.equals(CACHE_OPTION)) {
+				cache = true;
+			} else {
+				type = USE_DEFAULT;
+			}
+		}
+
+		// Followed rows are added from another thread while the menu or script runs, which only
+		// the concurrent engine allows.
+		if (follow && engine != null && engine != Engine.CONCURRENT) {
+			System.out.printf("%s needs %s%s, as rows are added from another thread.\n", FOLLOW_OPTION, ENGINE_OPTION, Engine.CONCURRENT);
+			System.exit(1);
+		}
+		// Only the CSV is followed, so it must be what was loaded.
+		if (follow && !type.equals(USE_CSV)) {
+			System.out.printf("%s follows %s, so it cannot be used with %s<file> or the hard-coded database.\n",
+				FOLLOW_OPTION, PATH_TO_CSV, BINARY_OPTION);
+			System.exit(1);
+		}
+		if (engine == null) {
+			engine = follow ? Engine.CONCURRENT : Engine.HASHMAP;
+		}
+
+		// A script's answers are read from standard output, so everything else printed while it
+		// runs, such as the load report and import notices, goes to standard error instead.
+		PrintStream answers = System.out;
+		if (script != null) {
+			System.setOut(System.err);
+		}
+
+		PostStore db = engine.create();
+		JournaledPostStore journaled = null;
+		long followFrom = 0;
+		try {
+			// A data directory that already holds posts is recovered instead of re-imported.
+			if (dataDir != null) {
+				journaled = JournaledPostStore.open(dataDir, db);
+				db = journaled;
+			}
+			// Writes pass through the cache so it can drop the answers they change, which takes
+			// one lock per write, so it is only installed when asked for. Metrics are outermost,
+			// so they include the cost of journaling and the benefit of the cache.
+			if (cache) {
+				db = new CachingPostStore(db);
+			}
+			db = metered(db);
+			if (journaled == null || !journaled.isRecovered()) {
+				LoadReport report = db.init(type, source);
+				if (type.equals(USE_CSV)) {
+					System.out.println(report);
+					followFrom = report.getEndOffset();
+				}
 			}
+		} catch(FileNotFoundException e) {
+			System.out.printf("Missing database file: %s\n", source);
+			System.exit(1);
+		} catch(UncheckedIOException e) {
+			System.out.printf("Could not read database file %s: %s\n", source, e.getCause().getMessage());
+			System.exit(1);
+		} catch(IOException e) {
+			System.out.printf("Could not open data directory %s: %s\n", dataDir, e.getMessage());
+			System.exit(1);
+		}
+		// Without an import of the CSV in this run, it is followed from the start and the
+		// posts already held are counted as duplicates.
+		CsvTailer tailer = null;
+		if (follow) {
+			tailer = new CsvTailer(new File(PATH_TO_CSV), db, followFrom);
+			tailer.start();
+		}
+		if (script != null) {
+			runScript(db, script, answers);
 		} else {
+			menu.start(db);
+		}
+
+		if (tailer != null) {
+			tailer.close();
+			System.out.printf("Followed %s: %s\n", PATH_TO_CSV, tailer.getReport());
+		}
+
+		if (journaled != null) {
 			try {
-				File csv = new File(PATH_TO_CSV);
-				db.init(USE_CSV, csv);
-			} catch(FileNotFoundException e) {
-				System.out.printf("Missing database file: %s\n", PATH_TO_CSV);
-				System.exit(1);
+				journaled.close();
+			} catch(IOException e) {
+				System.out.printf("Could not close data directory %s: %s\n", dataDir, e.getMessage());
 			}
 		}
-		menu.start(db);
 	}
 
-}
+	// Wraps 'db' to collect operation metrics, shown in the menu and over JMX.
+	static PostStore metered(PostStore db) {
+		MeteredPostStore metered = new MeteredPostStore(db);
+		try {
+			metered.getMetrics().register();
+		} catch (JMException e) {
+			System.out.printf("Could not publish metrics over JMX: %s\n", e.getMessage());
+		}
+		return metered;
+	}
+
+	// Runs the commands of 'script' (see ScriptRunner), writing the answers to 'answers'.
+	static void runScript(PostStore db, String script, PrintStream answers) {
+		try (InputStream stream = script.equals(SCRIPT_STDIN) ? System.in : new FileInputStream(script)) {
+			BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), SCRIPT_BUFFER_SIZE);
+			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(answers, StandardCharsets.UTF_8), SCRIPT_BUFFER_SIZE);
 
+			new ScriptRunner(db, out).run(in);
+		} catch (FileNotFoundException e) {
+			System.out.printf("Missing script file: %s\n", script);
+		} catch (IOException e) {
+			System.out.printf("Could not run script %s: %s\n", script, e.getMessage());
+		}
+	}
+}
@@ -1,9 +1,10 @@
 package smanalyzer.java.exception;
 
+// Thrown for each bad date entered or imported, so no stack trace is filled in.
 public class InvalidDateException extends Exception {
 
     public InvalidDateException(String reason) {
-        super("Invalid date: " + reason);
+        super("Invalid date: " + reason, null, false, false);
     }
 
 }
\ No newline at end of file
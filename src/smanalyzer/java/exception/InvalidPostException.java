@@ -1,8 +1,28 @@
 package smanalyzer.java.exception;
 
+// Thrown for each bad row of an import, so no stack trace is filled in.
 public class InvalidPostException extends Exception {
 
+    // What was wrong with the post, so rejected rows can be counted by cause.
+    public enum Reason {
+        MISSING_FIELD,
+        INVALID_NUMBER,
+        INVALID_DATE,
+        INVALID_VALUE
+    }
+
+    private final Reason reason;
+
     public InvalidPostException(String reason) {
-        super("Invalid post: " + reason);
+        this(Reason.INVALID_VALUE, reason);
+    }
+
+    public InvalidPostException(Reason reason, String detail) {
+        super("Invalid post: " + detail, null, false, false);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
     }
 }
@@ -1,15 +1,21 @@
 package smanalyzer.java.exception;
 
+// Thrown for an ordinary duplicate rather than a bug, so no stack trace is filled in.
 public class PostAlreadyExistsException extends Exception{
     int ID;
 
     public PostAlreadyExistsException(int ID) {
+        super(null, null, false, false);
         this.ID = ID;
     }
 
     @Override
     public String getMessage() {
-        String message = String.format("Post of ID %d already exists in the collection.", ID);
-        return message;
+        return message(ID);
+    }
+
+    // The message for a duplicate ID, for batch paths that report duplicates without throwing.
+    public static String message(int ID) {
+        return String.format("Post of ID %d already exists in the collection.", ID);
     }
 }
@@ -1,15 +1,22 @@
 package smanalyzer.java.exception;
 
+// Thrown for an ordinary miss rather than a bug, so no stack trace is filled in: building one
+// would cost far more than the lookup that failed.
 public class PostNotExistException extends Exception{
     int ID;
 
     public PostNotExistException(int ID) {
+        super(null, null, false, false);
         this.ID = ID;
     }
 
     @Override
     public String getMessage() {
-        String message = String.format("Post of ID %d does not exist in the collection.", ID);
-        return message;
+        return message(ID);
+    }
+
+    // The message for a missing ID, for paths that report misses without throwing.
+    public static String message(int ID) {
+        return String.format("Post of ID %d does not exist in the collection.", ID);
     }
 }
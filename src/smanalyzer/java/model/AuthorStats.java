@@ -0,0 +1,79 @@
+package smanalyzer.java.model;
+
+import java.util.Objects;
+
+// Totals over every post of one author. Instances are never changed; a store hands out a new
+// one whenever an author's totals change. The author may be null, like Post's.
+public class AuthorStats {
+
+	private final String author;
+	private final int posts;
+	private final long totalLikes;
+	private final long totalShares;
+
+	public AuthorStats(String author, int posts, long totalLikes, long totalShares) {
+		this.author = author;
+		this.posts = posts;
+		this.totalLikes = totalLikes;
+		this.totalShares = totalShares;
+	}
+
+	// Totals of an author with no posts.
+	public static AuthorStats none(String author) {
+		return new AuthorStats(author, 0, 0, 0);
+	}
+
+	// Returns the totals with 'post' added.
+	public AuthorStats plus(Post post) {
+		return new AuthorStats(author, posts + 1, totalLikes + post.getLikes(), totalShares + post.getShares());
+	}
+
+	// Returns the totals with 'post' taken away.
+	public AuthorStats minus(Post post) {
+		return new AuthorStats(author, posts - 1, totalLikes - post.getLikes(), totalShares - post.getShares());
+	}
+
+	// Formats the totals on one line, e.g. "SD2C45 | Posts: 3 | Likes: 120 | Shares: 48".
+	public String formatStats() {
+		return String.format("%s | Posts: %d | Likes: %d | Shares: %d", author, posts, totalLikes, totalShares);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof AuthorStats)) {
+			return false;
+		}
+		AuthorStats stats = (AuthorStats) other;
+		return posts == stats.posts && totalLikes == stats.totalLikes && totalShares == stats.totalShares
+			&& Objects.equals(author, stats.author);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(author, posts, totalLikes, totalShares);
+	}
+
+	@Override
+	public String toString() {
+		return formatStats();
+	}
+
+	public String getAuthor() {
+		return author;
+	}
+
+	public int getPosts() {
+		return posts;
+	}
+
+	public long getTotalLikes() {
+		return totalLikes;
+	}
+
+	public long getTotalShares() {
+		return totalShares;
+	}
+}
@@ -0,0 +1,142 @@
+package smanalyzer.java.model;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+
+// Engagement statistics over every post of a store at one point in time: totals, means,
+// variances and approximate percentiles of likes and shares, and how posts are spread over the
+// hours of the day and days of the week. Instances are never changed.
+public class EngagementStats {
+
+	private final int posts;
+	private final Summary likes;
+	private final Summary shares;
+	private final int[] postsPerHour;
+	private final int[] postsPerDay;
+
+	public EngagementStats(int posts, Summary likes, Summary shares, int[] postsPerHour, int[] postsPerDay) {
+		this.posts = posts;
+		this.likes = likes;
+		this.shares = shares;
+		this.postsPerHour = Arrays.copyOf(postsPerHour, 24);
+		this.postsPerDay = Arrays.copyOf(postsPerDay, 7);
+	}
+
+	// Statistics of one engagement count. The variance is the population variance, as the
+	// posts of a store are the whole population rather than a sample of it. Percentiles are
+	// exact up to 127 and within 1% above that.
+	public static class Summary {
+
+		private final long sum;
+		private final double mean;
+		private final double variance;
+		private final int p50;
+		private final int p95;
+		private final int p99;
+
+		public Summary(long sum, double mean, double variance, int p50, int p95, int p99) {
+			this.sum = sum;
+			this.mean = mean;
+			this.variance = variance;
+			this.p50 = p50;
+			this.p95 = p95;
+			this.p99 = p99;
+		}
+
+		// Formats the summary on one line, e.g. "Total: 300 | Mean: 100.00 | Std dev: 8.16 | p50: 100 | p95: 110 | p99: 110".
+		public String formatSummary() {
+			return String.format("Total: %d | Mean: %.2f | Std dev: %.2f | p50: %d | p95: %d | p99: %d",
+				sum, mean, getStandardDeviation(), p50, p95, p99);
+		}
+
+		@Override
+		public String toString() {
+			return formatSummary();
+		}
+
+		public long getSum() {
+			return sum;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public double getVariance() {
+			return variance;
+		}
+
+		public double getStandardDeviation() {
+			return Math.sqrt(variance);
+		}
+
+		public int getP50() {
+			return p50;
+		}
+
+		public int getP95() {
+			return p95;
+		}
+
+		public int getP99() {
+			return p99;
+		}
+	}
+
+	// Formats the statistics over several lines, ending with the busiest hour and day.
+	public String formatStats() {
+		int busiestHour = 0;
+		for (int hour = 1; hour < 24; hour++) {
+			if (postsPerHour[hour] > postsPerHour[busiestHour]) {
+				busiestHour = hour;
+			}
+		}
+		DayOfWeek busiestDay = DayOfWeek.MONDAY;
+		for (DayOfWeek day : DayOfWeek.values()) {
+			if (getPostsOn(day) > getPostsOn(busiestDay)) {
+				busiestDay = day;
+			}
+		}
+
+		return String.format("Posts: %d\nLikes  | %s\nShares | %s\nBusiest hour: %02d:00 (%d posts)\nBusiest day: %s (%d posts)",
+			posts, likes.formatSummary(), shares.formatSummary(), busiestHour, postsPerHour[busiestHour],
+			busiestDay, getPostsOn(busiestDay));
+	}
+
+	@Override
+	public String toString() {
+		return formatStats();
+	}
+
+	public int getPosts() {
+		return posts;
+	}
+
+	public Summary getLikes() {
+		return likes;
+	}
+
+	public Summary getShares() {
+		return shares;
+	}
+
+	// Number of posts made during 'hour' of the day, 0-23.
+	public int getPostsAt(int hour) {
+		return postsPerHour[hour];
+	}
+
+	// Number of posts made on 'day' of the week.
+	public int getPostsOn(DayOfWeek day) {
+		return postsPerDay[day.ordinal()];
+	}
+
+	// Posts per hour of the day, indexed 0-23. The array is a copy.
+	public int[] getPostsPerHour() {
+		return postsPerHour.clone();
+	}
+
+	// Posts per day of the week, indexed Monday first. The array is a copy.
+	public int[] getPostsPerDay() {
+		return postsPerDay.clone();
+	}
+}
@@ -0,0 +1,66 @@
+package smanalyzer.java.model;
+
+// Call count, failures and latency of one store operation at one point in time. Latencies are
+// in nanoseconds; percentiles are exact below 32 ns and within about 3% above that. Instances
+// are never changed.
+public class OperationStats {
+
+	private final String name;
+	private final long calls;
+	private final long failures;
+	private final double meanNanos;
+	private final long p50Nanos;
+	private final long p99Nanos;
+	private final long maxNanos;
+
+	public OperationStats(String name, long calls, long failures, double meanNanos, long p50Nanos, long p99Nanos,
+			long maxNanos) {
+		this.name = name;
+		this.calls = calls;
+		this.failures = failures;
+		this.meanNanos = meanNanos;
+		this.p50Nanos = p50Nanos;
+		this.p99Nanos = p99Nanos;
+		this.maxNanos = maxNanos;
+	}
+
+	// Formats the statistics as one table row, with latencies in microseconds.
+	public String formatStats() {
+		return String.format("%-14s %10d %9d %11.2f %10.2f %10.2f %10.2f", name, calls, failures,
+			meanNanos / 1e3, p50Nanos / 1e3, p99Nanos / 1e3, maxNanos / 1e3);
+	}
+
+	@Override
+	public String toString() {
+		return formatStats();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCalls() {
+		return calls;
+	}
+
+	// Calls that threw, or for find and putIfAbsent, that found nothing or added nothing.
+	public long getFailures() {
+		return failures;
+	}
+
+	public double getMeanNanos() {
+		return meanNanos;
+	}
+
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+}
@@ -1,11 +1,12 @@
 package smanalyzer.java.model;
 
+import java.io.IOException;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.ResolverStyle;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
+import java.util.Objects;
 
 import smanalyzer.java.exception.*;
 
@@ -14,6 +15,17 @@ import java.time.LocalDateTime;
 public class Post {
 	
 	private static String COMMA_DELIMITER = ",";
+	private static final char QUOTE = '"';
+	public static final int POST_FIELDS = 6;
+	private static final int DATE_TIME_LENGTH = 16;
+	private static final int MAX_LINE_LENGTH = 70;
+	private static final String RULE = "--------------------------------------------------------------------------------\n";
+	// Length of a formatted post without its content, author and numbers, for sizing buffers.
+	private static final int FORMATTED_LENGTH = 2 * RULE.length() + 64;
+
+	// DateTimeFormatter is immutable and thread-safe, so one compiled instance is shared.
+	public static final DateTimeFormatter DATE_TIME_FORMATTER =
+		DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm").withResolverStyle(ResolverStyle.STRICT);
 
 	private int ID;
 	private String content;
@@ -35,23 +47,101 @@ public class Post {
 		try {
 			this.dateTime = convertDateTime(dateString);
 		} catch (InvalidDateException e) {
-			throw new InvalidPostException(e.getMessage());
+			throw new InvalidPostException(InvalidPostException.Reason.INVALID_DATE, e.getMessage());
 		}
 	}
 
+	// Constructs a post from an already validated date-time, e.g. when rebuilding a post from
+	// a storage engine that does not keep Post objects.
+	public Post(int ID, String content, String author, int likes, int shares, LocalDateTime dateTime) {
+		this.ID = ID;
+		this.content = content;
+		this.author = author;
+		this.likes = likes;
+		this.shares = shares;
+		this.dateTime = Objects.requireNonNull(dateTime);
+	}
+
 	// Converts the date-time string into a LocalDateTime to ensure it is of the correct format.
+	// Well-formed strings are read directly from their fixed-width digits; anything else goes
+	// through the strict formatter so the error message is the same as before.
 	public static LocalDateTime convertDateTime(String dateString) throws InvalidDateException {
-		LocalDateTime dateTime;
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm").withResolverStyle(ResolverStyle.STRICT);
+		LocalDateTime dateTime = parseFixedWidth(dateString);
 
-		try {
-			dateTime = LocalDateTime.parse(dateString, formatter);
+		if (dateTime != null) {
 			return dateTime;
+		}
+
+		try {
+			return LocalDateTime.parse(dateString, DATE_TIME_FORMATTER);
 		} catch (DateTimeParseException e) {
 			throw new InvalidDateException(e.getMessage());
 		}
 	}
 
+	// Parses "dd/MM/yyyy HH:mm" with the same checks as the STRICT resolver, e.g. 29/02 only in a
+	// leap year. Returns null if the string does not match so the caller can fall back.
+	private static LocalDateTime parseFixedWidth(String dateString) {
+		if (dateString == null || dateString.length() != DATE_TIME_LENGTH
+				|| dateString.charAt(2) != '/' || dateString.charAt(5) != '/'
+				|| dateString.charAt(10) != ' ' || dateString.charAt(13) != ':') {
+			return null;
+		}
+
+		int day = digits(dateString, 0, 2);
+		int month = digits(dateString, 3, 5);
+		int year = digits(dateString, 6, 10);
+		int hour = digits(dateString, 11, 13);
+		int minute = digits(dateString, 14, 16);
+
+		if (day < 1 || month < 1 || month > 12 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+				|| day > Month.of(month).length(Year.isLeap(year))) {
+			return null;
+		}
+		return LocalDateTime.of(year, month, day, hour, minute);
+	}
+
+	// Reads the ASCII digits in [start, end) as a number, or returns -1 if any is not a digit.
+	private static int digits(String value, int start, int end) {
+		int number = 0;
+		for (int i = start; i < end; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			number = number * 10 + digit;
+		}
+		return number;
+	}
+
+	// Formats a date-time as "dd/MM/yyyy HH:mm" without going through the formatter for
+	// four-digit years.
+	public static String formatDateTime(LocalDateTime dateTime) {
+		int year = dateTime.getYear();
+		if (year < 0 || year > 9999) {
+			return dateTime.format(DATE_TIME_FORMATTER);
+		}
+
+		char[] formatted = new char[DATE_TIME_LENGTH];
+		putDigits(formatted, 0, 2, dateTime.getDayOfMonth());
+		formatted[2] = '/';
+		putDigits(formatted, 3, 5, dateTime.getMonthValue());
+		formatted[5] = '/';
+		putDigits(formatted, 6, 10, year);
+		formatted[10] = ' ';
+		putDigits(formatted, 11, 13, dateTime.getHour());
+		formatted[13] = ':';
+		putDigits(formatted, 14, 16, dateTime.getMinute());
+		return new String(formatted);
+	}
+
+	private static void putDigits(char[] target, int start, int end, int number) {
+		for (int i = end - 1; i >= start; i--) {
+			target[i] = (char) ('0' + number % 10);
+			number /= 10;
+		}
+	}
+
 	// Formats the post to a nice readable format reminiscent of a particular blue bird:
 	// -------------------------------------------------------------------------------- 
 	// | ID | AUTHOR | DATE-TIME
@@ -61,40 +151,101 @@ public class Post {
 	// | Likes: ## | Shares: ##
 	// --------------------------------------------------------------------------------
 	public String formatPost() {
-		String formattedContent = formatContent(this.content);
-		String formattedDateTime = this.dateTime.format(DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm"));
-
-		String formattedPost = String.format("--------------------------------------------------------------------------------\n" 
-										   + "| %d | %s | %s\n"
-										   + "|\n"
-									   	   + "| %s\n"
-										   + "|\n"
-										   + "| Likes: %d | Shares: %d\n"
-										   + "--------------------------------------------------------------------------------\n", 
-											this.ID, this.author, formattedDateTime, formattedContent, this.likes, this.shares);
-
-		return formattedPost;
-	}
-
-	// Formats the content to multiple lines if it's over 70 characters. Adds the vertical bar for 
-	// consistency with the output of formatPost
-	private String formatContent(String content) {
-		String formattedContent = "";
-		int maxLength = 70;
-
-		while(content.length() > 0) {
-			if(content.length() < maxLength) {
-				formattedContent += content;
-				content = "";
-			} else if (content.charAt(maxLength) == ' ') {
-				formattedContent += content.substring(0, maxLength + 1) + "\n| ";
-				content = content.substring(maxLength + 1);
+		return formatTo(new StringBuilder(FORMATTED_LENGTH + String.valueOf(content).length())).toString();
+	}
+
+	// Writes the post to 'out' as formatPost formats it, in one pass over the content and with
+	// no intermediate strings, so a list of posts can be rendered into one buffer. Returns 'out'.
+	public StringBuilder formatTo(StringBuilder out) {
+		try {
+			formatTo((Appendable) out);
+		} catch (IOException e) {
+			throw new AssertionError("StringBuilder does not throw", e);
+		}
+		return out;
+	}
+
+	// formatTo for any sink, such as a Writer. Exceptions thrown by 'out' are passed on.
+	public void formatTo(Appendable out) throws IOException {
+		out.append(RULE).append("| ");
+		appendNumber(out, ID);
+		out.append(" | ").append(String.valueOf(author)).append(" | ");
+		appendDateTime(out, dateTime);
+		out.append("\n|\n| ");
+		appendContent(out, String.valueOf(content));
+		out.append("\n|\n| Likes: ");
+		appendNumber(out, likes);
+		out.append(" | Shares: ");
+		appendNumber(out, shares);
+		out.append('\n').append(RULE);
+	}
+
+	// Writes the content wrapped to lines of at most 70 characters, breaking at the last space
+	// that fits and adding the vertical bar for consistency with the output of formatPost. A
+	// word longer than a whole line is broken at the line's end.
+	private static void appendContent(Appendable out, String content) throws IOException {
+		int start = 0;
+
+		while (start < content.length()) {
+			int end = start + MAX_LINE_LENGTH;
+
+			if (content.length() <= end) {
+				out.append(content, start, content.length());
+				return;
+			}
+			int next;
+			if (content.charAt(end) == ' ') {
+				next = end + 1;
+				end = next; // the space stays at the end of the line
 			} else {
-				formattedContent += content.substring(0, content.lastIndexOf(' ', maxLength)) + "\n| ";
-				content = content.substring(content.lastIndexOf(' ', maxLength));
+				int space = content.lastIndexOf(' ', end);
+				if (space > start) {
+					end = space; // the space starts the next line
+				}
+				next = end;
 			}
+			out.append(content, start, end).append("\n| ");
+			start = next;
+		}
+	}
+
+	// Writes a number without creating a string for it.
+	private static void appendNumber(Appendable out, long number) throws IOException {
+		if (number < 0) {
+			out.append('-');
+			number = -number;
+		}
+		long divisor = 1;
+		while (number / divisor >= 10) {
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10) {
+			out.append((char) ('0' + number / divisor % 10));
+		}
+	}
+
+	// formatDateTime, written to 'out'.
+	private static void appendDateTime(Appendable out, LocalDateTime dateTime) throws IOException {
+		int year = dateTime.getYear();
+		if (year < 0 || year > 9999) {
+			out.append(dateTime.format(DATE_TIME_FORMATTER));
+			return;
+		}
+		appendDigits(out, 2, dateTime.getDayOfMonth());
+		out.append('/');
+		appendDigits(out, 2, dateTime.getMonthValue());
+		out.append('/');
+		appendDigits(out, 4, year);
+		out.append(' ');
+		appendDigits(out, 2, dateTime.getHour());
+		out.append(':');
+		appendDigits(out, 2, dateTime.getMinute());
+	}
+
+	private static void appendDigits(Appendable out, int width, int number) throws IOException {
+		for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+			out.append((char) ('0' + number / divisor % 10));
 		}
-		return formattedContent;
 	}
 
 	// Print the post to standard output after formatting
@@ -104,33 +255,135 @@ public class Post {
 
 	// Converts a single comma-separated string to a post. Expects all post values to be present
 	// and of the correct type, otherwise throws an InvalidPostException.
+	// Fields are read as RFC 4180 describes: a field in double quotes may hold commas, line
+	// breaks and quotes written twice (""). Quotes that do not start a field are kept as text,
+	// so rows exported without quoting still load as before.
+	// Fields are located with indexOf rather than a Scanner to keep per-row allocation low.
 	public static Post convertFromCSV(String importedPost) throws InvalidPostException {
-		List<String> postValues = new ArrayList<String>();
-		int ID;
-		String content;
-		String author;
-		int likes;
-		int shares;
-		String dateTime;
-
-		try (Scanner rowScanner = new Scanner(importedPost)) {
-			rowScanner.useDelimiter(COMMA_DELIMITER);
-
-			while(rowScanner.hasNext()) {
-				postValues.add(rowScanner.next());
+		String[] postValues = new String[POST_FIELDS];
+		int fields = 0;
+		int start = 0;
+
+		while (fields < POST_FIELDS && start < importedPost.length()) {
+			if (importedPost.charAt(start) == QUOTE) {
+				start = readQuoted(importedPost, start, postValues, fields++);
+				continue;
 			}
-			ID = Integer.valueOf(postValues.get(0));
-			content = postValues.get(1);
-			author = postValues.get(2);
-			likes = Integer.valueOf(postValues.get(3));
-			shares = Integer.valueOf(postValues.get(4));
-			dateTime = postValues.get(5);
+			int comma = importedPost.indexOf(COMMA_DELIMITER, start);
+			int end = comma < 0 ? importedPost.length() : comma;
+
+			postValues[fields++] = importedPost.substring(start, end);
+			start = comma < 0 ? importedPost.length() : comma + 1;
+		}
+
+		try {
+			int ID = Integer.parseInt(postValues[Objects.checkIndex(0, fields)]);
+			String content = postValues[Objects.checkIndex(1, fields)];
+			String author = postValues[Objects.checkIndex(2, fields)];
+			int likes = Integer.parseInt(postValues[Objects.checkIndex(3, fields)]);
+			int shares = Integer.parseInt(postValues[Objects.checkIndex(4, fields)]);
+			String dateTime = postValues[Objects.checkIndex(5, fields)];
 			
 			return new Post(ID, content, author, likes, shares, dateTime);
-		} catch (IndexOutOfBoundsException | NumberFormatException e) {
-			throw new InvalidPostException(e.getMessage());
+		} catch (IndexOutOfBoundsException e) {
+			throw new InvalidPostException(InvalidPostException.Reason.MISSING_FIELD, e.getMessage());
+		} catch (NumberFormatException e) {
+			throw new InvalidPostException(InvalidPostException.Reason.INVALID_NUMBER, e.getMessage());
+		}
+
+	}
+
+	// Reads the quoted field starting at 'start' into postValues[field] and returns the index
+	// just after the comma that ends it, or the length of 'row' if it is the last field. Text
+	// between the closing quote and the next comma is kept rather than rejected.
+	private static int readQuoted(String row, int start, String[] postValues, int field) throws InvalidPostException {
+		StringBuilder value = new StringBuilder();
+		int from = start + 1;
+
+		while (true) {
+			int quote = row.indexOf(QUOTE, from);
+			if (quote < 0) {
+				throw new InvalidPostException("Unterminated quoted field: " + row.substring(start));
+			}
+			value.append(row, from, quote);
+			if (quote + 1 < row.length() && row.charAt(quote + 1) == QUOTE) {
+				value.append(QUOTE);
+				from = quote + 2;
+			} else {
+				from = quote + 1;
+				break;
+			}
 		}
 
+		int comma = row.indexOf(COMMA_DELIMITER, from);
+		int end = comma < 0 ? row.length() : comma;
+		value.append(row, from, end);
+		postValues[field] = value.toString();
+		return comma < 0 ? row.length() : comma + 1;
+	}
+
+	// Converts the post back to a single comma-separated string that convertFromCSV accepts.
+	// Content and author are quoted when they hold a comma, quote or line break.
+	public String convertToCSV() {
+		return this.ID + COMMA_DELIMITER + quoteCSV(this.content) + COMMA_DELIMITER + quoteCSV(this.author) + COMMA_DELIMITER
+			+ this.likes + COMMA_DELIMITER + this.shares + COMMA_DELIMITER + formatDateTime(this.dateTime);
+	}
+
+	// Returns 'field' as it should appear in a CSV row: unchanged unless it needs quoting. A
+	// null field is written empty.
+	public static String quoteCSV(String field) {
+		if (field == null) {
+			return "";
+		}
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == ',' || c == QUOTE || c == '\n' || c == '\r') {
+				return QUOTE + field.replace("\"", "\"\"") + QUOTE;
+			}
+		}
+		return field;
+	}
+
+	// Returns a copy of this post with 'delta' more likes. Posts are never changed in place, so
+	// a post already handed out or held by an index keeps its values.
+	public Post withMoreLikes(int delta) {
+		return new Post(ID, content, author, addCount(likes, delta), shares, dateTime);
+	}
+
+	// Returns a copy of this post with 'delta' more shares.
+	public Post withMoreShares(int delta) {
+		return new Post(ID, content, author, likes, addCount(shares, delta), dateTime);
+	}
+
+	// Adds 'delta' to an engagement count, which may not overflow or become negative.
+	public static int addCount(int count, int delta) {
+		int total = Math.addExact(count, delta);
+
+		if (total < 0) {
+			throw new IllegalArgumentException("Engagement count cannot be negative.");
+		}
+		return total;
+	}
+
+	// Posts are equal when every field is equal, so a post rebuilt by a storage engine equals
+	// the post that was put.
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof Post)) {
+			return false;
+		}
+		Post post = (Post) other;
+		return ID == post.ID && likes == post.likes && shares == post.shares
+			&& Objects.equals(content, post.content) && Objects.equals(author, post.author)
+			&& dateTime.equals(post.dateTime);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(ID, content, author, likes, shares, dateTime);
 	}
 
 	public int getID() {
@@ -0,0 +1,47 @@
+package smanalyzer.java.service;
+
+import java.util.BitSet;
+
+// Per-item outcome of a batch operation, kept as one bit per item rather than an exception per
+// failure. Item i of the result describes item i of the batch.
+public class BatchResult {
+
+	private final int size;
+	private final BitSet failures;
+
+	public BatchResult(int size) {
+		this.size = size;
+		this.failures = new BitSet(size);
+	}
+
+	void fail(int index) {
+		failures.set(index);
+	}
+
+	// Number of items in the batch.
+	public int size() {
+		return size;
+	}
+
+	public int getSucceeded() {
+		return size - failures.cardinality();
+	}
+
+	public int getFailed() {
+		return failures.cardinality();
+	}
+
+	public boolean isSuccess(int index) {
+		return !failures.get(index);
+	}
+
+	// Indexes of the failed items, in ascending order.
+	public int[] failedIndexes() {
+		return failures.stream().toArray();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d of %d succeeded", getSucceeded(), size);
+	}
+}
@@ -0,0 +1,326 @@
+package smanalyzer.java.service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Wraps a store to keep the answers of recent top-N queries on "likes" and "shares", for
+// callers that ask the same few queries over and over. Answers are kept least recently used
+// first, up to a total number of posts rather than a number of answers, so one large N cannot
+// fill the cache unnoticed. A write only drops the answers it could change: a new or changed
+// post that would rank inside the top N, or a removed or changed post that was in it.
+//
+// Writes must go through this store for the cached answers to stay correct. Every write takes
+// the cache's lock and checks each cached answer, so writers are serialized while the cache is
+// in place; it suits stores polled far more often than written, not heavy concurrent ingest.
+public class CachingPostStore extends ForwardingPostStore {
+
+	static final int DEFAULT_CAPACITY = 10_000;
+
+	private final int capacity;
+	// Access-ordered, so iteration starts at the least recently used answer.
+	private final LinkedHashMap<Key, Answer> answers;
+	private int cachedPosts;
+	// Changed by every write, so a reader can tell that the store changed while it worked
+	// out an answer and not cache what may already be stale.
+	private long version;
+
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder invalidations;
+	private final LongAdder evictions;
+
+	public CachingPostStore(PostStore delegate) {
+		this(delegate, DEFAULT_CAPACITY);
+	}
+
+	// Caches answers holding up to 'capacity' posts in total.
+	public CachingPostStore(PostStore delegate, int capacity) {
+		super(delegate);
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity cannot be negative.");
+		}
+		this.capacity = capacity;
+		this.answers = new LinkedHashMap<Key, Answer>(16, 0.75f, true);
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.invalidations = new LongAdder();
+		this.evictions = new LongAdder();
+	}
+
+	@Override
+	public LoadReport init(String type, File csv) throws FileNotFoundException {
+		try {
+			return delegate.init(type, csv);
+		} finally {
+			clear();
+		}
+	}
+
+	// Answers "likes" and "shares" from the cache when it can. Other queries are passed on.
+	@Override
+	public List<Post> getMulti(String query, int count) {
+		Comparator<Post> ranking = Database.ranking(query);
+		if (ranking == null || count <= 0) {
+			return delegate.getMulti(query, count);
+		}
+		Key key = new Key(query, count);
+		long seen;
+
+		synchronized (answers) {
+			Answer answer = answers.get(key);
+			if (answer != null) {
+				hits.increment();
+				return new ArrayList<Post>(answer.posts);
+			}
+			seen = version;
+		}
+		misses.increment();
+
+		List<Post> posts = delegate.getMulti(query, count);
+		synchronized (answers) {
+			if (version == seen && posts.size() <= capacity) {
+				keep(key, new Answer(ranking, count, new ArrayList<Post>(posts)));
+			}
+		}
+		return posts;
+	}
+
+	@Override
+	public void put(Post post) throws PostAlreadyExistsException {
+		delegate.put(post);
+		changed(post);
+	}
+
+	@Override
+	public boolean putIfAbsent(Post post) {
+		boolean added = delegate.putIfAbsent(post);
+		if (added) {
+			changed(post);
+		}
+		return added;
+	}
+
+	@Override
+	public BatchResult putAll(List<Post> batch) {
+		BatchResult result = delegate.putAll(batch);
+		synchronized (answers) {
+			for (int i = 0; i < batch.size(); i++) {
+				if (result.isSuccess(i)) {
+					changed(batch.get(i));
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void delete(int ID) throws PostNotExistException {
+		delegate.delete(ID);
+		removed(ID);
+	}
+
+	@Override
+	public BatchResult deleteAll(int[] IDs) {
+		BatchResult result = delegate.deleteAll(IDs);
+		synchronized (answers) {
+			for (int i = 0; i < IDs.length; i++) {
+				if (result.isSuccess(i)) {
+					removed(IDs[i]);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		int likes = delegate.incrementLikes(ID, delta);
+		incremented(ID);
+		return likes;
+	}
+
+	@Override
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		int shares = delegate.incrementShares(ID, delta);
+		incremented(ID);
+		return shares;
+	}
+
+	// Drops every cached answer.
+	public void clear() {
+		synchronized (answers) {
+			answers.clear();
+			cachedPosts = 0;
+			version++;
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	// Fraction of cacheable queries answered from the cache, or 0 before the first.
+	public double getHitRate() {
+		long hits = getHits();
+		long queries = hits + getMisses();
+		return queries == 0 ? 0 : (double) hits / queries;
+	}
+
+	// Answers dropped because a write could have changed them.
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	// Answers dropped to make room for newer ones.
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	// Number of answers cached, and the number of posts they hold between them.
+	public int getCachedAnswers() {
+		synchronized (answers) {
+			return answers.size();
+		}
+	}
+
+	public int getCachedPosts() {
+		synchronized (answers) {
+			return cachedPosts;
+		}
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	// Formats the counters on one line, e.g. "Cache: 90 hits, 10 misses (90.0% hit rate), ...".
+	public String formatCache() {
+		return String.format("Cache: %d hits, %d misses (%.1f%% hit rate), %d invalidations, %d evictions, %d of %d posts cached",
+			getHits(), getMisses(), getHitRate() * 100, getInvalidations(), getEvictions(), getCachedPosts(), capacity);
+	}
+
+	// Must hold the lock on 'answers'.
+	private void keep(Key key, Answer answer) {
+		Answer replaced = answers.put(key, answer);
+		if (replaced != null) {
+			cachedPosts -= replaced.posts.size();
+		}
+		cachedPosts += answer.posts.size();
+
+		Iterator<Answer> eldest = answers.values().iterator();
+		while (cachedPosts > capacity) {
+			cachedPosts -= eldest.next().posts.size();
+			eldest.remove();
+			evictions.increment();
+		}
+	}
+
+	// Drops the answers that 'post', new or changed, could now belong to or have moved within.
+	private void changed(Post post) {
+		synchronized (answers) {
+			Iterator<Answer> iterator = answers.values().iterator();
+			while (iterator.hasNext()) {
+				Answer answer = iterator.next();
+				if (answer.admits(post) || answer.contains(post.getID())) {
+					drop(iterator, answer);
+				}
+			}
+			version++;
+		}
+	}
+
+	// Drops the answers that the post of given ID, now gone, was part of.
+	private void removed(int ID) {
+		synchronized (answers) {
+			Iterator<Answer> iterator = answers.values().iterator();
+			while (iterator.hasNext()) {
+				Answer answer = iterator.next();
+				if (answer.contains(ID)) {
+					drop(iterator, answer);
+				}
+			}
+			version++;
+		}
+	}
+
+	private void incremented(int ID) {
+		Post post = delegate.find(ID).orElse(null);
+		if (post == null) {
+			removed(ID);
+		} else {
+			changed(post);
+		}
+	}
+
+	private void drop(Iterator<Answer> iterator, Answer answer) {
+		iterator.remove();
+		cachedPosts -= answer.posts.size();
+		invalidations.increment();
+	}
+
+	private static final class Key {
+
+		private final String query;
+		private final int count;
+
+		Key(String query, int count) {
+			this.query = query;
+			this.count = count;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return count == key.count && query.equals(key.query);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * query.hashCode() + count;
+		}
+	}
+
+	// The first 'count' posts under 'ranking', best first, as of when they were cached.
+	private static final class Answer {
+
+		private final Comparator<Post> ranking;
+		private final int count;
+		private final List<Post> posts;
+
+		Answer(Comparator<Post> ranking, int count, List<Post> posts) {
+			this.ranking = ranking;
+			this.count = count;
+			this.posts = posts;
+		}
+
+		// True if 'post' would rank inside this answer: there is room, or it beats the last post.
+		boolean admits(Post post) {
+			return posts.size() < count || ranking.compare(post, posts.get(posts.size() - 1)) < 0;
+		}
+
+		boolean contains(int ID) {
+			for (Post post : posts) {
+				if (post.getID() == ID) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
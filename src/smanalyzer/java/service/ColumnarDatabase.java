@@ -0,0 +1,512 @@
+package smanalyzer.java.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Compact storage engine with the same contract as Database. Posts are not kept as objects:
+// each field lives in a primitive column, content and author are UTF-8 bytes in a shared
+// arena, and IDs map to slots through an open-addressing table with no boxing. A Post is only
+// built when a caller asks for one, so retained heap is a few dozen bytes per post plus text.
+// The arena is a list of segments addressed by (segment, offset), so the text held is not
+// capped by the largest array Java can allocate.
+public class ColumnarDatabase implements PostStore {
+
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int NULL_STRING = -1;
+	private static final int MIN_COMPACT_BYTES = 1 << 16;
+	static final int SEGMENT_SIZE = 1 << 24;
+
+	// Slot i of every column describes the same post. Slots [0, size) are live and deleting
+	// moves the last post into the freed slot, so the columns never have holes.
+	private int[] ids;
+	private int[] likes;
+	private int[] shares;
+	private long[] epochMinutes;
+	private long[] contentAddresses;
+	private int[] contentLengths;
+	private long[] authorAddresses;
+	private int[] authorLengths;
+	private int size;
+
+	// Content and author bytes, appended in put order to the last segment, which doubles until
+	// it reaches SEGMENT_SIZE and is then followed by a new one. A text address is the segment
+	// index in the high 32 bits and the offset in the low 32. Deleted text stays as garbage
+	// until it outweighs the live text, then the arena is compacted.
+	private byte[][] segments;
+	private int segmentCount;
+	private int segmentUsed;
+	private long arenaSize;
+	private long arenaGarbage;
+
+	// Linear-probing map from ID to slot + 1; a 0 marks an empty bucket. Kept at most half full.
+	private int[] mapKeys;
+	private int[] mapSlots;
+
+	public ColumnarDatabase() {
+		this.ids = new int[INITIAL_CAPACITY];
+		this.likes = new int[INITIAL_CAPACITY];
+		this.shares = new int[INITIAL_CAPACITY];
+		this.epochMinutes = new long[INITIAL_CAPACITY];
+		this.contentAddresses = new long[INITIAL_CAPACITY];
+		this.contentLengths = new int[INITIAL_CAPACITY];
+		this.authorAddresses = new long[INITIAL_CAPACITY];
+		this.authorLengths = new int[INITIAL_CAPACITY];
+		this.segments = new byte[][] {new byte[INITIAL_CAPACITY * 64]};
+		this.segmentCount = 1;
+		this.mapKeys = new int[INITIAL_CAPACITY * 2];
+		this.mapSlots = new int[INITIAL_CAPACITY * 2];
+	}
+
+	// Retrieve 1 post of given ID from the database.
+	public Post get(int ID) throws PostNotExistException {
+		int slot = slotOf(ID);
+
+		if (slot < 0) {
+			throw new PostNotExistException(ID);
+		}
+		return view(slot);
+	}
+
+	// Adds 1 post to the database. A post is considered to already exist in the database
+	// if it has the same ID, no other parameters are checked.
+	public void put(Post post) throws PostAlreadyExistsException {
+		if (!add(post)) {
+			throw new PostAlreadyExistsException(post.getID());
+		}
+	}
+
+	// Retrieve 1 post of given ID, or an empty Optional if there is none.
+	public Optional<Post> find(int ID) {
+		int slot = slotOf(ID);
+
+		return slot < 0 ? Optional.empty() : Optional.of(view(slot));
+	}
+
+	// Adds 1 post unless the ID is taken, returning whether it was added.
+	public boolean putIfAbsent(Post post) {
+		return add(post);
+	}
+
+	// Deletes 1 post of given ID from the database.
+	public void delete(int ID) throws PostNotExistException {
+		if (!remove(ID)) {
+			throw new PostNotExistException(ID);
+		}
+	}
+
+	// Adds a batch of posts, growing the columns and ID map once for the whole batch.
+	// Duplicates are recorded in the result rather than thrown.
+	public BatchResult putAll(List<Post> batch) {
+		BatchResult result = new BatchResult(batch.size());
+		int expected = size + batch.size();
+
+		ensureCapacity(expected);
+		if (expected * 2 > mapKeys.length) {
+			rehash(Integer.highestOneBit(expected * 2 - 1) << 1);
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			if (!add(batch.get(i))) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Deletes a batch of posts. Missing IDs are recorded in the result rather than thrown.
+	public BatchResult deleteAll(int[] IDs) {
+		BatchResult result = new BatchResult(IDs.length);
+
+		for (int i = 0; i < IDs.length; i++) {
+			if (!remove(IDs[i])) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Retrieves a batch of posts, with null for each missing ID.
+	public Post[] getAll(int[] IDs) {
+		Post[] found = new Post[IDs.length];
+
+		for (int i = 0; i < IDs.length; i++) {
+			int slot = slotOf(IDs[i]);
+			found[i] = slot < 0 ? null : view(slot);
+		}
+		return found;
+	}
+
+	// Stores the post in a new slot. Returns false if the ID is already taken.
+	private boolean add(Post post) {
+		int ID = post.getID();
+
+		if (slotOf(ID) >= 0) {
+			return false;
+		}
+		ensureCapacity(size + 1);
+
+		int slot = size++;
+		ids[slot] = ID;
+		likes[slot] = post.getLikes();
+		shares[slot] = post.getShares();
+		epochMinutes[slot] = post.getDateTime().toEpochSecond(ZoneOffset.UTC) / 60;
+		append(post.getContent(), slot, contentAddresses, contentLengths);
+		append(post.getAuthor(), slot, authorAddresses, authorLengths);
+		mapPut(ID, slot);
+		return true;
+	}
+
+	// Frees the post's slot by moving the last post into it. Returns false if there was no post.
+	private boolean remove(int ID) {
+		int slot = slotOf(ID);
+
+		if (slot < 0) {
+			return false;
+		}
+		mapRemove(ID);
+		arenaGarbage += Math.max(contentLengths[slot], 0) + Math.max(authorLengths[slot], 0);
+
+		int last = --size;
+		if (slot != last) {
+			moveSlot(last, slot);
+			mapPut(ids[slot], slot);
+		}
+		if (arenaGarbage > MIN_COMPACT_BYTES && arenaGarbage > arenaSize / 2) {
+			compactArena();
+		}
+		return true;
+	}
+
+	// Records new likes in place. Rankings are selected from the columns at query time, so
+	// nothing else needs updating.
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		int slot = slotOf(ID);
+
+		if (slot < 0) {
+			throw new PostNotExistException(ID);
+		}
+		likes[slot] = Post.addCount(likes[slot], delta);
+		return likes[slot];
+	}
+
+	// Records new shares in place.
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		int slot = slotOf(ID);
+
+		if (slot < 0) {
+			throw new PostNotExistException(ID);
+		}
+		shares[slot] = Post.addCount(shares[slot], delta);
+		return shares[slot];
+	}
+
+	// getMulti returns list of size 'count' containing posts sorted by 'query'.
+	// Likes and shares are selected straight from their columns with a bounded heap of slots,
+	// so only the returned posts are ever built.
+	public List<Post> getMulti(String query, int count) {
+		int[] topSlots;
+
+		if (query.equals("likes")) {
+			topSlots = selectSlots(likes, count);
+		} else if (query.equals("shares")) {
+			topSlots = selectSlots(shares, count);
+		} else {
+			topSlots = new int[Math.max(0, Math.min(count, size))];
+			Arrays.setAll(topSlots, slot -> slot);
+		}
+
+		List<Post> topPosts = new ArrayList<Post>(topSlots.length);
+		for (int slot : topSlots) {
+			topPosts.add(view(slot));
+		}
+		return topPosts;
+	}
+
+	// getMulti for rankings without a column to select on.
+	public List<Post> getMulti(Comparator<? super Post> ranking, int count) {
+		return TopN.select(views(), ranking, count);
+	}
+
+	// Returns the size of the database.
+	public int size() {
+		return this.size;
+	}
+
+	// Streams every post in slot order, building each one as it is reached.
+	public Stream<Post> stream() {
+		return IntStream.range(0, size).mapToObj(this::view);
+	}
+
+	// Builds the Post stored in 'slot'.
+	private Post view(int slot) {
+		LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochMinutes[slot] * 60, 0, ZoneOffset.UTC);
+
+		return new Post(ids[slot], string(contentAddresses[slot], contentLengths[slot]),
+			string(authorAddresses[slot], authorLengths[slot]), likes[slot], shares[slot], dateTime);
+	}
+
+	// Iterates over every post, building each one as it is reached.
+	private Iterable<Post> views() {
+		return () -> new Iterator<Post>() {
+			private int slot = 0;
+
+			public boolean hasNext() {
+				return slot < size;
+			}
+
+			public Post next() {
+				if (slot >= size) {
+					throw new NoSuchElementException();
+				}
+				return view(slot++);
+			}
+		};
+	}
+
+	// Returns the slots of the 'count' highest values in 'column', best first. Ties are broken
+	// on ID to match the Database indexes.
+	private int[] selectSlots(int[] column, int count) {
+		int limit = Math.max(0, Math.min(count, size));
+		int[] heap = new int[limit];
+		int heapSize = 0;
+
+		// Min-heap on rank: the root is the worst of the current top slots.
+		for (int slot = 0; slot < size && limit > 0; slot++) {
+			if (heapSize < limit) {
+				heap[heapSize] = slot;
+				siftUp(heap, heapSize++, column);
+			} else if (ranksAbove(column, slot, heap[0])) {
+				heap[0] = slot;
+				siftDown(heap, heapSize, column);
+			}
+		}
+
+		int[] topSlots = new int[heapSize];
+		for (int i = heapSize - 1; i >= 0; i--) {
+			topSlots[i] = heap[0];
+			heap[0] = heap[--heapSize];
+			siftDown(heap, heapSize, column);
+		}
+		return topSlots;
+	}
+
+	private boolean ranksAbove(int[] column, int slot, int other) {
+		return column[slot] != column[other] ? column[slot] > column[other] : ids[slot] < ids[other];
+	}
+
+	private void siftUp(int[] heap, int index, int[] column) {
+		int slot = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (!ranksAbove(column, heap[parent], slot)) {
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = slot;
+	}
+
+	private void siftDown(int[] heap, int heapSize, int[] column) {
+		if (heapSize == 0) {
+			return;
+		}
+		int slot = heap[0];
+		int index = 0;
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && ranksAbove(column, heap[child], heap[child + 1])) {
+				child++;
+			}
+			if (!ranksAbove(column, slot, heap[child])) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = slot;
+	}
+
+	private void moveSlot(int from, int to) {
+		ids[to] = ids[from];
+		likes[to] = likes[from];
+		shares[to] = shares[from];
+		epochMinutes[to] = epochMinutes[from];
+		contentAddresses[to] = contentAddresses[from];
+		contentLengths[to] = contentLengths[from];
+		authorAddresses[to] = authorAddresses[from];
+		authorLengths[to] = authorLengths[from];
+	}
+
+	private void ensureCapacity(int needed) {
+		if (needed <= ids.length) {
+			return;
+		}
+		int capacity = Math.max(needed, ids.length * 2);
+		ids = Arrays.copyOf(ids, capacity);
+		likes = Arrays.copyOf(likes, capacity);
+		shares = Arrays.copyOf(shares, capacity);
+		epochMinutes = Arrays.copyOf(epochMinutes, capacity);
+		contentAddresses = Arrays.copyOf(contentAddresses, capacity);
+		contentLengths = Arrays.copyOf(contentLengths, capacity);
+		authorAddresses = Arrays.copyOf(authorAddresses, capacity);
+		authorLengths = Arrays.copyOf(authorLengths, capacity);
+	}
+
+	// Appends the UTF-8 bytes of 'value' to the arena and records their address and length in
+	// 'slot' of the given columns. A null value is recorded as length NULL_STRING.
+	private void append(String value, int slot, long[] addresses, int[] lengths) {
+		if (value == null) {
+			addresses[slot] = 0;
+			lengths[slot] = NULL_STRING;
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+		addresses[slot] = appendBytes(bytes, 0, bytes.length);
+		lengths[slot] = bytes.length;
+	}
+
+	// Copies [offset, offset + length) of 'source' to the end of the arena and returns its address.
+	// Text never straddles two segments; text longer than SEGMENT_SIZE gets a segment of its own.
+	private long appendBytes(byte[] source, int offset, int length) {
+		byte[] segment = segments[segmentCount - 1];
+
+		if (segment.length - segmentUsed < length) {
+			if ((long) segmentUsed + length <= SEGMENT_SIZE) {
+				segment = Arrays.copyOf(segment, (int) Math.min(SEGMENT_SIZE, Math.max(2L * segment.length, segmentUsed + length)));
+				segments[segmentCount - 1] = segment;
+			} else {
+				segment = new byte[Math.max(SEGMENT_SIZE, length)];
+				if (segmentCount == segments.length) {
+					segments = Arrays.copyOf(segments, segmentCount * 2);
+				}
+				segments[segmentCount++] = segment;
+				segmentUsed = 0;
+			}
+		}
+		System.arraycopy(source, offset, segment, segmentUsed, length);
+		long address = (long) (segmentCount - 1) << 32 | segmentUsed;
+		segmentUsed += length;
+		arenaSize += length;
+		return address;
+	}
+
+	private String string(long address, int length) {
+		return length == NULL_STRING ? null
+			: new String(segments[(int) (address >>> 32)], (int) address, length, StandardCharsets.UTF_8);
+	}
+
+	// Copies the live text into a fresh arena in slot order, dropping deleted text.
+	private void compactArena() {
+		byte[][] old = segments;
+		long live = arenaSize - arenaGarbage;
+
+		segments = new byte[][] {new byte[(int) Math.min(SEGMENT_SIZE, Math.max(live, INITIAL_CAPACITY) * 2)]};
+		segmentCount = 1;
+		segmentUsed = 0;
+		arenaSize = 0;
+		arenaGarbage = 0;
+		for (int slot = 0; slot < size; slot++) {
+			moveText(old, slot, contentAddresses, contentLengths);
+			moveText(old, slot, authorAddresses, authorLengths);
+		}
+	}
+
+	private void moveText(byte[][] old, int slot, long[] addresses, int[] lengths) {
+		int length = lengths[slot];
+		if (length >= 0) {
+			long address = addresses[slot];
+			addresses[slot] = appendBytes(old[(int) (address >>> 32)], (int) address, length);
+		}
+	}
+
+	// Returns the slot holding 'ID', or -1 if there is none.
+	private int slotOf(int ID) {
+		int mask = mapKeys.length - 1;
+		for (int bucket = hash(ID) & mask; ; bucket = (bucket + 1) & mask) {
+			if (mapSlots[bucket] == 0) {
+				return -1;
+			}
+			if (mapKeys[bucket] == ID) {
+				return mapSlots[bucket] - 1;
+			}
+		}
+	}
+
+	// Maps 'ID' to 'slot', replacing any existing mapping.
+	private void mapPut(int ID, int slot) {
+		if (size * 2 > mapKeys.length) {
+			rehash(mapKeys.length * 2);
+		}
+		int mask = mapKeys.length - 1;
+		int bucket = hash(ID) & mask;
+
+		while (mapSlots[bucket] != 0 && mapKeys[bucket] != ID) {
+			bucket = (bucket + 1) & mask;
+		}
+		mapKeys[bucket] = ID;
+		mapSlots[bucket] = slot + 1;
+	}
+
+	// Removes 'ID' and shifts later entries of its probe run back, so no tombstones are needed.
+	private void mapRemove(int ID) {
+		int mask = mapKeys.length - 1;
+		int gap = hash(ID) & mask;
+
+		while (mapKeys[gap] != ID || mapSlots[gap] == 0) {
+			gap = (gap + 1) & mask;
+		}
+		for (int bucket = (gap + 1) & mask; mapSlots[bucket] != 0; bucket = (bucket + 1) & mask) {
+			int home = hash(mapKeys[bucket]) & mask;
+			boolean canMove = bucket > gap ? (home <= gap || home > bucket) : (home <= gap && home > bucket);
+
+			if (canMove) {
+				mapKeys[gap] = mapKeys[bucket];
+				mapSlots[gap] = mapSlots[bucket];
+				gap = bucket;
+			}
+		}
+		mapSlots[gap] = 0;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = mapKeys;
+		int[] oldSlots = mapSlots;
+		int mask = capacity - 1;
+
+		mapKeys = new int[capacity];
+		mapSlots = new int[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldSlots[i] != 0) {
+				int bucket = hash(oldKeys[i]) & mask;
+				while (mapSlots[bucket] != 0) {
+					bucket = (bucket + 1) & mask;
+				}
+				mapKeys[bucket] = oldKeys[i];
+				mapSlots[bucket] = oldSlots[i];
+			}
+		}
+	}
+
+	// Spreads sequential IDs across the table.
+	private static int hash(int ID) {
+		int h = ID * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,328 @@
+package smanalyzer.java.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Thread-safe engine for serving lookups and rankings while other threads add, delete and
+// like posts.
+//  - Every write runs inside ConcurrentHashMap.compute for the post's ID, so inserting is an
+//    atomic insert-if-absent and writes to one ID never interleave. get never locks, and
+//    writers to different IDs only contend on their hash bin.
+//  - The rankings are skip-lists of packed (count, ID) keys rather than posts, so a like only
+//    moves one key in one index and comparisons never chase pointers.
+//  - Top-N queries never lock and never hold writers off. They read optimistically and retry
+//    if any write overlapped the read, so the result is normally a consistent snapshot. Under
+//    a write stream steady enough to defeat every attempt, the last read is kept as it is:
+//    every post in it is current, listed once and in order, but a post that a write moved
+//    past the point the read had reached may be missing.
+//  - Writes are counted on one of STRIPES counters picked by ID, not on shared ones, so
+//    writers to different posts do not contend on a counter either.
+public class ConcurrentDatabase implements PostStore {
+
+	private static final int OPTIMISTIC_ATTEMPTS = 8;
+	// Enough stripes that writers on every core rarely share one, and few enough that a
+	// reader checking them all stays cheap: 4 per core, from 4 to 64.
+	private static final int STRIPE_BITS =
+		Math.max(2, Math.min(6, 32 - Integer.numberOfLeadingZeros(Runtime.getRuntime().availableProcessors() * 4 - 1)));
+	private static final int STRIPES = 1 << STRIPE_BITS;
+	// Longs between two stripes' counters, so each stripe has a cache line of its own.
+	private static final int STRIPE_SPACING = 16;
+
+	private final ConcurrentHashMap<Integer, Post> posts;
+	private final ConcurrentSkipListSet<Long> likesIndex;
+	private final ConcurrentSkipListSet<Long> sharesIndex;
+
+	// Every write is bracketed by the counters of its ID's stripe: writes started at index
+	// stripe * STRIPE_SPACING, writes finished just after. A reader that sees every stripe
+	// with no write in flight before it starts, and no new write started by the time it
+	// finishes, read a consistent state.
+	private final AtomicLongArray writeCounts;
+
+	public ConcurrentDatabase() {
+		this.posts = new ConcurrentHashMap<Integer, Post>();
+		this.likesIndex = new ConcurrentSkipListSet<Long>();
+		this.sharesIndex = new ConcurrentSkipListSet<Long>();
+		this.writeCounts = new AtomicLongArray(STRIPES * STRIPE_SPACING);
+	}
+
+	// Retrieve 1 post of given ID from the database.
+	public Post get(int ID) throws PostNotExistException {
+		Post post = this.posts.get(ID);
+
+		if (post != null) {
+			return post;
+		}
+		throw new PostNotExistException(ID);
+	}
+
+	// Adds 1 post to the database unless a post of the same ID is already present.
+	public void put(Post post) throws PostAlreadyExistsException {
+		if (!add(post)) {
+			throw new PostAlreadyExistsException(post.getID());
+		}
+	}
+
+	// Retrieve 1 post of given ID, or an empty Optional if there is none.
+	public Optional<Post> find(int ID) {
+		return Optional.ofNullable(this.posts.get(ID));
+	}
+
+	// Adds 1 post unless the ID is taken, returning whether it was added.
+	public boolean putIfAbsent(Post post) {
+		return add(post);
+	}
+
+	// Deletes 1 post of given ID from the database.
+	public void delete(int ID) throws PostNotExistException {
+		if (!remove(ID)) {
+			throw new PostNotExistException(ID);
+		}
+	}
+
+	// Adds a batch of posts. Each insert is atomic on its own; duplicates are recorded in the
+	// result rather than thrown.
+	public BatchResult putAll(List<Post> batch) {
+		BatchResult result = new BatchResult(batch.size());
+
+		for (int i = 0; i < batch.size(); i++) {
+			if (!add(batch.get(i))) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Deletes a batch of posts. Missing IDs are recorded in the result rather than thrown.
+	public BatchResult deleteAll(int[] IDs) {
+		BatchResult result = new BatchResult(IDs.length);
+
+		for (int i = 0; i < IDs.length; i++) {
+			if (!remove(IDs[i])) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Retrieves a batch of posts, with null for each missing ID.
+	public Post[] getAll(int[] IDs) {
+		Post[] found = new Post[IDs.length];
+
+		for (int i = 0; i < IDs.length; i++) {
+			found[i] = this.posts.get(IDs[i]);
+		}
+		return found;
+	}
+
+	private boolean add(Post post) {
+		int ID = post.getID();
+		boolean[] added = new boolean[1];
+
+		int stripe = beginWrite(ID);
+		try {
+			this.posts.computeIfAbsent(ID, key -> {
+				likesIndex.add(rankKey(post.getLikes(), ID));
+				sharesIndex.add(rankKey(post.getShares(), ID));
+				added[0] = true;
+				return post;
+			});
+		} finally {
+			endWrite(stripe);
+		}
+		return added[0];
+	}
+
+	private boolean remove(int ID) {
+		boolean[] removed = new boolean[1];
+
+		int stripe = beginWrite(ID);
+		try {
+			this.posts.computeIfPresent(ID, (key, post) -> {
+				likesIndex.remove(rankKey(post.getLikes(), ID));
+				sharesIndex.remove(rankKey(post.getShares(), ID));
+				removed[0] = true;
+				return null;
+			});
+		} finally {
+			endWrite(stripe);
+		}
+		return removed[0];
+	}
+
+	// Records new likes atomically. The post is replaced with an updated copy inside compute for
+	// its ID, so increments to one post are serialized while other posts update in parallel.
+	// Only the post's key in the likes ranking moves.
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		return replace(ID, post -> post.withMoreLikes(delta), likesIndex, Post::getLikes).getLikes();
+	}
+
+	// Records new shares atomically, as incrementLikes.
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		return replace(ID, post -> post.withMoreShares(delta), sharesIndex, Post::getShares).getShares();
+	}
+
+	private Post replace(int ID, UnaryOperator<Post> update, NavigableSet<Long> index, ToIntFunction<Post> count)
+			throws PostNotExistException {
+		Post updated;
+
+		int stripe = beginWrite(ID);
+		try {
+			updated = this.posts.computeIfPresent(ID, (key, post) -> {
+				Post next = update.apply(post);
+
+				index.remove(rankKey(count.applyAsInt(post), ID));
+				index.add(rankKey(count.applyAsInt(next), ID));
+				return next;
+			});
+		} finally {
+			endWrite(stripe);
+		}
+
+		if (updated == null) {
+			throw new PostNotExistException(ID);
+		}
+		return updated;
+	}
+
+	// getMulti returns list of size 'count' containing posts sorted by 'query', taken from a
+	// consistent snapshot of the likes or shares ranking.
+	public List<Post> getMulti(String query, int count) {
+		NavigableSet<Long> index;
+
+		if (query.equals("likes")) {
+			index = likesIndex;
+		} else if (query.equals("shares")) {
+			index = sharesIndex;
+		} else {
+			return first(this.posts.values().iterator(), count);
+		}
+		ToIntFunction<Post> counted = index == likesIndex ? Post::getLikes : Post::getShares;
+		return snapshot(() -> ranked(index, counted, count));
+	}
+
+	// getMulti for rankings without an index, computed over a consistent snapshot.
+	public List<Post> getMulti(Comparator<? super Post> ranking, int count) {
+		return snapshot(() -> TopN.select(this.posts.values(), ranking, count));
+	}
+
+	// Returns the size of the database.
+	public int size() {
+		return this.posts.size();
+	}
+
+	// Streams every post in no particular order.
+	public Stream<Post> stream() {
+		return this.posts.values().stream();
+	}
+
+	// Counts a write to 'ID' as started and returns its stripe, to pass to endWrite.
+	private int beginWrite(int ID) {
+		int stripe = ((ID * 0x9E3779B9) >>> (32 - STRIPE_BITS)) * STRIPE_SPACING;
+		writeCounts.incrementAndGet(stripe);
+		return stripe;
+	}
+
+	private void endWrite(int stripe) {
+		writeCounts.incrementAndGet(stripe + 1);
+	}
+
+	// Returns the number of writes started so far if none is in flight, or -1. Counters only
+	// grow, so an unchanged total means no stripe saw a new write.
+	private long quiescentWrites() {
+		long started = 0;
+		for (int stripe = 0; stripe < STRIPES * STRIPE_SPACING; stripe += STRIPE_SPACING) {
+			long finished = writeCounts.get(stripe + 1);
+			long stripeStarted = writeCounts.get(stripe);
+			if (stripeStarted != finished) {
+				return -1;
+			}
+			started += stripeStarted;
+		}
+		return started;
+	}
+
+	private long startedWrites() {
+		long started = 0;
+		for (int stripe = 0; stripe < STRIPES * STRIPE_SPACING; stripe += STRIPE_SPACING) {
+			started += writeCounts.get(stripe);
+		}
+		return started;
+	}
+
+	// Runs 'read' until no write was in flight or started while it ran, backing off between
+	// attempts. If every attempt overlaps a write, the last result is returned as it is.
+	private List<Post> snapshot(Supplier<List<Post>> read) {
+		List<Post> result = null;
+
+		for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+			long started = quiescentWrites();
+
+			if (started >= 0 || result == null) {
+				result = read.get();
+				if (started >= 0 && startedWrites() == started) {
+					return result;
+				}
+			}
+			if (attempt < OPTIMISTIC_ATTEMPTS / 2) {
+				Thread.onSpinWait();
+			} else {
+				Thread.yield();
+			}
+		}
+		return result;
+	}
+
+	// Looks up the posts of the first 'count' keys of a ranking. A key whose post has since
+	// changed or gone is skipped, so a read that overlapped a write still lists each post once,
+	// with its current values and in order.
+	private List<Post> ranked(NavigableSet<Long> index, ToIntFunction<Post> counted, int count) {
+		List<Post> topPosts = new ArrayList<Post>(Math.max(0, Math.min(count, 1024)));
+		Iterator<Long> keys = index.iterator();
+
+		while (topPosts.size() < count && keys.hasNext()) {
+			long key = keys.next();
+			Post post = this.posts.get(idOf(key));
+			if (post != null && counted.applyAsInt(post) == countOf(key)) {
+				topPosts.add(post);
+			}
+		}
+		return topPosts;
+	}
+
+	private static List<Post> first(Iterator<Post> ranked, int count) {
+		List<Post> topPosts = new ArrayList<Post>(Math.max(0, Math.min(count, 1024)));
+		while (topPosts.size() < count && ranked.hasNext()) {
+			topPosts.add(ranked.next());
+		}
+		return topPosts;
+	}
+
+	// Packs a count and an ID into one key whose natural order is count descending, then ID
+	// ascending, matching the Database indexes. ~count reverses the order of every int,
+	// negative counts included, without the overflow of MAX_VALUE - count.
+	static long rankKey(int count, int ID) {
+		return ((long) ~count << 32) | ((ID ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+	}
+
+	static int idOf(long rankKey) {
+		return (int) rankKey ^ Integer.MIN_VALUE;
+	}
+
+	static int countOf(long rankKey) {
+		return ~(int) (rankKey >> 32);
+	}
+}
@@ -0,0 +1,488 @@
+package smanalyzer.java.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Inverted index from the words of post content to the IDs of the posts containing them.
+// Content is split into words on anything that is not a letter or digit and lower-cased, so
+// "Check out THIS film!" indexes "check", "out", "this" and "film".
+//
+// Each word's IDs are kept as a PostingList: sorted, delta-encoded and packed as variable-length
+// bytes, so a common word costs one or two bytes per post instead of a boxed Integer.
+final class ContentIndex {
+
+	private static final int DENSE_RATIO = 8;
+
+	private final HashMap<String, PostingList> postings;
+
+	ContentIndex() {
+		this.postings = new HashMap<String, PostingList>();
+	}
+
+	// Splits 'text' into its distinct lower-case words, in order of first appearance.
+	static Set<String> words(String text) {
+		Set<String> words = new LinkedHashSet<String>();
+		if (text == null) {
+			return words;
+		}
+
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	// True if 'content' contains every word of 'keywords' (or any, if not 'matchAll'). This is
+	// the brute-force check the index must agree with.
+	static boolean matches(String content, String keywords, boolean matchAll) {
+		Set<String> terms = words(keywords);
+		if (terms.isEmpty()) {
+			return false;
+		}
+		Set<String> contentWords = words(content);
+
+		for (String term : terms) {
+			boolean found = contentWords.contains(term);
+			if (found != matchAll) {
+				return found;
+			}
+		}
+		return matchAll;
+	}
+
+	void add(int ID, String content) {
+		for (String word : words(content)) {
+			postings.computeIfAbsent(word, key -> new PostingList()).add(ID);
+		}
+	}
+
+	void remove(int ID, String content) {
+		for (String word : words(content)) {
+			PostingList list = postings.get(word);
+
+			list.remove(ID);
+			if (list.isEmpty()) {
+				postings.remove(word);
+			}
+		}
+	}
+
+	// Returns the IDs of the posts containing every word of 'keywords' (or any, if not
+	// 'matchAll'), in ascending order. Intersections start from the rarest word's list, and a
+	// much longer list is probed for those IDs rather than decoded, so the work is bounded by
+	// the rarest list. Finding never changes the index.
+	int[] find(String keywords, boolean matchAll) {
+		List<PostingList> lists = new ArrayList<PostingList>();
+
+		for (String term : words(keywords)) {
+			PostingList list = postings.get(term);
+
+			if (list != null) {
+				lists.add(list);
+			} else if (matchAll) {
+				return new int[0];
+			}
+		}
+		if (lists.isEmpty()) {
+			return new int[0];
+		}
+
+		lists.sort((l1, l2) -> Integer.compare(l1.size(), l2.size()));
+		if (matchAll) {
+			return intersect(lists);
+		}
+		int[] result = lists.get(0).toArray();
+		for (int i = 1; i < lists.size(); i++) {
+			result = union(result, lists.get(i).toArray());
+		}
+		return result;
+	}
+
+	// IDs in every one of 'lists', rarest first. Each further list is decoded and merged when it
+	// is at most DENSE_RATIO times the matches so far, and probed for each match otherwise.
+	static int[] intersect(List<PostingList> lists) {
+		int[] result = lists.get(0).toArray();
+
+		for (int i = 1; i < lists.size() && result.length > 0; i++) {
+			PostingList list = lists.get(i);
+			result = list.size() / DENSE_RATIO <= result.length ? intersect(result, list.toArray()) : probe(result, list);
+		}
+		return result;
+	}
+
+	// The IDs of sorted 'IDs' that are in 'list'.
+	static int[] probe(int[] IDs, PostingList list) {
+		PostingList.Cursor cursor = list.cursor();
+		int[] result = new int[IDs.length];
+		int size = 0;
+
+		for (int ID : IDs) {
+			long key = PostingList.key(ID);
+			long found = cursor.seek(key);
+			if (found == PostingList.END) {
+				break;
+			} else if (found == key) {
+				result[size++] = ID;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	// Both arguments and the result are sorted and free of repeats.
+	static int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int size = 0;
+
+		for (int i = 0, j = 0; i < a.length && j < b.length;) {
+			if (a[i] == b[j]) {
+				result[size++] = a[i];
+				i++;
+				j++;
+			} else if (a[i] < b[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	static int[] union(int[] a, int[] b) {
+		int[] result = new int[a.length + b.length];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+
+		while (i < a.length && j < b.length) {
+			if (a[i] == b[j]) {
+				result[size++] = a[i++];
+				j++;
+			} else if (a[i] < b[j]) {
+				result[size++] = a[i++];
+			} else {
+				result[size++] = b[j++];
+			}
+		}
+		while (i < a.length) {
+			result[size++] = a[i++];
+		}
+		while (j < b.length) {
+			result[size++] = b[j++];
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	// Sorted set of post IDs, stored as variable-length gaps between consecutive IDs. The sign
+	// bit of each ID is flipped first so every gap is positive, negative IDs included.
+	//
+	// Appending an ID above the current maximum writes its gap at the end in O(1), which covers
+	// IDs arriving in order from a CSV. Other additions and all removals wait in small side
+	// buffers and are merged into the packed bytes once the buffers reach an eighth of the list,
+	// capped so the buffers stay cheap to search.
+	//
+	// Every SKIP_INTERVAL IDs the packed key and byte position are noted, so a Cursor looking
+	// for an ID can jump to the nearest note below it instead of decoding from the start.
+	// Reading through a Cursor leaves the list as it is, pending changes included.
+	static final class PostingList {
+
+		private static final int MIN_PENDING = 16;
+		private static final int MAX_PENDING = 1024;
+		private static final int SKIP_INTERVAL = 64;
+		static final long END = Long.MAX_VALUE;
+
+		private byte[] packed;
+		private int packedBytes;
+		private int packedCount;
+		private long last; // last packed key, or -1 if none
+
+		// Key of every SKIP_INTERVAL-th packed ID, and the byte position of the ID after it.
+		private long[] skipKeys;
+		private int[] skipPositions;
+		private int skipCount;
+
+		private int[] added;
+		private int addedCount;
+		private int[] removed;
+		private int removedCount;
+
+		PostingList() {
+			this.packed = new byte[4];
+			this.last = -1;
+			this.skipKeys = new long[0];
+			this.skipPositions = new int[0];
+			this.added = new int[0];
+			this.removed = new int[0];
+		}
+
+		// Adds an ID that is not in the list.
+		void add(int ID) {
+			long key = key(ID);
+
+			if (key > last && addedCount == 0 && removedCount == 0) {
+				append(key);
+				return;
+			}
+			int index = indexOf(removed, removedCount, ID);
+			if (index >= 0) {
+				removed[index] = removed[--removedCount]; // removed, then added back
+				return;
+			}
+			added = push(added, addedCount++, ID);
+			mergeIfFull();
+		}
+
+		// Removes an ID that is in the list.
+		void remove(int ID) {
+			int index = indexOf(added, addedCount, ID);
+			if (index >= 0) {
+				added[index] = added[--addedCount];
+				return;
+			}
+			removed = push(removed, removedCount++, ID);
+			mergeIfFull();
+		}
+
+		boolean isEmpty() {
+			return size() == 0;
+		}
+
+		int size() {
+			return packedCount + addedCount - removedCount;
+		}
+
+		// Returns the IDs in ascending order, pending changes included.
+		int[] toArray() {
+			if (addedCount == 0 && removedCount == 0) {
+				return unpack();
+			}
+			int[] IDs = new int[size()];
+			Cursor cursor = cursor();
+			int size = 0;
+			for (long key = cursor.seek(0); key != END; key = cursor.seek(key + 1)) {
+				IDs[size++] = ID(key);
+			}
+			return IDs;
+		}
+
+		// A reader of the IDs as they are now. The list must not change while it is in use.
+		Cursor cursor() {
+			return new Cursor();
+		}
+
+		private int[] unpack() {
+			int[] IDs = new int[packedCount];
+			long key = -1;
+			int position = 0;
+
+			for (int i = 0; i < packedCount; i++) {
+				long gap = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = packed[position++];
+					gap |= (long) (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+
+				key += gap;
+				IDs[i] = ID(key);
+			}
+			return IDs;
+		}
+
+		private void append(long key) {
+			long gap = key - last;
+
+			if (packedBytes + 5 > packed.length) {
+				packed = Arrays.copyOf(packed, Math.max(packed.length * 2, packedBytes + 5));
+			}
+			while (gap >= 0x80) {
+				packed[packedBytes++] = (byte) (gap | 0x80);
+				gap >>>= 7;
+			}
+			packed[packedBytes++] = (byte) gap;
+			packedCount++;
+			last = key;
+
+			if (packedCount % SKIP_INTERVAL == 0) {
+				if (skipCount == skipKeys.length) {
+					skipKeys = Arrays.copyOf(skipKeys, Math.max(4, skipCount * 2));
+					skipPositions = Arrays.copyOf(skipPositions, skipKeys.length);
+				}
+				skipKeys[skipCount] = key;
+				skipPositions[skipCount++] = packedBytes;
+			}
+		}
+
+		private void mergeIfFull() {
+			int limit = Math.min(MAX_PENDING, Math.max(MIN_PENDING, packedCount >> 3));
+
+			if (addedCount + removedCount >= limit) {
+				merge();
+			}
+		}
+
+		// Rewrites the packed bytes with the pending additions and removals applied.
+		private void merge() {
+			int[] additions = Arrays.copyOf(added, addedCount);
+			int[] removals = Arrays.copyOf(removed, removedCount);
+			Arrays.sort(additions);
+			Arrays.sort(removals);
+
+			int[] merged = union(unpack(), additions);
+			packed = new byte[Math.max(4, packedBytes + 5 * additions.length)];
+			packedBytes = 0;
+			packedCount = 0;
+			last = -1;
+			skipCount = 0;
+			addedCount = 0;
+			removedCount = 0;
+
+			for (int ID : merged) {
+				if (Arrays.binarySearch(removals, ID) < 0) {
+					append(key(ID));
+				}
+			}
+			if (packed.length > 2 * packedBytes + 4) {
+				packed = Arrays.copyOf(packed, packedBytes + 4);
+			}
+		}
+
+		// Unsigned key in the same order as the signed ID.
+		static long key(int ID) {
+			return (ID ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+		}
+
+		static int ID(long key) {
+			return (int) key ^ Integer.MIN_VALUE;
+		}
+
+		private static int indexOf(int[] values, int count, int ID) {
+			for (int i = 0; i < count; i++) {
+				if (values[i] == ID) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private static int[] push(int[] values, int count, int ID) {
+			if (count == values.length) {
+				values = Arrays.copyOf(values, Math.max(4, count * 2));
+			}
+			values[count] = ID;
+			return values;
+		}
+
+		private static long[] sortedKeys(int[] IDs, int count) {
+			long[] keys = new long[count];
+			for (int i = 0; i < count; i++) {
+				keys[i] = key(IDs[i]);
+			}
+			Arrays.sort(keys);
+			return keys;
+		}
+
+		// Reads the list's keys in ascending order, merging the packed keys with sorted copies of
+		// the pending additions and leaving out the pending removals. Pending additions are never
+		// packed and pending removals always are, so the two streams never hold the same key.
+		final class Cursor {
+
+			private final long[] additions;
+			private final long[] removals;
+			private int addition;
+			private int removal;
+
+			private long packedKey; // last packed key decoded, -1 before the first, END after the last
+			private int decoded;
+			private int position;
+
+			private Cursor() {
+				this.additions = sortedKeys(added, addedCount);
+				this.removals = sortedKeys(removed, removedCount);
+				this.packedKey = -1;
+			}
+
+			// Moves to the first key at or above 'target' and returns it, or END if there is none.
+			// Targets must not go down between calls.
+			long seek(long target) {
+				if (additions.length == 0 && removals.length == 0) {
+					seekPacked(target);
+					return packedKey;
+				}
+				while (true) {
+					seekPacked(target);
+					while (addition < additions.length && additions[addition] < target) {
+						addition++;
+					}
+					long key = Math.min(packedKey, addition < additions.length ? additions[addition] : END);
+					while (removal < removals.length && removals[removal] < key) {
+						removal++;
+					}
+					if (key == END || removal == removals.length || removals[removal] != key) {
+						return key;
+					}
+					target = key + 1;
+				}
+			}
+
+			private void seekPacked(long target) {
+				if (packedKey >= target) {
+					return;
+				}
+				// Targets within the current run of SKIP_INTERVAL keys are found by decoding on;
+				// further ones jump to the last note below them, found by galloping then bisecting.
+				int note = decoded / SKIP_INTERVAL;
+				if (note < skipCount && skipKeys[note] < target) {
+					int step = 1;
+					while (note + step < skipCount && skipKeys[note + step] < target) {
+						note += step;
+						step <<= 1;
+					}
+					int high = Math.min(note + step, skipCount) - 1;
+					while (note < high) {
+						int middle = (note + high + 1) >>> 1;
+						if (skipKeys[middle] < target) {
+							note = middle;
+						} else {
+							high = middle - 1;
+						}
+					}
+					packedKey = skipKeys[note];
+					decoded = (note + 1) * SKIP_INTERVAL;
+					position = skipPositions[note];
+				}
+
+				while (packedKey < target) {
+					if (decoded == packedCount) {
+						packedKey = END;
+						return;
+					}
+					long gap = 0;
+					int shift = 0;
+					byte b;
+					do {
+						b = packed[position++];
+						gap |= (long) (b & 0x7F) << shift;
+						shift += 7;
+					} while (b < 0);
+					packedKey += gap;
+					decoded++;
+				}
+			}
+		}
+	}
+}
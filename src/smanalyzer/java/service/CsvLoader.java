@@ -0,0 +1,401 @@
+package smanalyzer.java.service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Bulk CSV importer. The file is read through a FileChannel in large row-aligned chunks which
+// are parsed in parallel, then merged into the database in file order on the calling thread.
+// Rows of incorrect format are skipped and reported, as are posts that already exist.
+// Quoted fields follow RFC 4180, as in Post.convertFromCSV, so a row ends at the first line
+// break outside quotes rather than at the first line break.
+// Authors, and optionally content, are shared through a StringPool for the import, so each
+// distinct value is held once however many posts repeat it.
+public class CsvLoader {
+
+	static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+	private static final int PROBE_SIZE = 4096;
+
+	private final int threads;
+	private final int chunkSize;
+	private final boolean poolContent;
+
+	public CsvLoader() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	public CsvLoader(int threads, int chunkSize) {
+		this(threads, chunkSize, false);
+	}
+
+	// Content is only worth pooling when many posts repeat it word for word, such as reposts;
+	// otherwise pooling it costs time and a map entry per post for the length of the import.
+	public CsvLoader(int threads, int chunkSize, boolean poolContent) {
+		this.threads = Math.max(1, threads);
+		this.chunkSize = Math.max(1, chunkSize);
+		this.poolContent = poolContent;
+	}
+
+	// Imports every row after the header of 'csv' into 'db'.
+	public LoadReport load(File csv, PostStore db) throws FileNotFoundException {
+		LoadReport report = new LoadReport();
+		StringPool authors = new StringPool();
+		StringPool contents = new StringPool();
+		long start = System.nanoTime();
+
+		try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+			List<long[]> chunks = split(channel);
+			report.recordEnd(chunks.isEmpty() ? channel.size() : chunks.get(0)[0]);
+
+			if (chunks.size() <= 1 || threads == 1) {
+				long open = -1;
+				for (int i = 0; i < chunks.size(); i++) {
+					long[] chunk = chunks.get(i);
+					Chunk parsed = parse(channel, open < 0 ? chunk[0] : open, chunk[1], authors, contents, i == chunks.size() - 1);
+					merge(parsed, db, report);
+					open = parsed.openAt;
+					report.recordEnd(parsed.endAt);
+				}
+				recordStrings(report, authors, contents);
+				report.recordElapsed(System.nanoTime() - start);
+				return report;
+			}
+
+			ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks.size()), runnable -> {
+				Thread thread = new Thread(runnable, "csv-loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				List<Future<Chunk>> parsed = new ArrayList<Future<Chunk>>(chunks.size());
+				for (int i = 0; i < chunks.size(); i++) {
+					long[] chunk = chunks.get(i);
+					boolean last = i == chunks.size() - 1;
+					parsed.add(pool.submit(() -> parse(channel, chunk[0], chunk[1], authors, contents, last)));
+				}
+				// A chunk that was split inside a quoted field was parsed from the wrong place,
+				// so it is parsed again, on this thread, from the start of the split row.
+				long open = -1;
+				for (int i = 0; i < chunks.size(); i++) {
+					Chunk chunk = open < 0 ? parsed.get(i).get()
+						: parse(channel, open, chunks.get(i)[1], authors, contents, i == chunks.size() - 1);
+					merge(chunk, db, report);
+					open = chunk.openAt;
+					report.recordEnd(chunk.endAt);
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(csv.getPath());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while importing " + csv.getPath(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw new UncheckedIOException((IOException) e.getCause());
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		recordStrings(report, authors, contents);
+		report.recordElapsed(System.nanoTime() - start);
+		return report;
+	}
+
+	// Splits the file after the header line into [start, end) ranges of about chunkSize bytes,
+	// each ending just after a line terminator. A range may still end inside a quoted field
+	// that holds a line break; parse finds this and load parses that row again with the next
+	// range, so files without such fields never pay for a quote-aware pass of their own.
+	private List<long[]> split(FileChannel channel) throws IOException {
+		List<long[]> chunks = new ArrayList<long[]>();
+		long size = channel.size();
+		long start = nextLine(channel, 0, size); // skip headers
+
+		while (start < size) {
+			long end = start + chunkSize >= size ? size : nextLine(channel, start + chunkSize, size);
+			chunks.add(new long[] {start, end});
+			start = end;
+		}
+		return chunks;
+	}
+
+	// Returns the position just after the first '\n' at or after 'from', or 'size' if there is none.
+	private static long nextLine(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+
+		for (long position = from; position < size; position += probe.limit()) {
+			probe.clear();
+			if (channel.read(probe, position) <= 0) {
+				break;
+			}
+			probe.flip();
+			for (int i = 0; i < probe.limit(); i++) {
+				if (probe.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+		}
+		return size;
+	}
+
+	// Finds the line breaks that end rows, skipping those inside quoted fields. A quote only
+	// opens a quoted field at the start of a field, as in Post.convertFromCSV. Outside quotes
+	// the scan only stops at quotes and line breaks, so plain rows cost one compare per byte
+	// more than a search for '\n'.
+	static final class RowScanner {
+
+		private static final int FIELD_START = 0;
+		private static final int UNQUOTED = 1;
+		private static final int QUOTED = 2;
+		private static final int QUOTED_END = 3; // after a quote in a quoted field: closing it, or escaping the next
+
+		private int state = FIELD_START;
+		private boolean sawQuote;
+
+		// True if the bytes seen so far end inside a quoted field.
+		boolean isQuoted() {
+			return state == QUOTED;
+		}
+
+		// True if the bytes scanned by the last call to next held a quote, so parseRow need not
+		// look for one again.
+		boolean sawQuote() {
+			return sawQuote;
+		}
+
+		// Returns the index of the next row-ending '\n' in [from, to), or -1 if there is none.
+		int next(byte[] bytes, int from, int to) {
+			int i = from;
+			sawQuote = false;
+
+			while (i < to) {
+				if (state == QUOTED) {
+					while (i < to && bytes[i] != '"') {
+						i++;
+					}
+					if (i < to) {
+						state = QUOTED_END;
+						i++;
+					}
+					continue;
+				}
+				if (state == QUOTED_END) {
+					byte b = bytes[i];
+					if (b == '"') {
+						state = QUOTED;
+						i++;
+						continue;
+					}
+					state = b == ',' ? FIELD_START : UNQUOTED;
+					if (b != '\n') {
+						i++;
+					}
+					continue;
+				}
+				if (state == FIELD_START && bytes[i] == '"') {
+					state = QUOTED;
+					sawQuote = true;
+					i++;
+					continue;
+				}
+
+				// Outside quotes only a line break or a quote matters; commas matter only in
+				// deciding whether a quote opens a field, which the byte before it tells.
+				int j = i;
+				while (j < to && bytes[j] != '\n' && bytes[j] != '"') {
+					j++;
+				}
+				if (j > i) {
+					state = bytes[j - 1] == ',' ? FIELD_START : UNQUOTED;
+				}
+				if (j == to) {
+					return -1;
+				}
+				if (bytes[j] == '\n') {
+					state = FIELD_START;
+					return j;
+				}
+				state = state == FIELD_START ? QUOTED : UNQUOTED;
+				sawQuote = true;
+				i = j + 1;
+			}
+			return -1;
+		}
+	}
+
+	// Parses the rows in [start, end). Unless the range is the 'last' of the file, a final row
+	// whose quoted field is still open at 'end' is not parsed; its position is left in openAt
+	// for the next range to start from. endAt is left just past the last row-ending line break.
+	private Chunk parse(FileChannel channel, long start, long end, StringPool authorPool, StringPool contentPool,
+			boolean last) throws IOException {
+		byte[] bytes = new byte[(int) (end - start)];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, start + buffer.position()) < 0) {
+				break;
+			}
+		}
+
+		Chunk chunk = new Chunk();
+		StringPool.Local authors = authorPool.acquire();
+		StringPool.Local contents = poolContent ? contentPool.acquire() : null;
+		int[] commas = new int[Post.POST_FIELDS - 1];
+		RowScanner scanner = new RowScanner();
+		int length = buffer.position();
+		int lineStart = 0;
+		chunk.endAt = start + length;
+
+		while (lineStart < length) {
+			int lineEnd = scanner.next(bytes, lineStart, length);
+			chunk.endAt = start + (lineEnd < 0 ? lineStart : lineEnd + 1);
+			if (lineEnd < 0) {
+				if (!last && scanner.isQuoted()) {
+					chunk.openAt = start + lineStart;
+					break;
+				}
+				lineEnd = length;
+			}
+			int rowEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+
+			try {
+				chunk.posts.add(parseRow(bytes, lineStart, rowEnd, scanner.sawQuote(), commas, authors, contents));
+			} catch (InvalidPostException e) {
+				chunk.failures.add(e);
+				chunk.failedAt.add(chunk.posts.size());
+			}
+			lineStart = lineEnd + 1;
+		}
+		authorPool.release(authors);
+		if (contents != null) {
+			contentPool.release(contents);
+		}
+		return chunk;
+	}
+
+	private static void recordStrings(LoadReport report, StringPool authors, StringPool contents) {
+		report.recordStrings(authors.getRequests() + contents.getRequests(), authors.getDistinct() + contents.getDistinct());
+	}
+
+	// Tokenizes one row in place: only the comma positions are recorded, numbers are parsed
+	// straight from the bytes and strings are decoded once. Rows that fail the fast path, or
+	// hold a quote, are handed to Post.convertFromCSV so quoting is handled in one place and
+	// the reported reason is the same as a single-row import. Whether the row holds a quote,
+	// 'quoted', comes from the RowScanner that found it, so the row is not searched twice.
+	// Authors come from 'authors', and content from 'contents' unless it is null.
+	static Post parseRow(byte[] bytes, int start, int end, boolean quoted, int[] commas, StringPool.Local authors,
+			StringPool.Local contents) throws InvalidPostException {
+		int found = 0;
+		for (int i = start; i < end && found < commas.length; i++) {
+			if (bytes[i] == ',') {
+				commas[found++] = i;
+			}
+		}
+
+		if (!quoted && found == commas.length) {
+			int fieldsEnd = end;
+			for (int i = commas[found - 1] + 1; i < end; i++) {
+				if (bytes[i] == ',') {
+					fieldsEnd = i;
+					break;
+				}
+			}
+
+			long ID = parseInt(bytes, start, commas[0]);
+			long likes = parseInt(bytes, commas[2] + 1, commas[3]);
+			long shares = parseInt(bytes, commas[3] + 1, commas[4]);
+
+			if (ID != INVALID && likes != INVALID && shares != INVALID && fieldsEnd > commas[4] + 1) {
+				return new Post((int) ID,
+					contents == null ? decode(bytes, commas[0] + 1, commas[1]) : contents.get(bytes, commas[0] + 1, commas[1]),
+					authors.get(bytes, commas[1] + 1, commas[2]),
+					(int) likes, (int) shares,
+					decode(bytes, commas[4] + 1, fieldsEnd));
+			}
+		}
+		return Post.convertFromCSV(decode(bytes, start, end));
+	}
+
+	private static final long INVALID = Long.MIN_VALUE;
+
+	// Parses a base-10 int in the same form Integer.parseInt accepts, or returns INVALID.
+	static long parseInt(byte[] bytes, int start, int end) {
+		if (start >= end) {
+			return INVALID;
+		}
+
+		boolean negative = bytes[start] == '-';
+		int i = (negative || bytes[start] == '+') ? start + 1 : start;
+		if (i == end || end - i > 10) {
+			return INVALID;
+		}
+
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID;
+			}
+			value = value * 10 + digit;
+		}
+		value = negative ? -value : value;
+
+		return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? INVALID : value;
+	}
+
+	private static String decode(byte[] bytes, int start, int end) {
+		return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	// Adds a parsed chunk to the database as one batch, reporting failures in the order they
+	// occurred in the file.
+	private static void merge(Chunk chunk, PostStore db, LoadReport report) {
+		BatchResult result = db.putAll(chunk.posts);
+		int failure = 0;
+
+		for (int i = 0; i <= chunk.posts.size(); i++) {
+			while (failure < chunk.failures.size() && chunk.failedAt.get(failure) == i) {
+				InvalidPostException invalid = chunk.failures.get(failure++);
+				System.out.printf("Failed to import post: %s\n", invalid.getMessage());
+				report.recordInvalid(invalid.getReason());
+			}
+			if (i == chunk.posts.size()) {
+				break;
+			}
+
+			if (result.isSuccess(i)) {
+				report.recordImported();
+			} else {
+				System.out.printf("Failed to import post: %s\n", PostAlreadyExistsException.message(chunk.posts.get(i).getID()));
+				report.recordDuplicate();
+			}
+		}
+	}
+
+	// Posts parsed from one chunk, with each failure recorded against the number of posts
+	// parsed before it.
+	private static class Chunk {
+		final List<Post> posts = new ArrayList<Post>();
+		final List<InvalidPostException> failures = new ArrayList<InvalidPostException>(0);
+		final List<Integer> failedAt = new ArrayList<Integer>(0);
+		long openAt = -1;
+		long endAt;
+	}
+}
@@ -0,0 +1,336 @@
+package smanalyzer.java.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.model.Post;
+
+// Follows a CSV file that another program keeps appending rows to, and puts the new rows into
+// a store as they arrive. The tailer keeps the byte offset just past the last whole row it
+// read, so each poll reads only what was appended since. A row counts as whole once the line
+// break ending it is written, outside quotes as in CsvLoader; a row still being written is
+// left for a later poll. Rows are put with putAll in batches of up to batchSize.
+//
+// Once started, the tailer polls on its own thread whenever the file system reports a change
+// in the file's directory, and at least every interval, so a row is queryable within about
+// one interval of being written even where change notices are slow or missing. The store
+// must be safe to use from more than one thread, such as ConcurrentDatabase.
+// A file that is replaced, as when a log is rotated, or that shrinks, as when truncated, is
+// read again from the start; posts already in the store are then counted as duplicates. A
+// replacement is told apart by its file key (the inode on Unix), so a new file larger than
+// the old one is not read from the old offset. Where the file system has no file keys, only
+// a file that shrinks is noticed.
+public class CsvTailer implements Closeable {
+
+	public static final long DEFAULT_INTERVAL_MILLIS = 250;
+	static final int DEFAULT_BATCH_SIZE = 10_000;
+	static final int READ_SIZE = 1 << 20;
+
+	private final File csv;
+	private final PostStore db;
+	private final long intervalMillis;
+	private final int batchSize;
+	private final LoadReport report;
+	private long offset;
+	private Object fileKey; // of the file 'offset' is in, or null if not known yet
+	private long busyNanos;
+
+	private final Object signal;
+	private volatile boolean closed;
+	private WatchService watcher;
+	private Thread thread;
+
+	// Follows 'csv' into 'db' from 'offset', such as LoadReport.getEndOffset of the import that
+	// loaded it. The offset is taken to be in the file there now. Offset 0 reads the whole file,
+	// skipping its header.
+	public CsvTailer(File csv, PostStore db, long offset) {
+		this(csv, db, offset, DEFAULT_INTERVAL_MILLIS, DEFAULT_BATCH_SIZE);
+	}
+
+	public CsvTailer(File csv, PostStore db, long offset, long intervalMillis, int batchSize) {
+		if (offset < 0) {
+			throw new IllegalArgumentException("Offset cannot be negative.");
+		}
+		this.csv = csv;
+		this.db = db;
+		this.offset = offset;
+		this.intervalMillis = Math.max(1, intervalMillis);
+		this.batchSize = Math.max(1, batchSize);
+		this.report = new LoadReport();
+		this.signal = new Object();
+		try {
+			this.fileKey = fileKey(csv.toPath());
+		} catch (IOException e) {
+			this.fileKey = null; // missing for now; the first file polled is taken as the one meant
+		}
+	}
+
+	// Reads the whole rows appended since the last poll and puts them into the store. Returns
+	// the number of rows read, valid or not. A missing file reads as empty, as it may be being
+	// replaced.
+	public synchronized int poll() throws IOException {
+		long start = System.nanoTime();
+		Batch batch = null;
+
+		Path path = csv.toPath();
+		try {
+			Object key = fileKey(path);
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				if (!Objects.equals(key, fileKey(path))) {
+					return 0; // replaced while being opened; the next poll reads the new file
+				}
+				long size = channel.size();
+				if ((fileKey != null && !fileKey.equals(key)) || size < offset) {
+					offset = 0;
+				}
+				fileKey = key;
+				int readSize = READ_SIZE;
+
+				while (offset < size) {
+					int length = (int) Math.min(size - offset, readSize);
+					byte[] bytes = read(channel, offset, length);
+					if (batch == null) {
+						batch = new Batch();
+					}
+					int used = offset == 0 ? skipHeader(bytes) : parse(bytes, batch);
+					if (used == 0) {
+						// No whole row yet: either the last row is still being written, or one
+						// row is longer than the read.
+						if (length == size - offset) {
+							break;
+						}
+						readSize = (int) Math.min(Integer.MAX_VALUE - 8, 2L * readSize);
+					}
+					offset += used;
+				}
+			}
+		} catch (NoSuchFileException e) {
+			return 0;
+		} finally {
+			if (batch != null) {
+				batch.close();
+				busyNanos += System.nanoTime() - start;
+				report.recordElapsed(busyNanos);
+			}
+		}
+		return batch == null ? 0 : batch.rows;
+	}
+
+	// Starts following on a thread of its own, until closed.
+	public synchronized void start() {
+		if (thread != null) {
+			throw new IllegalStateException("Already started.");
+		}
+		try {
+			watcher = FileSystems.getDefault().newWatchService();
+			directory().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException | UnsupportedOperationException e) {
+			closeWatcher(); // polling every interval still finds every row
+		}
+		thread = new Thread(this::follow, "csv-tailer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// Stops following, waiting for a poll in progress to finish so no batch is half applied.
+	@Override
+	public void close() {
+		closed = true;
+		Thread following;
+		synchronized (signal) {
+			closeWatcher();
+			signal.notifyAll();
+		}
+		synchronized (this) {
+			following = thread;
+		}
+		if (following == null) {
+			return;
+		}
+		boolean interrupted = false;
+		while (following.isAlive()) {
+			try {
+				following.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Byte offset just past the last whole row read.
+	public synchronized long getOffset() {
+		return offset;
+	}
+
+	// Rows read so far and what became of them. Elapsed time is the time spent reading and
+	// putting rows, not the time spent waiting for them.
+	public synchronized LoadReport getReport() {
+		return report;
+	}
+
+	private void follow() {
+		String failure = null;
+
+		while (!closed) {
+			try {
+				poll();
+				failure = null;
+			} catch (IOException e) {
+				// Reported once until a poll succeeds again, as the next poll usually fails the same way.
+				if (!e.toString().equals(failure)) {
+					System.out.printf("Could not read %s: %s\n", csv, e.getMessage());
+				}
+				failure = e.toString();
+			}
+			await();
+		}
+	}
+
+	// Waits for a change notice or the interval, whichever comes first.
+	private void await() {
+		WatchService current;
+		synchronized (signal) {
+			current = watcher;
+			if (current == null) {
+				try {
+					if (!closed) {
+						signal.wait(intervalMillis);
+					}
+				} catch (InterruptedException e) {
+					closed = true;
+				}
+				return;
+			}
+		}
+		try {
+			WatchKey key = current.poll(intervalMillis, TimeUnit.MILLISECONDS);
+			if (key != null) {
+				key.pollEvents();
+				key.reset();
+			}
+		} catch (ClosedWatchServiceException e) {
+			closeWatcher(); // by close, or by a failure; either way, wait out the interval from now on
+		} catch (InterruptedException e) {
+			closed = true;
+		}
+	}
+
+	private void closeWatcher() {
+		synchronized (signal) {
+			if (watcher != null) {
+				try {
+					watcher.close();
+				} catch (IOException e) {
+					// nothing to release that closing again would
+				}
+				watcher = null;
+			}
+		}
+	}
+
+	private Path directory() {
+		Path parent = csv.getAbsoluteFile().toPath().getParent();
+		return parent == null ? csv.getAbsoluteFile().toPath() : parent;
+	}
+
+	// Identifies the file at 'path' apart from its name, or null if the file system cannot.
+	private static Object fileKey(Path path) throws IOException {
+		return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+	}
+
+	private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break;
+			}
+		}
+		return buffer.position() == length ? bytes : Arrays.copyOf(bytes, buffer.position());
+	}
+
+	// Returns the length of the header line, or 0 if it is not whole yet.
+	private static int skipHeader(byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			if (bytes[i] == '\n') {
+				return i + 1;
+			}
+		}
+		return 0;
+	}
+
+	// Adds the whole rows at the start of 'bytes' to 'batch' and returns their length.
+	private int parse(byte[] bytes, Batch batch) {
+		CsvLoader.RowScanner scanner = new CsvLoader.RowScanner();
+		int lineStart = 0;
+
+		while (lineStart < bytes.length) {
+			int lineEnd = scanner.next(bytes, lineStart, bytes.length);
+			if (lineEnd < 0) {
+				break;
+			}
+			int rowEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+			batch.add(bytes, lineStart, rowEnd, scanner.sawQuote());
+			lineStart = lineEnd + 1;
+		}
+		return lineStart;
+	}
+
+	// Rows parsed in one poll, put into the store every batchSize posts. Authors are shared
+	// within the poll only, so the pool does not outlive the rows that filled it.
+	private final class Batch {
+
+		private final StringPool pool = new StringPool();
+		private final StringPool.Local authors = pool.acquire();
+		private final int[] commas = new int[Post.POST_FIELDS - 1];
+		private final List<Post> posts = new ArrayList<Post>();
+		private int rows;
+
+		void add(byte[] bytes, int start, int end, boolean quoted) {
+			rows++;
+			try {
+				posts.add(CsvLoader.parseRow(bytes, start, end, quoted, commas, authors, null));
+			} catch (InvalidPostException e) {
+				report.recordInvalid(e.getReason());
+			}
+			if (posts.size() == batchSize) {
+				flush();
+			}
+		}
+
+		void flush() {
+			if (!posts.isEmpty()) {
+				report.recordBatch(db.putAll(posts));
+				posts.clear();
+			}
+		}
+
+		void close() {
+			flush();
+			pool.release(authors);
+		}
+	}
+}
@@ -1,37 +1,63 @@
 package smanalyzer.java.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Scanner;
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.util.stream.Stream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
 import java.util.Comparator;
 
 import smanalyzer.java.exception.*;
+import smanalyzer.java.model.AuthorStats;
+import smanalyzer.java.model.EngagementStats;
 import smanalyzer.java.model.Post;
 
-public class Database {
+public class Database implements PostStore {
+
+	private static final float LOAD_FACTOR = 0.75f;
 
 	private HashMap<Integer, Post> posts;
 
+	// Table size of 'posts', tracked so putAll knows when growing it once up front saves resizes.
+	private int capacity;
+
+	// Secondary indexes kept in ranking order so top-N queries only walk the first N entries
+	// instead of copying and sorting the whole collection. Updated by put and delete.
+	private TreeSet<Post> likesIndex;
+	private TreeSet<Post> sharesIndex;
+
+	// Posts in date-time order, so a date range is a contiguous sub-set found in O(log n).
+	private TreeSet<Post> dateTimeIndex;
+
+	// Per-author index holding each author's posts and running totals, updated in O(1) per
+	// change. Authors are dropped once their last post is deleted.
+	private HashMap<String, Author> authors;
+
+	// Words of each post's content, for keyword search.
+	private ContentIndex contentIndex;
+
+	// Running engagement statistics over every post, so reading them costs O(1).
+	private EngagementAggregator engagement;
+
 	// By default, the database will be initialised to empty. Use init to either read from a CSV
 	// or generate the hard-coded database.
 	public Database() {
-		this.posts = new HashMap<Integer, Post>();
+		this.capacity = 16;
+		this.posts = new HashMap<Integer, Post>(capacity, LOAD_FACTOR);
+		this.likesIndex = new TreeSet<Post>(Database.SORT_ON_LIKES);
+		this.sharesIndex = new TreeSet<Post>(Database.SORT_ON_SHARES);
+		this.dateTimeIndex = new TreeSet<Post>(Database.SORT_ON_DATE_TIME);
+		this.authors = new HashMap<String, Author>();
+		this.contentIndex = new ContentIndex();
+		this.engagement = new EngagementAggregator();
 	}
 
-	// Intialise the database to either a CSV or the hard-coded default.
-	// CSV must be named "posts.csv"
-	public void init(String type, File csv) throws FileNotFoundException{
-		if (type == "csv") {
-			readCSV(csv);
-		} else if (type == "default") {
-			generateDB();
-		}
-	}
-	
 	// Retrieve 1 post of given ID from the database.
 	public Post get(int ID) throws PostNotExistException{
 		Post post = this.posts.get(ID);
@@ -45,85 +71,350 @@ public class Database {
 	// Adds 1 post to the database. A post is considered to already exist in the database
 	// if it has the same ID, no other parameters are checked.
 	public void put(Post post) throws PostAlreadyExistsException {
-		int ID = post.getID();
-
-		if(this.posts.get(ID) == null) {
-			posts.put(ID, post);
-		} else {
-			throw new PostAlreadyExistsException(ID);
+		if (!add(post)) {
+			throw new PostAlreadyExistsException(post.getID());
 		}
 	}
 
+	// Retrieve 1 post of given ID, or an empty Optional if there is none.
+	public Optional<Post> find(int ID) {
+		return Optional.ofNullable(this.posts.get(ID));
+	}
+
+	// Adds 1 post unless the ID is taken, returning whether it was added.
+	public boolean putIfAbsent(Post post) {
+		return add(post);
+	}
+
 	// Deletes 1 post of given ID from the database.
 	public void delete(int ID) throws PostNotExistException {
-		if (this.posts.remove(ID) == null) {
+		if (remove(ID) == null) {
 			throw new PostNotExistException(ID);
-		};
+		}
 	}
-	
+
+	// Adds a batch of posts, growing the map once for the whole batch up front. Duplicates are
+	// recorded in the result rather than thrown.
+	public BatchResult putAll(List<Post> batch) {
+		BatchResult result = new BatchResult(batch.size());
+
+		ensureCapacity(this.posts.size() + batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			if (!add(batch.get(i))) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Deletes a batch of posts. Missing IDs are recorded in the result rather than thrown.
+	public BatchResult deleteAll(int[] IDs) {
+		BatchResult result = new BatchResult(IDs.length);
+
+		for (int i = 0; i < IDs.length; i++) {
+			if (remove(IDs[i]) == null) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Retrieves a batch of posts, with null for each missing ID.
+	public Post[] getAll(int[] IDs) {
+		Post[] found = new Post[IDs.length];
+
+		for (int i = 0; i < IDs.length; i++) {
+			found[i] = this.posts.get(IDs[i]);
+		}
+		return found;
+	}
+
+	// Adds the post and its index entries. Returns false if the ID is already taken.
+	private boolean add(Post post) {
+		if (this.posts.putIfAbsent(post.getID(), post) != null) {
+			return false;
+		}
+		likesIndex.add(post);
+		sharesIndex.add(post);
+		dateTimeIndex.add(post);
+		addToAuthor(post);
+		contentIndex.add(post.getID(), post.getContent());
+		engagement.add(post);
+		if (this.posts.size() > capacity * LOAD_FACTOR) {
+			capacity *= 2; // HashMap has doubled its table too
+		}
+		return true;
+	}
+
+	// Removes the post and its index entries. Returns the removed post, or null if there was none.
+	private Post remove(int ID) {
+		Post post = this.posts.remove(ID);
+
+		if (post != null) {
+			likesIndex.remove(post);
+			sharesIndex.remove(post);
+			dateTimeIndex.remove(post);
+			removeFromAuthor(post);
+			contentIndex.remove(post.getID(), post.getContent());
+			engagement.remove(post);
+		}
+		return post;
+	}
+
+	// Rebuilds the map with room for 'expected' posts if it would otherwise resize several
+	// times while they are added.
+	private void ensureCapacity(int expected) {
+		if (expected <= capacity * LOAD_FACTOR) {
+			return;
+		}
+		while (expected > capacity * LOAD_FACTOR) {
+			capacity *= 2;
+		}
+		HashMap<Integer, Post> resized = new HashMap<Integer, Post>(capacity, LOAD_FACTOR);
+		resized.putAll(this.posts);
+		this.posts = resized;
+	}
+
+	// Records new likes by replacing the post with an updated copy and moving it within the
+	// likes index, which costs O(log n) rather than a re-sort.
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		Post updated = this.get(ID).withMoreLikes(delta);
+
+		replace(updated);
+		return updated.getLikes();
+	}
+
+	// Records new shares, as incrementLikes.
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		Post updated = this.get(ID).withMoreShares(delta);
+
+		replace(updated);
+		return updated.getShares();
+	}
+
+	private void replace(Post updated) {
+		Post current = posts.put(updated.getID(), updated);
+
+		likesIndex.remove(current);
+		sharesIndex.remove(current);
+		dateTimeIndex.remove(current);
+		likesIndex.add(updated);
+		sharesIndex.add(updated);
+		dateTimeIndex.add(updated);
+
+		Author author = authors.get(updated.getAuthor());
+		author.posts.put(updated.getID(), updated);
+		author.stats = author.stats.minus(current).plus(updated);
+		engagement.remove(current);
+		engagement.add(updated);
+	}
+
+	// The posts and totals of one author.
+	private static class Author {
+		final LinkedHashMap<Integer, Post> posts;
+		AuthorStats stats;
+
+		Author(String name) {
+			this.posts = new LinkedHashMap<Integer, Post>();
+			this.stats = AuthorStats.none(name);
+		}
+	}
+
+	private void addToAuthor(Post post) {
+		Author author = authors.get(post.getAuthor());
+
+		if (author == null) {
+			author = new Author(post.getAuthor());
+			authors.put(post.getAuthor(), author);
+		}
+		author.posts.put(post.getID(), post);
+		author.stats = author.stats.plus(post);
+	}
+
+	private void removeFromAuthor(Post post) {
+		Author author = authors.get(post.getAuthor());
+
+		author.posts.remove(post.getID());
+		if (author.posts.isEmpty()) {
+			authors.remove(post.getAuthor());
+		} else {
+			author.stats = author.stats.minus(post);
+		}
+	}
+
 	// getMulti returns list of size 'count' containing posts sorted by 'query'. 
 	// 'Query' sorts list in descending order on number of likes or shares, and is null-safe.
+	// Likes and shares are read straight off their index, costing O(count + log n).
 	public List<Post> getMulti(String query, int count) {
-		List<Post> sortedPosts = new ArrayList<Post>(this.posts.values());
-		
+		Iterator<Post> ranked;
+
 		if(query.equals("likes")) {
-			Collections.sort(sortedPosts, Database.SORT_ON_LIKES);
-		}
-		if(query.equals("shares")) {
-			Collections.sort(sortedPosts, Database.SORT_ON_SHARES);
+			ranked = likesIndex.iterator();
+		} else if(query.equals("shares")) {
+			ranked = sharesIndex.iterator();
+		} else {
+			ranked = posts.values().iterator();
 		}
-		
-		try {
-			return sortedPosts.subList(0, count);
-		} catch (IndexOutOfBoundsException e) {
-			return sortedPosts.subList(0, sortedPosts.size());
+
+		List<Post> topPosts = new ArrayList<Post>(Math.max(0, Math.min(count, this.posts.size())));
+		while (topPosts.size() < count && ranked.hasNext()) {
+			topPosts.add(ranked.next());
 		}
+		return topPosts;
 	}
 
-	// Returns the size of the database.
-	public int size() {
-		return this.posts.size();
+	// getMulti for rankings without a dedicated index, such as date-time or engagement ratio.
+	// Posts are ordered by 'ranking' using a bounded heap of size 'count'.
+	public List<Post> getMulti(Comparator<? super Post> ranking, int count) {
+		return TopN.select(this.posts.values(), ranking, count);
 	}
-	
-	// Reads the file named "posts.csv". Individual posts will be skipped if they are of incorrect format.
-	// Program will exit if the file is not found
-	private void readCSV(File csv) throws FileNotFoundException {
-		Scanner scanner = new Scanner(csv);
-		scanner.nextLine(); // skip headers
-		while (scanner.hasNextLine()) {
-			try {
-				Post nextPost = Post.convertFromCSV(scanner.nextLine());
-				this.put(nextPost);
-			} catch (InvalidPostException | PostAlreadyExistsException e) {
-				System.out.printf("Failed to import post: %s\n", e.getMessage());
+
+	// Returns every post dated in [from, to), oldest first, read off the date-time index in
+	// O(log n + matches).
+	public List<Post> getBetween(LocalDateTime from, LocalDateTime to) {
+		return new ArrayList<Post>(range(from, to));
+	}
+
+	// getMulti restricted to the posts dated in [from, to). Only the matching posts are ranked,
+	// using a bounded heap of size 'count'.
+	public List<Post> getMultiBetween(String query, LocalDateTime from, LocalDateTime to, int count) {
+		Comparator<Post> ranking = ranking(query);
+		NavigableSet<Post> matching = range(from, to);
+
+		if (ranking == null) {
+			List<Post> oldest = new ArrayList<Post>(Math.max(0, Math.min(count, matching.size())));
+			Iterator<Post> ranked = matching.iterator();
+			while (oldest.size() < count && ranked.hasNext()) {
+				oldest.add(ranked.next());
 			}
+			return oldest;
 		}
-		scanner.close();
+		return TopN.select(matching, ranking, count);
 	}
-	
-	// Generate default database
-	private void generateDB() {
-		try {
-			posts.put(20582, new Post(20582, "Come and meet us at Building 14 of RMIT.", "SD2C45", 10, 24, "12/05/2023 10:10"));
-			posts.put(10, new Post(10, "Check out this epic film.", "A567VF", 1000, 1587, "01/06/2023 02:20"));
-			posts.put(37221, new Post(37221, "Are we into Christmas month already?!", "3827F2", 526, 25, "15/11/2022 11:30"));
-			posts.put(382, new Post(382, "What a miracle!", "38726I", 2775, 13589, "12/02/2023 06:18"));
-			posts.put(36778, new Post(36778, "Fantastic day today. Congratulations to all winners.", "1258XE", 230, 1214, "06/06/2023 09:00"));
-		} catch (InvalidPostException e) {
-			System.out.printf("Failed to generate default database, %s\n", e.getMessage());
-			System.exit(1);
+
+	// The posts dated in [from, to) as a view of the date-time index.
+	private NavigableSet<Post> range(LocalDateTime from, LocalDateTime to) {
+		if (!from.isBefore(to)) {
+			return Collections.emptyNavigableSet();
 		}
+		return dateTimeIndex.subSet(firstAt(from), true, firstAt(to), false);
+	}
+
+	// A search key that sorts before every post dated 'dateTime'. It is never stored.
+	private static Post firstAt(LocalDateTime dateTime) {
+		return new Post(Integer.MIN_VALUE, null, null, 0, 0, dateTime);
+	}
+
+	// Keyword search answered from the content index. Only the posts matching the keywords are
+	// looked up and ranked, using a bounded heap of size 'count'.
+	public List<Post> search(String keywords, boolean matchAll, String query, int count) {
+		int[] IDs = contentIndex.find(keywords, matchAll);
+		Comparator<Post> ranking = ranking(query);
+		List<Post> matching = new ArrayList<Post>(ranking == null ? Math.max(0, Math.min(count, IDs.length)) : IDs.length);
+
+		for (int i = 0; i < IDs.length && (ranking != null || matching.size() < count); i++) {
+			matching.add(this.posts.get(IDs[i]));
+		}
+		return ranking == null ? matching : TopN.select(matching, ranking, count);
+	}
+
+	// Returns every post by 'author' in the order they were added, read off the author index.
+	public List<Post> getByAuthor(String author) {
+		Author found = authors.get(author);
+
+		return found == null ? new ArrayList<Post>(0) : new ArrayList<Post>(found.posts.values());
 	}
 
-	private static Comparator<Post> SORT_ON_LIKES = new Comparator<Post>() {
+	// Returns the totals of 'author' in O(1).
+	public AuthorStats getAuthorStats(String author) {
+		Author found = authors.get(author);
+
+		return found == null ? AuthorStats.none(author) : found.stats;
+	}
+
+	// Returns 'count' authors sorted on total "likes", total "shares" or number of "posts".
+	// The totals are already summed, so this is a bounded-heap pass over the authors rather
+	// than the posts. Authors are not kept in ranked order because that would put two more
+	// tree updates on every put, delete and increment.
+	public List<AuthorStats> getTopAuthors(String query, int count) {
+		Comparator<AuthorStats> ranking = authorRanking(query);
+
+		return TopN.select(() -> authors.values().stream().map(author -> author.stats).iterator(), ranking, count);
+	}
+
+	// Returns the engagement statistics kept up to date by every change, in O(1).
+	public EngagementStats getEngagementStats() {
+		return engagement.snapshot();
+	}
+
+	// Returns the size of the database.
+	public int size() {
+		return this.posts.size();
+	}
+
+	// Streams every post in no particular order.
+	public Stream<Post> stream() {
+		return this.posts.values().stream();
+	}
+	
+	// Ties are broken on ID so that distinct posts with equal counts can share an index.
+	static final Comparator<Post> SORT_ON_LIKES = new Comparator<Post>() {
 		public int compare(Post p1, Post p2) {
-			return p2.getLikes() - p1.getLikes();
+			int order = Integer.compare(p2.getLikes(), p1.getLikes());
+			return order != 0 ? order : Integer.compare(p1.getID(), p2.getID());
 		}
 	};
 	
-	private static Comparator<Post> SORT_ON_SHARES = new Comparator<Post>() {
+	static final Comparator<Post> SORT_ON_SHARES = new Comparator<Post>() {
 		public int compare(Post p1, Post p2) {
-			return p2.getShares() - p1.getShares();
+			int order = Integer.compare(p2.getShares(), p1.getShares());
+			return order != 0 ? order : Integer.compare(p1.getID(), p2.getID());
 		}
 	};
+
+	// Oldest first, unlike the rankings above.
+	static final Comparator<Post> SORT_ON_DATE_TIME = new Comparator<Post>() {
+		public int compare(Post p1, Post p2) {
+			int order = p1.getDateTime().compareTo(p2.getDateTime());
+			return order != 0 ? order : Integer.compare(p1.getID(), p2.getID());
+		}
+	};
+
+	// Author rankings, best first. Ties are broken on author, with the null author first.
+	static final Comparator<AuthorStats> SORT_AUTHORS_ON_LIKES =
+		Comparator.comparingLong(AuthorStats::getTotalLikes).reversed().thenComparing(Database::compareAuthors);
+
+	static final Comparator<AuthorStats> SORT_AUTHORS_ON_SHARES =
+		Comparator.comparingLong(AuthorStats::getTotalShares).reversed().thenComparing(Database::compareAuthors);
+
+	static final Comparator<AuthorStats> SORT_AUTHORS_ON_POSTS =
+		Comparator.comparingInt(AuthorStats::getPosts).reversed().thenComparing(Database::compareAuthors);
+
+	private static final Comparator<String> AUTHOR_ORDER = Comparator.nullsFirst(Comparator.<String>naturalOrder());
+
+	private static int compareAuthors(AuthorStats a1, AuthorStats a2) {
+		return AUTHOR_ORDER.compare(a1.getAuthor(), a2.getAuthor());
+	}
+
+	// The author ranking named by a getTopAuthors query: "likes", "shares" or "posts".
+	static Comparator<AuthorStats> authorRanking(String query) {
+		if (query.equals("likes")) {
+			return SORT_AUTHORS_ON_LIKES;
+		} else if (query.equals("shares")) {
+			return SORT_AUTHORS_ON_SHARES;
+		} else if (query.equals("posts")) {
+			return SORT_AUTHORS_ON_POSTS;
+		}
+		throw new IllegalArgumentException("Unknown author ranking: " + query);
+	}
+
+	// The ranking named by a getMulti query, or null if the query names none.
+	static Comparator<Post> ranking(String query) {
+		if (query.equals("likes")) {
+			return SORT_ON_LIKES;
+		} else if (query.equals("shares")) {
+			return SORT_ON_SHARES;
+		}
+		return null;
+	}
 }
@@ -0,0 +1,28 @@
+package smanalyzer.java.service;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// The hard-coded collection used when the program is not started from a CSV.
+final class DefaultPosts {
+
+	private DefaultPosts() {
+	}
+
+	// Generate default database
+	static LoadReport generate(PostStore store) {
+		LoadReport report = new LoadReport();
+		try {
+			store.put(new Post(20582, "Come and meet us at Building 14 of RMIT.", "SD2C45", 10, 24, "12/05/2023 10:10"));
+			store.put(new Post(10, "Check out this epic film.", "A567VF", 1000, 1587, "01/06/2023 02:20"));
+			store.put(new Post(37221, "Are we into Christmas month already?!", "3827F2", 526, 25, "15/11/2022 11:30"));
+			store.put(new Post(382, "What a miracle!", "38726I", 2775, 13589, "12/02/2023 06:18"));
+			store.put(new Post(36778, "Fantastic day today. Congratulations to all winners.", "1258XE", 230, 1214, "06/06/2023 09:00"));
+		} catch (InvalidPostException | PostAlreadyExistsException e) {
+			System.out.printf("Failed to generate default database, %s\n", e.getMessage());
+			System.exit(1);
+		}
+		report.recordImported(store.size());
+		return report;
+	}
+}
@@ -0,0 +1,206 @@
+package smanalyzer.java.service;
+
+import smanalyzer.java.model.EngagementStats;
+import smanalyzer.java.model.Post;
+
+// Running engagement statistics, updated in O(1) as posts are added and removed so they never
+// need a pass over the store. Memory is fixed whatever the number of posts: two histograms of
+// 1664 buckets and 31 counters. Two aggregators over disjoint posts can be merged, so a scan
+// can be split and its partial results combined.
+final class EngagementAggregator {
+
+	private final Moments likes;
+	private final Moments shares;
+	private final LogHistogram likesHistogram;
+	private final LogHistogram sharesHistogram;
+	private final int[] postsPerHour;
+	private final int[] postsPerDay;
+	private int posts;
+
+	// Statistics as of the last change, built on first read.
+	private EngagementStats snapshot;
+
+	EngagementAggregator() {
+		this.likes = new Moments();
+		this.shares = new Moments();
+		this.likesHistogram = new LogHistogram();
+		this.sharesHistogram = new LogHistogram();
+		this.postsPerHour = new int[24];
+		this.postsPerDay = new int[7];
+	}
+
+	void add(Post post) {
+		likes.add(post.getLikes());
+		shares.add(post.getShares());
+		likesHistogram.add(post.getLikes(), 1);
+		sharesHistogram.add(post.getShares(), 1);
+		postsPerHour[post.getDateTime().getHour()]++;
+		postsPerDay[post.getDateTime().getDayOfWeek().ordinal()]++;
+		posts++;
+		snapshot = null;
+	}
+
+	// Takes away a post that was added before.
+	void remove(Post post) {
+		likes.remove(post.getLikes());
+		shares.remove(post.getShares());
+		likesHistogram.add(post.getLikes(), -1);
+		sharesHistogram.add(post.getShares(), -1);
+		postsPerHour[post.getDateTime().getHour()]--;
+		postsPerDay[post.getDateTime().getDayOfWeek().ordinal()]--;
+		posts--;
+		snapshot = null;
+	}
+
+	// Adds the posts counted by 'other', which must not overlap with the posts of this one.
+	void merge(EngagementAggregator other) {
+		likes.merge(other.likes);
+		shares.merge(other.shares);
+		likesHistogram.merge(other.likesHistogram);
+		sharesHistogram.merge(other.sharesHistogram);
+		for (int hour = 0; hour < 24; hour++) {
+			postsPerHour[hour] += other.postsPerHour[hour];
+		}
+		for (int day = 0; day < 7; day++) {
+			postsPerDay[day] += other.postsPerDay[day];
+		}
+		posts += other.posts;
+		snapshot = null;
+	}
+
+	// Returns the current statistics. Repeated reads between changes return the same instance;
+	// otherwise the cost is a walk over the fixed-size histograms, independent of the store size.
+	EngagementStats snapshot() {
+		if (snapshot == null) {
+			snapshot = new EngagementStats(posts, summary(likes, likesHistogram), summary(shares, sharesHistogram),
+				postsPerHour, postsPerDay);
+		}
+		return snapshot;
+	}
+
+	private static EngagementStats.Summary summary(Moments moments, LogHistogram histogram) {
+		return new EngagementStats.Summary(moments.sum, moments.mean(), moments.variance(),
+			histogram.percentile(0.50), histogram.percentile(0.95), histogram.percentile(0.99));
+	}
+
+	// Count, exact sum, mean and sum of squared differences from the mean, kept with Welford's
+	// method so the variance does not suffer the cancellation of subtracting squared sums.
+	// Removal runs the update backwards.
+	static final class Moments {
+
+		private long count;
+		private long sum;
+		private double mean;
+		private double squares;
+
+		void add(int value) {
+			count++;
+			sum += value;
+			double delta = value - mean;
+			mean += delta / count;
+			squares += delta * (value - mean);
+		}
+
+		void remove(int value) {
+			count--;
+			sum -= value;
+			if (count == 0) {
+				mean = 0;
+				squares = 0;
+				return;
+			}
+			double delta = value - mean;
+			mean -= delta / count;
+			squares = Math.max(0, squares - delta * (value - mean));
+		}
+
+		// Chan et al.'s pairwise combination of two sets of moments.
+		void merge(Moments other) {
+			if (other.count == 0) {
+				return;
+			}
+			long total = count + other.count;
+			double delta = other.mean - mean;
+
+			mean += delta * other.count / total;
+			squares += other.squares + delta * delta * count * other.count / total;
+			sum += other.sum;
+			count = total;
+		}
+
+		// The mean is worked out from the exact sum rather than the running mean, which drifts
+		// slightly over many removals.
+		double mean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		double variance() {
+			return count == 0 ? 0 : squares / count;
+		}
+	}
+
+	// Histogram of non-negative ints in log-scaled buckets, in the manner of an HDR histogram
+	// with two significant digits. Values below 128 have a bucket each; above that, each power
+	// of two is split into 64 buckets, so a bucket's midpoint is within 1/128 of any value in
+	// it. Counts can be taken away as well as added, which a t-digest does not allow.
+	// Engagement counts can be negative, e.g. in an imported row; such a value is counted in the
+	// bucket of 0 rather than indexing outside the histogram.
+	static final class LogHistogram {
+
+		static final int BUCKETS = 1664;
+
+		private final int[] counts;
+		private long total;
+
+		LogHistogram() {
+			this.counts = new int[BUCKETS];
+		}
+
+		void add(int value, int count) {
+			counts[bucket(value)] += count;
+			total += count;
+		}
+
+		void merge(LogHistogram other) {
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] += other.counts[i];
+			}
+			total += other.total;
+		}
+
+		// Returns the smallest value that at least 'fraction' of the values are at or below,
+		// to the bucket's precision. Zero if the histogram is empty.
+		int percentile(double fraction) {
+			if (total == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(fraction * total));
+			long seen = 0;
+
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return midpoint(i);
+				}
+			}
+			return midpoint(BUCKETS - 1);
+		}
+
+		static int bucket(int value) {
+			if (value < 128) {
+				return Math.max(0, value);
+			}
+			int shift = 31 - Integer.numberOfLeadingZeros(value) - 6;
+			return (shift << 6) + (value >>> shift);
+		}
+
+		static int midpoint(int bucket) {
+			if (bucket < 128) {
+				return bucket;
+			}
+			int shift = (bucket >>> 6) - 1;
+			int low = (bucket - (shift << 6)) << shift;
+			return low + ((1 << shift) - 1) / 2;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package smanalyzer.java.service;
+
+// The storage engines that can back the post collection, selected on the command line with
+// --engine=<name>.
+public enum Engine {
+	HASHMAP("hashmap") {
+		public PostStore create() {
+			return new Database();
+		}
+	},
+	COLUMNAR("columnar") {
+		public PostStore create() {
+			return new ColumnarDatabase();
+		}
+	},
+	CONCURRENT("concurrent") {
+		public PostStore create() {
+			return new ConcurrentDatabase();
+		}
+	},
+	MAPPED("mapped") {
+		public PostStore create() {
+			return new MappedDatabase();
+		}
+	};
+
+	private final String name;
+
+	Engine(String name) {
+		this.name = name;
+	}
+
+	// Returns a new, empty store backed by this engine.
+	public abstract PostStore create();
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	// Looks up an engine by its command-line name.
+	public static Engine fromName(String name) {
+		for (Engine engine : values()) {
+			if (engine.name.equalsIgnoreCase(name)) {
+				return engine;
+			}
+		}
+		throw new IllegalArgumentException("Unknown engine: " + name);
+	}
+}
@@ -0,0 +1,123 @@
+package smanalyzer.java.service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.AuthorStats;
+import smanalyzer.java.model.EngagementStats;
+import smanalyzer.java.model.Post;
+
+// Base for stores that wrap another store to add behaviour around it, such as journaling.
+// Every operation is passed straight to the wrapped store; subclasses override the ones they
+// add behaviour to.
+public abstract class ForwardingPostStore implements PostStore {
+
+	protected final PostStore delegate;
+
+	protected ForwardingPostStore(PostStore delegate) {
+		this.delegate = delegate;
+	}
+
+	// The wrapped store.
+	public PostStore getDelegate() {
+		return delegate;
+	}
+
+	public LoadReport init(String type, File csv) throws FileNotFoundException {
+		return delegate.init(type, csv);
+	}
+
+	public Post get(int ID) throws PostNotExistException {
+		return delegate.get(ID);
+	}
+
+	public void put(Post post) throws PostAlreadyExistsException {
+		delegate.put(post);
+	}
+
+	public void delete(int ID) throws PostNotExistException {
+		delegate.delete(ID);
+	}
+
+	public Optional<Post> find(int ID) {
+		return delegate.find(ID);
+	}
+
+	public boolean putIfAbsent(Post post) {
+		return delegate.putIfAbsent(post);
+	}
+
+	public BatchResult putAll(List<Post> batch) {
+		return delegate.putAll(batch);
+	}
+
+	public BatchResult deleteAll(int[] IDs) {
+		return delegate.deleteAll(IDs);
+	}
+
+	public Post[] getAll(int[] IDs) {
+		return delegate.getAll(IDs);
+	}
+
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		return delegate.incrementLikes(ID, delta);
+	}
+
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		return delegate.incrementShares(ID, delta);
+	}
+
+	public List<Post> getMulti(String query, int count) {
+		return delegate.getMulti(query, count);
+	}
+
+	public List<Post> getMulti(Comparator<? super Post> ranking, int count) {
+		return delegate.getMulti(ranking, count);
+	}
+
+	public List<Post> getBetween(LocalDateTime from, LocalDateTime to) {
+		return delegate.getBetween(from, to);
+	}
+
+	public List<Post> getMultiBetween(String query, LocalDateTime from, LocalDateTime to, int count) {
+		return delegate.getMultiBetween(query, from, to, count);
+	}
+
+	public List<Post> search(String keywords, boolean matchAll, String query, int count) {
+		return delegate.search(keywords, matchAll, query, count);
+	}
+
+	public List<Post> getByAuthor(String author) {
+		return delegate.getByAuthor(author);
+	}
+
+	public AuthorStats getAuthorStats(String author) {
+		return delegate.getAuthorStats(author);
+	}
+
+	public List<AuthorStats> getTopAuthors(String query, int count) {
+		return delegate.getTopAuthors(query, count);
+	}
+
+	public EngagementStats getEngagementStats() {
+		return delegate.getEngagementStats();
+	}
+
+	public <R> List<R> query(Query<R> query) {
+		return delegate.query(query);
+	}
+
+	public int size() {
+		return delegate.size();
+	}
+
+	public Stream<Post> stream() {
+		return delegate.stream();
+	}
+}
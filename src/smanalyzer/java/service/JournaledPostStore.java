@@ -0,0 +1,357 @@
+package smanalyzer.java.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Makes a store durable. Every successful change is appended to a PostJournal before the call
+// returns, and the whole store is periodically written to a binary snapshot, after which older
+// log files are deleted. On open the latest snapshot is loaded and only the log files written
+// since it are replayed, so recovery time depends on the tail length rather than the history.
+// A checkpoint that falls due on a write runs on a thread of its own. Writers are only held
+// off while the log is rotated and the posts are copied, not while the snapshot is written.
+//
+// Data directory layout:
+//   snapshot.bin          posts as of the start of generation G
+//   posts-<G>.log ...     changes made since, oldest generation first
+public class JournaledPostStore extends ForwardingPostStore implements Closeable {
+
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 100_000;
+
+	private static final int SNAPSHOT_MAGIC = 0x534D4153; // "SMAS"
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final String SNAPSHOT_FILE = "snapshot.bin";
+	private static final int REPLAY_BATCH = 10_000;
+
+	private final File directory;
+	private final int checkpointInterval;
+	private final PostJournal journal;
+	private final boolean recovered;
+
+	// Changes applied and journaled under this lock so the log order matches the store order.
+	// Waiting for the disk happens outside it, which lets concurrent writers share one flush.
+	private final Object writeLock;
+	private long changesSinceCheckpoint;
+
+	// Runs the checkpoints that fall due on a write, one at a time.
+	private final ExecutorService checkpointer;
+	private final AtomicBoolean checkpointScheduled;
+	private final Object checkpointLock;
+
+	private JournaledPostStore(PostStore delegate, File directory, int checkpointInterval,
+			long generation, boolean recovered) throws IOException {
+		super(delegate);
+		this.directory = directory;
+		this.checkpointInterval = checkpointInterval;
+		this.journal = new PostJournal(directory, generation);
+		this.recovered = recovered;
+		this.writeLock = new Object();
+		this.checkpointer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "journal-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.checkpointScheduled = new AtomicBoolean();
+		this.checkpointLock = new Object();
+	}
+
+	// Opens the data in 'directory' on top of the empty store 'delegate', recovering any
+	// snapshot and log files found there.
+	public static JournaledPostStore open(File directory, PostStore delegate, int checkpointInterval) throws IOException {
+		Files.createDirectories(directory.toPath());
+
+		File snapshot = new File(directory, SNAPSHOT_FILE);
+		long generation = snapshot.exists() ? readSnapshot(snapshot, delegate) : 0;
+		long[] logs = logGenerations(directory);
+		long replayed = 0;
+
+		for (long logGeneration : logs) {
+			if (logGeneration < generation) {
+				PostJournal.logFile(directory, logGeneration).delete(); // left behind by a checkpoint
+			} else {
+				replayed += PostJournal.replay(PostJournal.logFile(directory, logGeneration), delegate);
+				generation = logGeneration;
+			}
+		}
+		// An empty log alone, as left by a run whose first import failed, holds nothing to recover.
+		boolean recovered = snapshot.exists() || replayed > 0;
+		return new JournaledPostStore(delegate, directory, checkpointInterval, generation, recovered);
+	}
+
+	public static JournaledPostStore open(File directory, PostStore delegate) throws IOException {
+		return open(directory, delegate, DEFAULT_CHECKPOINT_INTERVAL);
+	}
+
+	// True if existing data was found when the store was opened, in which case there is no
+	// need to initialise it again.
+	public boolean isRecovered() {
+		return recovered;
+	}
+
+	// Initialises the wrapped store, then checkpoints so the import is never replayed row by row.
+	@Override
+	public LoadReport init(String type, File csv) throws FileNotFoundException {
+		LoadReport report;
+		synchronized (writeLock) {
+			report = delegate.init(type, csv);
+		}
+		checkpoint();
+		return report;
+	}
+
+	@Override
+	public void put(Post post) throws PostAlreadyExistsException {
+		long sequence;
+		synchronized (writeLock) {
+			delegate.put(post);
+			sequence = journal.appendPut(post);
+		}
+		commit(sequence);
+	}
+
+	@Override
+	public boolean putIfAbsent(Post post) {
+		long sequence;
+		synchronized (writeLock) {
+			if (!delegate.putIfAbsent(post)) {
+				return false;
+			}
+			sequence = journal.appendPut(post);
+		}
+		commit(sequence);
+		return true;
+	}
+
+	@Override
+	public void delete(int ID) throws PostNotExistException {
+		long sequence;
+		synchronized (writeLock) {
+			delegate.delete(ID);
+			sequence = journal.appendDelete(ID);
+		}
+		commit(sequence);
+	}
+
+	@Override
+	public BatchResult putAll(List<Post> batch) {
+		BatchResult result;
+		long sequence = 0;
+		synchronized (writeLock) {
+			result = delegate.putAll(batch);
+			for (int i = 0; i < batch.size(); i++) {
+				if (result.isSuccess(i)) {
+					sequence = journal.appendPut(batch.get(i));
+				}
+			}
+		}
+		commit(sequence);
+		return result;
+	}
+
+	@Override
+	public BatchResult deleteAll(int[] IDs) {
+		BatchResult result;
+		long sequence = 0;
+		synchronized (writeLock) {
+			result = delegate.deleteAll(IDs);
+			for (int i = 0; i < IDs.length; i++) {
+				if (result.isSuccess(i)) {
+					sequence = journal.appendDelete(IDs[i]);
+				}
+			}
+		}
+		commit(sequence);
+		return result;
+	}
+
+	@Override
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		int likes;
+		long sequence;
+		synchronized (writeLock) {
+			likes = delegate.incrementLikes(ID, delta);
+			sequence = journal.appendIncrement(PostJournal.LIKES, ID, delta);
+		}
+		commit(sequence);
+		return likes;
+	}
+
+	@Override
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		int shares;
+		long sequence;
+		synchronized (writeLock) {
+			shares = delegate.incrementShares(ID, delta);
+			sequence = journal.appendIncrement(PostJournal.SHARES, ID, delta);
+		}
+		commit(sequence);
+		return shares;
+	}
+
+	// Waits until the change of 'sequence' is durable, then schedules a checkpoint if enough
+	// changes have built up. A sequence of 0 means nothing was journaled.
+	private void commit(long sequence) {
+		if (sequence == 0) {
+			return;
+		}
+		boolean checkpointDue;
+		try {
+			journal.awaitDurable(sequence);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		synchronized (writeLock) {
+			checkpointDue = ++changesSinceCheckpoint >= checkpointInterval;
+		}
+		if (checkpointDue && checkpointScheduled.compareAndSet(false, true)) {
+			try {
+				checkpointer.execute(this::scheduledCheckpoint);
+			} catch (RejectedExecutionException e) {
+				checkpointScheduled.set(false); // closed
+			}
+		}
+	}
+
+	private void scheduledCheckpoint() {
+		try {
+			checkpoint();
+		} catch (UncheckedIOException e) {
+			// The changes are still in the log; the next write due a checkpoint retries.
+			System.out.printf("Could not checkpoint %s: %s\n", directory, e.getCause().getMessage());
+		} finally {
+			checkpointScheduled.set(false);
+		}
+	}
+
+	// Writes the whole store to a new snapshot and deletes the log files it replaces. Writers
+	// are held off while the log is rotated and the posts copied, so the snapshot matches a
+	// single log position, but not while it is written.
+	public void checkpoint() {
+		synchronized (checkpointLock) {
+			try {
+				long generation;
+				List<Post> posts;
+				synchronized (writeLock) {
+					generation = journal.getGeneration() + 1;
+					journal.rotate(generation);
+					posts = delegate.stream().collect(Collectors.toList());
+					changesSinceCheckpoint = 0;
+				}
+
+				writeSnapshot(generation, posts);
+				for (long logGeneration : logGenerations(directory)) {
+					if (logGeneration < generation) {
+						PostJournal.logFile(directory, logGeneration).delete();
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	// Snapshot layout: magic, version, generation, post count, then each post as PostCodec.
+	// It is written to a temporary file and moved into place so a crash never leaves a
+	// partial snapshot.
+	private void writeSnapshot(long generation, List<Post> posts) throws IOException {
+		File temporary = new File(directory, SNAPSHOT_FILE + ".tmp");
+
+		try (FileOutputStream file = new FileOutputStream(temporary)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeLong(generation);
+			out.writeInt(posts.size());
+
+			for (Post post : posts) {
+				PostCodec.write(out, post);
+			}
+			out.flush();
+			file.getFD().sync();
+		}
+		Files.move(temporary.toPath(), new File(directory, SNAPSHOT_FILE).toPath(),
+			StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Loads a snapshot into 'store' and returns the generation it was taken at.
+	private static long readSnapshot(File snapshot, PostStore store) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot), 1 << 16))) {
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+				throw new IOException("Not a post snapshot: " + snapshot);
+			}
+			long generation = in.readLong();
+			int count = in.readInt();
+			List<Post> batch = new ArrayList<Post>(Math.min(count, REPLAY_BATCH));
+
+			for (int i = 0; i < count; i++) {
+				batch.add(PostCodec.read(in));
+				if (batch.size() == REPLAY_BATCH) {
+					store.putAll(batch);
+					batch.clear();
+				}
+			}
+			store.putAll(batch);
+			return generation;
+		}
+	}
+
+	// Generations of the log files in 'directory', oldest first.
+	private static long[] logGenerations(File directory) {
+		File[] logs = directory.listFiles((dir, name) -> name.matches("posts-\\d+\\.log"));
+		if (logs == null) {
+			return new long[0];
+		}
+		long[] generations = new long[logs.length];
+		for (int i = 0; i < logs.length; i++) {
+			String name = logs[i].getName();
+			generations[i] = Long.parseLong(name.substring("posts-".length(), name.length() - ".log".length()));
+		}
+		Arrays.sort(generations);
+		return generations;
+	}
+
+	// Waits for a checkpoint in progress, makes every change durable and closes the log. The
+	// store itself stays usable in memory.
+	@Override
+	public void close() throws IOException {
+		checkpointer.shutdown();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (checkpointer.awaitTermination(1, TimeUnit.MINUTES)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (writeLock) {
+			journal.close();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package smanalyzer.java.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogram of durations in nanoseconds that any number of threads can record into at once
+// without locking. Values below 32 have a bucket each; above that, each power of two is split
+// into 16 buckets, so a bucket's midpoint is within 1/32 of any value in it. Memory is fixed at
+// 960 buckets whatever the number of values, and recording is one atomic increment and one
+// uncontended adder per value; the count is the sum of the buckets, worked out when read.
+public final class LatencyHistogram {
+
+	static final int BUCKETS = 960;
+
+	private final AtomicLongArray counts;
+	private final LongAdder total;
+	private final AtomicLong max;
+
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.total = new LongAdder();
+		this.max = new AtomicLong();
+	}
+
+	// Records one duration. Negative durations, which a clock going backwards can give, count as 0.
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+
+		counts.getAndIncrement(bucket(value));
+		total.add(value);
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	public long getCount() {
+		long values = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			values += counts.get(i);
+		}
+		return values;
+	}
+
+	public long getTotalNanos() {
+		return total.sum();
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	public double getMeanNanos() {
+		long values = getCount();
+		return values == 0 ? 0 : (double) total.sum() / values;
+	}
+
+	// Returns the smallest duration that at least 'fraction' of the values are at or below, to
+	// the bucket's precision. Zero if nothing was recorded. Values recorded while this runs may
+	// or may not be counted.
+	public long percentile(double fraction) {
+		long[] snapshot = new long[BUCKETS];
+		long values = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			values += snapshot[i];
+		}
+		if (values == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * values));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(midpoint(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	static int bucket(long value) {
+		if (value < 32) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+		return (shift << 4) + (int) (value >>> shift);
+	}
+
+	static long midpoint(int bucket) {
+		if (bucket < 32) {
+			return bucket;
+		}
+		int shift = (bucket >>> 4) - 1;
+		long low = (long) (bucket - (shift << 4)) << shift;
+		return low + ((1L << shift) - 1) / 2;
+	}
+}
@@ -0,0 +1,127 @@
+package smanalyzer.java.service;
+
+import java.util.EnumMap;
+
+import smanalyzer.java.exception.InvalidPostException;
+
+// Summary of a bulk import: how many rows were added to the database and how many were skipped.
+public class LoadReport {
+
+	private long imported;
+	private long invalid;
+	private long duplicates;
+	private long elapsedNanos;
+	private long pooledStrings;
+	private long distinctStrings;
+	private long endOffset;
+	private final EnumMap<InvalidPostException.Reason, Long> invalidByReason;
+
+	LoadReport() {
+		this.invalidByReason = new EnumMap<InvalidPostException.Reason, Long>(InvalidPostException.Reason.class);
+	}
+
+	void recordImported() {
+		imported++;
+	}
+
+	// Records the outcome of putting a batch of rows with putAll.
+	void recordBatch(BatchResult result) {
+		imported += result.getSucceeded();
+		duplicates += result.getFailed();
+	}
+
+	void recordImported(long count) {
+		imported += count;
+	}
+
+	void recordInvalid(InvalidPostException.Reason reason) {
+		invalid++;
+		invalidByReason.merge(reason, 1L, Long::sum);
+	}
+
+	void recordDuplicate() {
+		duplicates++;
+	}
+
+	// Records how many strings were looked up in the import's StringPool and how many of
+	// them were distinct.
+	void recordStrings(long pooled, long distinct) {
+		pooledStrings = pooled;
+		distinctStrings = distinct;
+	}
+
+	void recordElapsed(long nanos) {
+		elapsedNanos = nanos;
+	}
+
+	void recordEnd(long offset) {
+		endOffset = offset;
+	}
+
+	// Number of rows read, excluding the header.
+	public long getRows() {
+		return imported + invalid + duplicates;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	// Rows skipped because they were not a valid post.
+	public long getInvalid() {
+		return invalid;
+	}
+
+	// Rows skipped for the given reason.
+	public long getInvalid(InvalidPostException.Reason reason) {
+		return invalidByReason.getOrDefault(reason, 0L);
+	}
+
+	// Rows skipped because a post of the same ID was already in the database.
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	// Strings shared through the import's string pool, and how many distinct ones they came to.
+	public long getPooledStrings() {
+		return pooledStrings;
+	}
+
+	public long getDistinctStrings() {
+		return distinctStrings;
+	}
+
+	// Strings read per string kept, e.g. 20 when each distinct author wrote 20 posts on
+	// average. 1 when nothing was shared or nothing pooled.
+	public double getDedupRatio() {
+		return distinctStrings == 0 ? 1 : (double) pooledStrings / distinctStrings;
+	}
+
+	// Byte offset in the file just past the last row that ended in a line break, where a
+	// CsvTailer can carry on reading rows appended since. A final row without a line break,
+	// which may still be being written, is read but lies past this offset.
+	public long getEndOffset() {
+		return endOffset;
+	}
+
+	// Time the whole import took, in nanoseconds.
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	// Rows read per second over the whole import, or 0 if no time was recorded.
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : getRows() * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		String summary = String.format("Imported %d of %d posts (%d invalid, %d duplicates).",
+			imported, getRows(), invalid, duplicates);
+		if (pooledStrings == 0) {
+			return summary;
+		}
+		return summary + String.format(" %d strings shared as %d (%.1fx dedup).",
+			pooledStrings, distinctStrings, getDedupRatio());
+	}
+}
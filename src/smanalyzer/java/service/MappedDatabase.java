@@ -0,0 +1,200 @@
+package smanalyzer.java.service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Engine that serves a binary PostFile straight from its memory mapping, so startup does not
+// depend on the number of posts. The file is never written: posts added afterwards live in an
+// in-memory Database overlay, and a deleted or updated file post is hidden from the file and,
+// if updated, copied into the overlay. Top-N queries merge the file's stored rankings with the
+// overlay's.
+//
+// Initialise with type "binary" to map a file. Other types load into the overlay as usual.
+public class MappedDatabase implements PostStore {
+
+	private PostFile base;
+	private BitSet hidden;
+	private int hiddenCount;
+	private Database overlay;
+
+	public MappedDatabase() {
+		this.base = PostFile.empty();
+		this.hidden = new BitSet();
+		this.overlay = new Database();
+	}
+
+	// Maps a binary post file, replacing the current contents, or initialises as any store.
+	@Override
+	public LoadReport init(String type, File source) throws FileNotFoundException {
+		if (!type.equals("binary")) {
+			return PostStore.super.init(type, source);
+		}
+		LoadReport report = new LoadReport();
+		long start = System.nanoTime();
+
+		try {
+			this.base = PostFile.open(source);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.hidden = new BitSet(base.size());
+		this.hiddenCount = 0;
+		this.overlay = new Database();
+		// Mapping copies nothing, so every post of the file counts as imported.
+		report.recordImported(base.size());
+		report.recordElapsed(System.nanoTime() - start);
+		return report;
+	}
+
+	// Retrieve 1 post of given ID, from the file or else the overlay.
+	public Post get(int ID) throws PostNotExistException {
+		int row = liveRow(ID);
+
+		if (row >= 0) {
+			return base.post(row);
+		}
+		return overlay.get(ID);
+	}
+
+	// Adds 1 post to the overlay unless a post of the same ID exists in either part.
+	public void put(Post post) throws PostAlreadyExistsException {
+		if (liveRow(post.getID()) >= 0) {
+			throw new PostAlreadyExistsException(post.getID());
+		}
+		overlay.put(post);
+	}
+
+	// Retrieve 1 post of given ID from the file or else the overlay, or an empty Optional.
+	public Optional<Post> find(int ID) {
+		int row = liveRow(ID);
+
+		return row >= 0 ? Optional.of(base.post(row)) : overlay.find(ID);
+	}
+
+	// Adds 1 post to the overlay unless the ID is taken in either part, returning whether it was added.
+	public boolean putIfAbsent(Post post) {
+		return liveRow(post.getID()) < 0 && overlay.putIfAbsent(post);
+	}
+
+	// Deletes 1 post of given ID. A file post is hidden rather than removed.
+	public void delete(int ID) throws PostNotExistException {
+		int row = liveRow(ID);
+
+		if (row >= 0) {
+			hide(row);
+		} else {
+			overlay.delete(ID);
+		}
+	}
+
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		copyToOverlay(ID);
+		return overlay.incrementLikes(ID, delta);
+	}
+
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		copyToOverlay(ID);
+		return overlay.incrementShares(ID, delta);
+	}
+
+	// Moves a file post that is about to change into the overlay, where it can be updated and
+	// re-ranked.
+	private void copyToOverlay(int ID) {
+		int row = liveRow(ID);
+
+		if (row >= 0) {
+			hide(row);
+			try {
+				overlay.put(base.post(row));
+			} catch (PostAlreadyExistsException e) {
+				throw new IllegalStateException(e); // IDs are never live in both parts
+			}
+		}
+	}
+
+	// Returns the file row of the post of given ID if it has not been hidden, otherwise -1.
+	private int liveRow(int ID) {
+		int row = base.rowOf(ID);
+		return row >= 0 && !hidden.get(row) ? row : -1;
+	}
+
+	private void hide(int row) {
+		hidden.set(row);
+		hiddenCount++;
+	}
+
+	// getMulti returns list of size 'count' containing posts sorted by 'query'. The file's
+	// stored ranking is merged with the overlay's index, so only about 'count' file posts are
+	// decoded.
+	public List<Post> getMulti(String query, int count) {
+		if (query.equals("likes")) {
+			return merge(base::likesRankAt, overlay.getMulti(query, count), Database.SORT_ON_LIKES, count);
+		} else if (query.equals("shares")) {
+			return merge(base::sharesRankAt, overlay.getMulti(query, count), Database.SORT_ON_SHARES, count);
+		}
+		return stream().limit(Math.max(0, count)).collect(Collectors.toList());
+	}
+
+	// getMulti for rankings without a stored ranking, computed over every post.
+	public List<Post> getMulti(Comparator<? super Post> ranking, int count) {
+		return TopN.select(stream()::iterator, ranking, count);
+	}
+
+	// Merges the live file rows in the order of 'rankAt' with 'overlayTop', which is already
+	// sorted by 'ranking'.
+	private List<Post> merge(IntUnaryOperator rankAt, List<Post> overlayTop, Comparator<Post> ranking, int count) {
+		List<Post> topPosts = new ArrayList<Post>(Math.max(0, Math.min(count, size())));
+		Post fromBase = null;
+		int rank = 0;
+		int next = 0;
+
+		while (topPosts.size() < count) {
+			while (fromBase == null && rank < base.size()) {
+				int row = rankAt.applyAsInt(rank++);
+				if (!hidden.get(row)) {
+					fromBase = base.post(row);
+				}
+			}
+			Post fromOverlay = next < overlayTop.size() ? overlayTop.get(next) : null;
+
+			if (fromBase == null && fromOverlay == null) {
+				break;
+			} else if (fromOverlay == null || (fromBase != null && ranking.compare(fromBase, fromOverlay) < 0)) {
+				topPosts.add(fromBase);
+				fromBase = null;
+			} else {
+				topPosts.add(fromOverlay);
+				next++;
+			}
+		}
+		return topPosts;
+	}
+
+	// Returns the size of the store.
+	public int size() {
+		return base.size() - hiddenCount + overlay.size();
+	}
+
+	// Streams the live file posts in file order, then the overlay.
+	public Stream<Post> stream() {
+		return Stream.concat(
+			IntStream.range(0, base.size()).filter(row -> !hidden.get(row)).mapToObj(base::post),
+			overlay.stream());
+	}
+}
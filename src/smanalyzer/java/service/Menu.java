@@ -1,6 +1,7 @@
 package smanalyzer.java.service;
 
 import java.security.InvalidParameterException;
+import java.time.LocalDateTime;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Scanner;
@@ -9,8 +10,14 @@ import smanalyzer.java.exception.*;
 import smanalyzer.java.model.Post;
 
 public class Menu {
+
+	// Posts are rendered into this buffer and written to standard output in chunks of about
+	// this size, rather than one write per post.
+	private static final int OUTPUT_CHUNK = 1 << 16;
+
+	private final StringBuilder output = new StringBuilder(OUTPUT_CHUNK);
 	
-	public void start(Database db) {
+	public void start(PostStore db) {
 		Scanner input = new Scanner(System.in);
 		
 		System.out.printf("Welcome to Social Media Analyzer!\n" + 
@@ -30,14 +37,19 @@ public class Menu {
 						  + "	3) Retrieve a social media post\n"
 						  + "	4) Retrieve the top N posts with most likes\n"
 						  + "	5) Retrieve the top N posts with most shares\n"
-						  + "	6) Exit\n"
+						  + "	6) Retrieve the posts between two dates\n"
+						  + "	7) Retrieve the top N posts between two dates\n"
+						  + "	8) Search posts by keywords\n"
+						  + "	9) Show engagement statistics\n"
+						  + "	10) Show operation metrics\n"
+						  + "	11) Exit\n"
 						  + "Please select: ";
 		
 		System.out.printf(menuScreen);
 	}
 
 	// Read user input only for the menu options.
-	public void readMenuSelection(Scanner input, Database db) {
+	public void readMenuSelection(Scanner input, PostStore db) {
 		int menuSelect;
 		boolean active = true;
 		while(active) {
@@ -61,13 +73,28 @@ public class Menu {
 					retrieveTopShared(input, db);
 					break;
 				case 6:
+					retrieveBetween(input, db);
+					break;
+				case 7:
+					retrieveTopBetween(input, db);
+					break;
+				case 8:
+					searchPosts(input, db);
+					break;
+				case 9:
+					showStats(input, db);
+					break;
+				case 10:
+					showMetrics(input, db);
+					break;
+				case 11:
 					active = false;
 					break;
 				default:
 					throw new InvalidMenuOptionException();
 				}
 
-				if(active && menuSelect < 7) {
+				if(active && menuSelect < 12) {
 					System.out.print("Press Enter to continue...");
 					input.nextLine();
 					System.out.println();
@@ -75,7 +102,7 @@ public class Menu {
 				}
 			
 			} catch (InputMismatchException | InvalidMenuOptionException e) {
-				System.out.print("Please select 1-6.\nPlease select: ");
+				System.out.print("Please select 1-11.\nPlease select: ");
 				input.nextLine();
 			}
 		}
@@ -83,7 +110,7 @@ public class Menu {
 	}
 
 	// Read user input to add a post to the database.
-	public void addPost(Scanner input, Database db) {
+	public void addPost(Scanner input, PostStore db) {
 		Post newPost;
 		int ID = readID(input);
 		String content = readContent(input);
@@ -104,7 +131,7 @@ public class Menu {
 	}
 	
 	// Read user input to delete a post from the database.
-	public void deletePost(Scanner input, Database db) {
+	public void deletePost(Scanner input, PostStore db) {
 		int ID = readID(input);
 
 		try {
@@ -117,12 +144,12 @@ public class Menu {
 	}
 	
 	// Read user input to aretrieve a post from the database.
-	public void retrievePost(Scanner input, Database db) {
+	public void retrievePost(Scanner input, PostStore db) {
 		int ID = readID(input);
 		
 		try {
 			Post post = db.get(ID);
-			post.print();
+			printPosts(List.of(post));
 		} catch(PostNotExistException e) {
 			System.out.println("Failed to retrieve post: " + e.getMessage());
 		}
@@ -130,7 +157,7 @@ public class Menu {
 	}
 	
 	// Read user input to retrieve the top x most-liked posts from the database.
-	public void retrieveTopLiked(Scanner input, Database db) {
+	public void retrieveTopLiked(Scanner input, PostStore db) {
 		int count = readCount(input);
 
 		List<Post> topLikedPosts = db.getMulti("likes", count);
@@ -141,15 +168,13 @@ public class Menu {
 			System.out.printf("\nThe %d top-liked posts are:\n", count);
 		}
 
-		for (Post post : topLikedPosts) {
-			post.print();
-		}
+		printPosts(topLikedPosts);
 		System.out.println();
 		
 	}
 	
 	// Read user input to retrieve the top x most-shared posts from the database.
-	public void retrieveTopShared(Scanner input, Database db) {
+	public void retrieveTopShared(Scanner input, PostStore db) {
 		int count = readCount(input);
 
 		List<Post> topSharedPosts = db.getMulti("shares", count);
@@ -160,13 +185,103 @@ public class Menu {
 			System.out.printf("\nThe %d top-shared posts are:\n", count);
 		}
 
-		for (Post post : topSharedPosts) {
-			post.print();
-		}
+		printPosts(topSharedPosts);
 		System.out.println();
 		
 	}
 	
+	// Read user input to retrieve every post between two dates, oldest first.
+	public void retrieveBetween(Scanner input, PostStore db) {
+		input.nextLine(); // consume newline char after the menu selection
+		LocalDateTime from = readDateTimeBound(input, "start");
+		LocalDateTime to = readDateTimeBound(input, "end");
+
+		List<Post> posts = db.getBetween(from, to);
+
+		System.out.printf("\n%d posts were made from %s up to %s:\n", posts.size(),
+			Post.formatDateTime(from), Post.formatDateTime(to));
+		printPosts(posts);
+		System.out.println();
+	}
+
+	// Read user input to retrieve the top x most-liked or most-shared posts between two dates.
+	public void retrieveTopBetween(Scanner input, PostStore db) {
+		input.nextLine(); // consume newline char after the menu selection
+		String query = readRanking(input);
+		LocalDateTime from = readDateTimeBound(input, "start");
+		LocalDateTime to = readDateTimeBound(input, "end");
+		int count = readCount(input);
+
+		List<Post> topPosts = db.getMultiBetween(query, from, to, count);
+
+		if (topPosts.size() < count) {
+			System.out.printf("\nOnly %d posts were made in that range. Showing all of them:\n", topPosts.size());
+		} else {
+			System.out.printf("\nThe %d top-%s posts from %s up to %s are:\n", count,
+				query.equals("likes") ? "liked" : "shared", Post.formatDateTime(from), Post.formatDateTime(to));
+		}
+
+		printPosts(topPosts);
+		System.out.println();
+	}
+
+	// Read user input to search post content for keywords and show the top x matches.
+	public void searchPosts(Scanner input, PostStore db) {
+		input.nextLine(); // consume newline char after the menu selection
+		String keywords = readKeywords(input);
+		boolean matchAll = readMatchAll(input);
+		String query = readRanking(input);
+		int count = readCount(input);
+
+		List<Post> found = db.search(keywords, matchAll, query, count);
+
+		if (found.size() < count) {
+			System.out.printf("\nOnly %d posts match. Showing all of them:\n", found.size());
+		} else {
+			System.out.printf("\nThe %d top-%s matching posts are:\n", count, query.equals("likes") ? "liked" : "shared");
+		}
+
+		printPosts(found);
+		System.out.println();
+	}
+
+	// Show statistics on the likes, shares and posting times of every post.
+	public void showStats(Scanner input, PostStore db) {
+		input.nextLine(); // consume newline char after the menu selection
+		System.out.println(db.getEngagementStats().formatStats());
+		System.out.println();
+	}
+
+	// Print the call counts and latencies of the store's operations, if they are collected,
+	// and the counters of the top-N cache, if there is one.
+	public void showMetrics(Scanner input, PostStore db) {
+		input.nextLine(); // consume newline char after the menu selection
+		if (db instanceof MeteredPostStore) {
+			System.out.println(((MeteredPostStore) db).getMetrics().formatMetrics());
+		} else {
+			System.out.println("Operation metrics are not collected for this database.");
+		}
+		for (PostStore store = db; store instanceof ForwardingPostStore; store = ((ForwardingPostStore) store).getDelegate()) {
+			if (store instanceof CachingPostStore) {
+				System.out.println(((CachingPostStore) store).formatCache());
+			}
+		}
+		System.out.println();
+	}
+
+	// Print the posts to standard output, as Post.print would one at a time.
+	public void printPosts(List<Post> posts) {
+		for (Post post : posts) {
+			post.formatTo(output);
+			if (output.length() >= OUTPUT_CHUNK) {
+				System.out.append(output);
+				output.setLength(0);
+			}
+		}
+		System.out.append(output);
+		output.setLength(0);
+	}
+
 	// Read user input for a post ID
 	public int readID(Scanner input) {
 		int ID = -1;
@@ -189,46 +304,17 @@ public class Menu {
 		return ID;
 	}
 
-	// Read user input for a post content
+	// Read user input for a post content. Commas and quotes are allowed, as posts are
+	// quoted when written as CSV.
 	public String readContent(Scanner input) {
-		String content = null;
-
-		while(true) {
-			try {
-				System.out.print("Please provide the post content: ");
-				content = input.nextLine();
-
-				if (content.contains(",")) {
-					throw new InvalidParameterException();
-				}
-				break;
-			} catch (InvalidParameterException e) {
-				System.out.println("Content should not contain a comma.");
-			}
-		}
-		
-		return content;
+		System.out.print("Please provide the post content: ");
+		return input.nextLine();
 	}
 
-	// Read user input for a post author
+	// Read user input for a post author. Commas are allowed, as for content.
 	public String readAuthor(Scanner input) {
-		String author = null;
-
-		while(true) {
-			try {
-				System.out.print("Please provide the post author: ");
-				author = input.nextLine();
-
-				if (author.contains(",")) {
-					throw new InvalidParameterException();
-				}
-				break;
-			} catch (InvalidParameterException e) {
-				System.out.println("Author should not contain a comma.");
-			}
-		}
-
-		return author;
+		System.out.print("Please provide the post author: ");
+		return input.nextLine();
 	}
 
 	// Read user input for a post no. likes
@@ -295,6 +381,64 @@ public class Menu {
 		return dateTime;
 	}
 
+	// Read user input for the start or end of a date range. The end itself is not included.
+	public LocalDateTime readDateTimeBound(Scanner input, String bound) {
+		LocalDateTime dateTime = null;
+
+		while (dateTime == null) {
+			try {
+				System.out.printf("Please provide the %s date and time in the format DD/MM/YYYY HH:MM: ", bound);
+				dateTime = Post.convertDateTime(input.nextLine());
+			} catch (InvalidDateException e) {
+				System.out.println(e.getMessage());
+			}
+		}
+
+		return dateTime;
+	}
+
+	// Read user input for the words to search for.
+	public String readKeywords(Scanner input) {
+		String keywords = "";
+
+		while (keywords.isBlank()) {
+			System.out.print("Please provide the words to search for: ");
+			keywords = input.nextLine();
+		}
+
+		return keywords;
+	}
+
+	// Read user input for whether posts must contain all of the words or any of them.
+	public boolean readMatchAll(Scanner input) {
+		while (true) {
+			System.out.print("Should posts contain all of the words or any of them? (all/any): ");
+			String match = input.nextLine().trim().toLowerCase();
+
+			if (match.equals("all") || match.equals("any")) {
+				return match.equals("all");
+			}
+			System.out.println("Please enter either all or any.");
+		}
+	}
+
+	// Read user input for whether to rank posts on likes or shares.
+	public String readRanking(Scanner input) {
+		String query = null;
+
+		while (query == null) {
+			System.out.print("Please choose to rank by likes or shares: ");
+			query = input.nextLine().trim().toLowerCase();
+
+			if (!query.equals("likes") && !query.equals("shares")) {
+				System.out.println("Please enter either likes or shares.");
+				query = null;
+			}
+		}
+
+		return query;
+	}
+
 	// Read user input for number of posts to display for top-liked or top-shared.
 	public int readCount(Scanner input) {
 		int count = 0;
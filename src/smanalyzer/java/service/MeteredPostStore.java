@@ -0,0 +1,208 @@
+package smanalyzer.java.service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+import static smanalyzer.java.service.StoreMetrics.Operation.*;
+
+// Wraps a store to count and time its operations (see StoreMetrics). Each call costs two reads
+// of System.nanoTime and a few uncontended atomic adds on top of the wrapped store's own work.
+// Reads that only summarise the store, such as getEngagementStats, are not timed.
+public class MeteredPostStore extends ForwardingPostStore {
+
+	private final StoreMetrics metrics;
+
+	public MeteredPostStore(PostStore delegate) {
+		super(delegate);
+		this.metrics = new StoreMetrics(this);
+	}
+
+	public StoreMetrics getMetrics() {
+		return metrics;
+	}
+
+	// Initialises the wrapped store and keeps its report as the ingest metrics.
+	@Override
+	public LoadReport init(String type, File csv) throws FileNotFoundException {
+		LoadReport report = delegate.init(type, csv);
+		metrics.recordIngest(report);
+		return report;
+	}
+
+	@Override
+	public Post get(int ID) throws PostNotExistException {
+		long start = System.nanoTime();
+		try {
+			Post post = delegate.get(ID);
+			metrics.record(GET, start);
+			return post;
+		} catch (PostNotExistException e) {
+			metrics.record(GET, start);
+			metrics.recordFailure(GET);
+			throw e;
+		}
+	}
+
+	@Override
+	public void put(Post post) throws PostAlreadyExistsException {
+		long start = System.nanoTime();
+		try {
+			delegate.put(post);
+			metrics.record(PUT, start);
+		} catch (PostAlreadyExistsException e) {
+			metrics.record(PUT, start);
+			metrics.recordFailure(PUT);
+			throw e;
+		}
+	}
+
+	@Override
+	public void delete(int ID) throws PostNotExistException {
+		long start = System.nanoTime();
+		try {
+			delegate.delete(ID);
+			metrics.record(DELETE, start);
+		} catch (PostNotExistException e) {
+			metrics.record(DELETE, start);
+			metrics.recordFailure(DELETE);
+			throw e;
+		}
+	}
+
+	@Override
+	public Optional<Post> find(int ID) {
+		long start = System.nanoTime();
+		Optional<Post> post = delegate.find(ID);
+		metrics.record(FIND, start);
+		if (post.isEmpty()) {
+			metrics.recordFailure(FIND);
+		}
+		return post;
+	}
+
+	@Override
+	public boolean putIfAbsent(Post post) {
+		long start = System.nanoTime();
+		boolean added = delegate.putIfAbsent(post);
+		metrics.record(PUT_IF_ABSENT, start);
+		if (!added) {
+			metrics.recordFailure(PUT_IF_ABSENT);
+		}
+		return added;
+	}
+
+	@Override
+	public BatchResult putAll(List<Post> batch) {
+		long start = System.nanoTime();
+		BatchResult result = delegate.putAll(batch);
+		metrics.record(PUT_ALL, start);
+		return result;
+	}
+
+	@Override
+	public BatchResult deleteAll(int[] IDs) {
+		long start = System.nanoTime();
+		BatchResult result = delegate.deleteAll(IDs);
+		metrics.record(DELETE_ALL, start);
+		return result;
+	}
+
+	@Override
+	public Post[] getAll(int[] IDs) {
+		long start = System.nanoTime();
+		Post[] posts = delegate.getAll(IDs);
+		metrics.record(GET_ALL, start);
+		return posts;
+	}
+
+	@Override
+	public int incrementLikes(int ID, int delta) throws PostNotExistException {
+		long start = System.nanoTime();
+		try {
+			int result = delegate.incrementLikes(ID, delta);
+			metrics.record(INCREMENT, start);
+			return result;
+		} catch (PostNotExistException e) {
+			metrics.record(INCREMENT, start);
+			metrics.recordFailure(INCREMENT);
+			throw e;
+		}
+	}
+
+	@Override
+	public int incrementShares(int ID, int delta) throws PostNotExistException {
+		long start = System.nanoTime();
+		try {
+			int result = delegate.incrementShares(ID, delta);
+			metrics.record(INCREMENT, start);
+			return result;
+		} catch (PostNotExistException e) {
+			metrics.record(INCREMENT, start);
+			metrics.recordFailure(INCREMENT);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Post> getMulti(String query, int count) {
+		long start = System.nanoTime();
+		List<Post> posts = delegate.getMulti(query, count);
+		metrics.record(GET_MULTI, start);
+		return posts;
+	}
+
+	@Override
+	public List<Post> getMulti(Comparator<? super Post> ranking, int count) {
+		long start = System.nanoTime();
+		List<Post> posts = delegate.getMulti(ranking, count);
+		metrics.record(GET_MULTI, start);
+		return posts;
+	}
+
+	@Override
+	public List<Post> getBetween(LocalDateTime from, LocalDateTime to) {
+		long start = System.nanoTime();
+		List<Post> posts = delegate.getBetween(from, to);
+		metrics.record(GET_BETWEEN, start);
+		return posts;
+	}
+
+	@Override
+	public List<Post> getMultiBetween(String query, LocalDateTime from, LocalDateTime to, int count) {
+		long start = System.nanoTime();
+		List<Post> posts = delegate.getMultiBetween(query, from, to, count);
+		metrics.record(GET_BETWEEN, start);
+		return posts;
+	}
+
+	@Override
+	public List<Post> search(String keywords, boolean matchAll, String query, int count) {
+		long start = System.nanoTime();
+		List<Post> posts = delegate.search(keywords, matchAll, query, count);
+		metrics.record(SEARCH, start);
+		return posts;
+	}
+
+	@Override
+	public List<Post> getByAuthor(String author) {
+		long start = System.nanoTime();
+		List<Post> posts = delegate.getByAuthor(author);
+		metrics.record(BY_AUTHOR, start);
+		return posts;
+	}
+
+	@Override
+	public <R> List<R> query(Query<R> query) {
+		long start = System.nanoTime();
+		List<R> results = delegate.query(query);
+		metrics.record(QUERY, start);
+		return results;
+	}
+}
@@ -0,0 +1,72 @@
+package smanalyzer.java.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import smanalyzer.java.model.Post;
+
+// Binary encoding of a single post, shared by the journal and snapshot files.
+// Layout: ID, likes, shares (int), date-time as epoch minutes (long), content and author as
+// length-prefixed UTF-8 with a length of -1 for null.
+final class PostCodec {
+
+	private static final int NULL_STRING = -1;
+
+	private PostCodec() {
+	}
+
+	static void write(DataOutput out, Post post) throws IOException {
+		out.writeInt(post.getID());
+		out.writeInt(post.getLikes());
+		out.writeInt(post.getShares());
+		out.writeLong(toEpochMinutes(post.getDateTime()));
+		writeString(out, post.getContent());
+		writeString(out, post.getAuthor());
+	}
+
+	static Post read(DataInput in) throws IOException {
+		int ID = in.readInt();
+		int likes = in.readInt();
+		int shares = in.readInt();
+		LocalDateTime dateTime = fromEpochMinutes(in.readLong());
+		String content = readString(in);
+		String author = readString(in);
+
+		return new Post(ID, content, author, likes, shares, dateTime);
+	}
+
+	static long toEpochMinutes(LocalDateTime dateTime) {
+		return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+	}
+
+	static LocalDateTime fromEpochMinutes(long epochMinutes) {
+		return LocalDateTime.ofEpochSecond(epochMinutes * 60, 0, ZoneOffset.UTC);
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(NULL_STRING);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length == NULL_STRING) {
+			return null;
+		}
+		if (length < 0) {
+			throw new IOException("Corrupt string length: " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,385 @@
+package smanalyzer.java.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import smanalyzer.java.model.Post;
+
+// Read-only binary post file, opened through FileChannel.map so a post is only decoded when it
+// is asked for. Opening costs a few header reads however many posts the file holds.
+//
+// Layout (big-endian, every section 8-byte aligned):
+//   header    magic "SMAP", version, post count, section count, then the offset of each section
+//   IDS       int per row            LIKES, SHARES    int per row
+//   MINUTES   long per row, date-time as epoch minutes
+//   CONTENT   int per row, position of the string in STRINGS or -1 for null; AUTHOR likewise
+//   ID_INDEX  (ID, row) int pairs sorted by ID, for binary search
+//   LIKES_RANK, SHARES_RANK   rows in Database.SORT_ON_LIKES / SORT_ON_SHARES order
+//   STRINGS   length-prefixed UTF-8 strings
+// Each section is mapped separately, so no section may exceed 2 GB.
+public final class PostFile {
+
+	public static final int VERSION = 1;
+	public static final String CSV_HEADER = "ID,content,author,likes,shares,date-time";
+
+	private static final int MAGIC = 0x534D4150; // "SMAP"
+	private static final int IDS = 0, LIKES = 1, SHARES = 2, MINUTES = 3, CONTENT = 4, AUTHOR = 5,
+		ID_INDEX = 6, LIKES_RANK = 7, SHARES_RANK = 8, STRINGS = 9, SECTIONS = 10;
+	private static final int HEADER_BYTES = 16 + 8 * SECTIONS;
+	private static final int NULL_STRING = -1;
+	private static final int LOAD_BATCH = 10_000;
+
+	private static final PostFile EMPTY = new PostFile();
+
+	private final int count;
+	private final IntBuffer ids;
+	private final IntBuffer likes;
+	private final IntBuffer shares;
+	private final LongBuffer epochMinutes;
+	private final IntBuffer contentPositions;
+	private final IntBuffer authorPositions;
+	private final IntBuffer idIndex;
+	private final IntBuffer likesRank;
+	private final IntBuffer sharesRank;
+	private final ByteBuffer strings;
+
+	private PostFile() {
+		this.count = 0;
+		this.ids = this.likes = this.shares = this.contentPositions = this.authorPositions = IntBuffer.allocate(0);
+		this.idIndex = this.likesRank = this.sharesRank = IntBuffer.allocate(0);
+		this.epochMinutes = LongBuffer.allocate(0);
+		this.strings = ByteBuffer.allocate(0);
+	}
+
+	private PostFile(FileChannel channel, int count, long[] offsets) throws IOException {
+		this.count = count;
+		this.ids = map(channel, offsets, IDS).asIntBuffer();
+		this.likes = map(channel, offsets, LIKES).asIntBuffer();
+		this.shares = map(channel, offsets, SHARES).asIntBuffer();
+		this.epochMinutes = map(channel, offsets, MINUTES).asLongBuffer();
+		this.contentPositions = map(channel, offsets, CONTENT).asIntBuffer();
+		this.authorPositions = map(channel, offsets, AUTHOR).asIntBuffer();
+		this.idIndex = map(channel, offsets, ID_INDEX).asIntBuffer();
+		this.likesRank = map(channel, offsets, LIKES_RANK).asIntBuffer();
+		this.sharesRank = map(channel, offsets, SHARES_RANK).asIntBuffer();
+		this.strings = map(channel, offsets, STRINGS);
+	}
+
+	// A file holding no posts.
+	static PostFile empty() {
+		return EMPTY;
+	}
+
+	// Maps 'file'. The mapping stays valid after the channel is closed.
+	public static PostFile open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES) {
+				throw new IOException("Not a post file: " + file);
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not a post file: " + file);
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported post file version " + version + ": " + file);
+			}
+			int count = header.getInt();
+			if (count < 0 || header.getInt() != SECTIONS) {
+				throw new IOException("Corrupt post file header: " + file);
+			}
+
+			long[] offsets = new long[SECTIONS + 1];
+			for (int section = 0; section < SECTIONS; section++) {
+				offsets[section] = header.getLong();
+			}
+			offsets[SECTIONS] = channel.size();
+			long[] sizes = sectionSizes(count);
+			for (int section = 0; section < SECTIONS; section++) {
+				if (offsets[section] < HEADER_BYTES || offsets[section] + sizes[section] > offsets[section + 1]
+						|| offsets[section + 1] - offsets[section] > Integer.MAX_VALUE) {
+					throw new IOException("Corrupt post file header: " + file);
+				}
+			}
+			return new PostFile(channel, count, offsets);
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(file.getPath());
+		}
+	}
+
+	private static ByteBuffer map(FileChannel channel, long[] offsets, int section) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, offsets[section], offsets[section + 1] - offsets[section]);
+	}
+
+	// Returns the number of posts in the file.
+	public int size() {
+		return count;
+	}
+
+	// Returns the row of the post of given ID, or -1 if the file has no such post.
+	int rowOf(int ID) {
+		int low = 0;
+		int high = count - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleID = idIndex.get(middle << 1);
+
+			if (middleID < ID) {
+				low = middle + 1;
+			} else if (middleID > ID) {
+				high = middle - 1;
+			} else {
+				return idIndex.get((middle << 1) + 1);
+			}
+		}
+		return -1;
+	}
+
+	int idAt(int row) {
+		return ids.get(row);
+	}
+
+	// Returns the row ranked 'rank' by likes (0 for the most liked post).
+	int likesRankAt(int rank) {
+		return likesRank.get(rank);
+	}
+
+	int sharesRankAt(int rank) {
+		return sharesRank.get(rank);
+	}
+
+	// Decodes the post of 'row'.
+	Post post(int row) {
+		return new Post(ids.get(row), string(contentPositions.get(row)), string(authorPositions.get(row)),
+			likes.get(row), shares.get(row), PostCodec.fromEpochMinutes(epochMinutes.get(row)));
+	}
+
+	private String string(int position) {
+		if (position == NULL_STRING) {
+			return null;
+		}
+		int length = strings.getInt(position);
+		byte[] bytes = new byte[length];
+		strings.get(position + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Streams every post of the file in row order.
+	public Stream<Post> stream() {
+		return IntStream.range(0, count).mapToObj(this::post);
+	}
+
+	// Copies every post of 'file' into 'db', for engines that keep their own copy.
+	static LoadReport load(File file, PostStore db) throws FileNotFoundException {
+		LoadReport report = new LoadReport();
+		long start = System.nanoTime();
+		PostFile posts;
+		try {
+			posts = open(file);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		List<Post> batch = new ArrayList<Post>(Math.min(posts.count, LOAD_BATCH));
+		for (int row = 0; row < posts.count; row++) {
+			batch.add(posts.post(row));
+			if (batch.size() == LOAD_BATCH) {
+				report.recordBatch(db.putAll(batch));
+				batch.clear();
+			}
+		}
+		report.recordBatch(db.putAll(batch));
+		report.recordElapsed(System.nanoTime() - start);
+		return report;
+	}
+
+	// Writes 'posts', whose IDs must be unique, to 'file' in the binary format.
+	public static void write(File file, Collection<Post> posts) throws IOException {
+		Post[] rows = posts.toArray(new Post[0]);
+		int count = rows.length;
+
+		long[] offsets = new long[SECTIONS];
+		long offset = HEADER_BYTES;
+		long[] sizes = sectionSizes(count);
+		for (int section = 0; section < SECTIONS; section++) {
+			offsets[section] = offset;
+			offset = align(offset + sizes[section]);
+		}
+
+		int[] idOrder = order(rows, Comparator.comparingInt(Post::getID));
+		for (int i = 1; i < count; i++) {
+			if (rows[idOrder[i]].getID() == rows[idOrder[i - 1]].getID()) {
+				throw new IllegalArgumentException("Duplicate post ID: " + rows[idOrder[i]].getID());
+			}
+		}
+
+		try (FileOutputStream output = new FileOutputStream(file)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(count);
+			out.writeInt(SECTIONS);
+			for (long sectionOffset : offsets) {
+				out.writeLong(sectionOffset);
+			}
+
+			for (Post post : rows) {
+				out.writeInt(post.getID());
+			}
+			pad(out, offsets, sizes, LIKES);
+			for (Post post : rows) {
+				out.writeInt(post.getLikes());
+			}
+			pad(out, offsets, sizes, SHARES);
+			for (Post post : rows) {
+				out.writeInt(post.getShares());
+			}
+			pad(out, offsets, sizes, MINUTES);
+			for (Post post : rows) {
+				out.writeLong(PostCodec.toEpochMinutes(post.getDateTime()));
+			}
+
+			// Strings are laid out content then author per row, so positions follow from lengths.
+			// Each is encoded once, so the lengths are those of the bytes written.
+			byte[][] contents = new byte[count][];
+			byte[][] authors = new byte[count][];
+			long position = 0;
+			int[] authorPositions = new int[count];
+			pad(out, offsets, sizes, CONTENT);
+			for (int row = 0; row < count; row++) {
+				contents[row] = encode(rows[row].getContent());
+				out.writeInt(stringPosition(contents[row], position));
+				position += stringBytes(contents[row]);
+				authors[row] = encode(rows[row].getAuthor());
+				authorPositions[row] = stringPosition(authors[row], position);
+				position += stringBytes(authors[row]);
+			}
+			pad(out, offsets, sizes, AUTHOR);
+			for (int authorPosition : authorPositions) {
+				out.writeInt(authorPosition);
+			}
+
+			pad(out, offsets, sizes, ID_INDEX);
+			for (int row : idOrder) {
+				out.writeInt(rows[row].getID());
+				out.writeInt(row);
+			}
+			pad(out, offsets, sizes, LIKES_RANK);
+			for (int row : order(rows, Database.SORT_ON_LIKES)) {
+				out.writeInt(row);
+			}
+			pad(out, offsets, sizes, SHARES_RANK);
+			for (int row : order(rows, Database.SORT_ON_SHARES)) {
+				out.writeInt(row);
+			}
+
+			pad(out, offsets, sizes, STRINGS);
+			for (int row = 0; row < count; row++) {
+				writeString(out, contents[row]);
+				writeString(out, authors[row]);
+			}
+			out.flush();
+		}
+	}
+
+	// Returns the rows of 'posts' sorted by 'ranking'.
+	private static int[] order(Post[] posts, Comparator<Post> ranking) {
+		return IntStream.range(0, posts.length).boxed()
+			.sorted((row1, row2) -> ranking.compare(posts[row1], posts[row2]))
+			.mapToInt(Integer::intValue).toArray();
+	}
+
+	// Bytes taken by each section of a file of 'count' posts, except the variable-length STRINGS.
+	private static long[] sectionSizes(int count) {
+		return new long[] {4L * count, 4L * count, 4L * count, 8L * count, 4L * count, 4L * count,
+			8L * count, 4L * count, 4L * count, 0};
+	}
+
+	private static long align(long offset) {
+		return (offset + 7) & ~7L;
+	}
+
+	// Pads the output from the end of the section before 'section' up to its start.
+	private static void pad(DataOutputStream out, long[] offsets, long[] sizes, int section) throws IOException {
+		for (long i = offsets[section - 1] + sizes[section - 1]; i < offsets[section]; i++) {
+			out.writeByte(0);
+		}
+	}
+
+	// UTF-8 bytes of 'value', or null for null. Unpaired surrogates become '?', as in getBytes.
+	private static byte[] encode(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int stringPosition(byte[] value, long position) throws IOException {
+		if (value == null) {
+			return NULL_STRING;
+		}
+		if (position > Integer.MAX_VALUE) {
+			throw new IOException("Post strings exceed 2 GB");
+		}
+		return (int) position;
+	}
+
+	private static long stringBytes(byte[] value) {
+		return value == null ? 0 : 4 + value.length;
+	}
+
+	private static void writeString(DataOutputStream out, byte[] value) throws IOException {
+		if (value != null) {
+			out.writeInt(value.length);
+			out.write(value);
+		}
+	}
+
+	// Converts a CSV in the layout read by CsvLoader to the binary format. Rows that cannot be
+	// imported are skipped and reported as by CsvLoader.
+	public static LoadReport convertCSV(File csv, File file) throws IOException {
+		Database db = new Database();
+		LoadReport report = new CsvLoader().load(csv, db);
+
+		write(file, db.stream().collect(Collectors.toList()));
+		return report;
+	}
+
+	// Converts a binary post file back to a CSV that CsvLoader can read.
+	public static void convertToCSV(File file, File csv) throws IOException {
+		PostFile posts = open(file);
+
+		try (Writer out = new BufferedWriter(Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8), 1 << 16)) {
+			out.write(CSV_HEADER);
+			out.write('\n');
+			for (int row = 0; row < posts.count; row++) {
+				out.write(posts.post(row).convertToCSV());
+				out.write('\n');
+			}
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package smanalyzer.java.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Append-only log of changes to a store, one file per generation ("posts-<generation>.log").
+// Each record is framed as [payload length][CRC32 of payload][payload] so a record torn by a
+// crash is detected and dropped on replay.
+//
+// Appends only copy the record into a buffer. Durability uses group commit: the first caller to
+// wait writes and forces everything buffered so far, including other threads' records, and
+// the callers queued behind it usually find their record already on disk.
+//
+// A failed write may have left part of a batch in the file, so it cannot simply be retried.
+// The journal is then failed for good: the batch stays buffered and every later wait for
+// durability throws, rather than reporting changes durable that never reached the disk.
+final class PostJournal implements Closeable {
+
+	static final byte PUT = 1;
+	static final byte DELETE = 2;
+	static final byte LIKES = 3;
+	static final byte SHARES = 4;
+
+	private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+	private final File directory;
+	private FileChannel channel;
+	private long generation;
+
+	// Records appended but not yet written, guarded by 'this'.
+	private final ByteArrayOutputStream pending;
+	private final ByteArrayOutputStream record;
+	private final DataOutputStream recordOut;
+	private final CRC32 crc;
+	private long appended;
+
+	// Highest sequence number known to be on disk, and the error that failed the journal if
+	// one has, guarded by flushLock.
+	private final Object flushLock;
+	private long durable;
+	private IOException failure;
+
+	PostJournal(File directory, long generation) throws IOException {
+		this.directory = directory;
+		this.pending = new ByteArrayOutputStream(1 << 16);
+		this.record = new ByteArrayOutputStream(256);
+		this.recordOut = new DataOutputStream(record);
+		this.crc = new CRC32();
+		this.flushLock = new Object();
+		open(generation);
+	}
+
+	static File logFile(File directory, long generation) {
+		return new File(directory, "posts-" + generation + ".log");
+	}
+
+	long getGeneration() {
+		return generation;
+	}
+
+	// Buffers a record and returns its sequence number for awaitDurable.
+	synchronized long appendPut(Post post) {
+		try {
+			startRecord(PUT);
+			PostCodec.write(recordOut, post);
+			return finishRecord();
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // in-memory streams do not fail
+		}
+	}
+
+	synchronized long appendDelete(int ID) {
+		try {
+			startRecord(DELETE);
+			recordOut.writeInt(ID);
+			return finishRecord();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	synchronized long appendIncrement(byte type, int ID, int delta) {
+		try {
+			startRecord(type);
+			recordOut.writeInt(ID);
+			recordOut.writeInt(delta);
+			return finishRecord();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void startRecord(byte type) throws IOException {
+		record.reset();
+		recordOut.writeByte(type);
+	}
+
+	private long finishRecord() throws IOException {
+		crc.reset();
+		crc.update(record.toByteArray());
+
+		DataOutputStream pendingOut = new DataOutputStream(pending);
+		pendingOut.writeInt(record.size());
+		pendingOut.writeInt((int) crc.getValue());
+		record.writeTo(pending);
+		return ++appended;
+	}
+
+	// Returns once the record of sequence number 'sequence' is on disk. Throws if it is not
+	// and cannot be, because this or an earlier write failed.
+	void awaitDurable(long sequence) throws IOException {
+		synchronized (flushLock) {
+			if (durable >= sequence) {
+				return;
+			}
+			flush();
+		}
+	}
+
+	// Writes and forces every buffered record. The records stay buffered until the write has
+	// succeeded. Caller holds flushLock.
+	private void flush() throws IOException {
+		if (failure != null) {
+			throw new IOException("Journal failed earlier, changes since are not durable: " + failure.getMessage(), failure);
+		}
+		byte[] batch;
+		long upTo;
+
+		synchronized (this) {
+			batch = pending.toByteArray();
+			upTo = appended;
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(batch);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			failure = e;
+			throw e;
+		}
+
+		// Other threads may have appended while this batch was written; keep their records.
+		synchronized (this) {
+			if (pending.size() == batch.length) {
+				pending.reset();
+			} else {
+				byte[] rest = pending.toByteArray();
+				pending.reset();
+				pending.write(rest, batch.length, rest.length - batch.length);
+			}
+		}
+		durable = upTo;
+	}
+
+	// Makes everything appended so far durable and starts a new log file. Records appended
+	// afterwards belong to the new generation. The caller must stop appends while rotating.
+	void rotate(long nextGeneration) throws IOException {
+		synchronized (flushLock) {
+			flush();
+			channel.close();
+			open(nextGeneration);
+		}
+	}
+
+	private void open(long nextGeneration) throws IOException {
+		this.generation = nextGeneration;
+		this.channel = FileChannel.open(logFile(directory, nextGeneration).toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (flushLock) {
+			flush();
+			channel.close();
+		}
+	}
+
+	// Applies every intact record of 'log' to 'store' and cuts off a torn or corrupt tail.
+	// Returns the number of records applied.
+	static long replay(File log, PostStore store) throws IOException {
+		long applied = 0;
+		long validLength = 0;
+
+		try (InputStream in = new BufferedInputStream(new FileInputStream(log), 1 << 16)) {
+			DataInputStream data = new DataInputStream(in);
+			CRC32 crc = new CRC32();
+
+			while (true) {
+				byte[] payload;
+				try {
+					int length = data.readInt();
+					int checksum = data.readInt();
+					if (length <= 0 || length > MAX_RECORD_BYTES) {
+						break;
+					}
+					payload = new byte[length];
+					data.readFully(payload);
+					crc.reset();
+					crc.update(payload);
+					if ((int) crc.getValue() != checksum) {
+						break;
+					}
+				} catch (EOFException e) {
+					break;
+				}
+
+				apply(payload, store);
+				applied++;
+				validLength += 8 + payload.length;
+			}
+		}
+
+		if (validLength < log.length()) {
+			try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.WRITE)) {
+				channel.truncate(validLength);
+			}
+		}
+		return applied;
+	}
+
+	// Replays one record. Changes that no longer apply, e.g. deleting a post already deleted
+	// before the snapshot was written, are skipped.
+	private static void apply(byte[] payload, PostStore store) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte type = in.readByte();
+
+		try {
+			switch (type) {
+			case PUT:
+				store.put(PostCodec.read(in));
+				break;
+			case DELETE:
+				store.delete(in.readInt());
+				break;
+			case LIKES:
+				store.incrementLikes(in.readInt(), in.readInt());
+				break;
+			case SHARES:
+				store.incrementShares(in.readInt(), in.readInt());
+				break;
+			default:
+				throw new IOException("Unknown journal record type: " + type);
+			}
+		} catch (PostAlreadyExistsException | PostNotExistException e) {
+			// Already reflected in the store.
+		}
+	}
+}
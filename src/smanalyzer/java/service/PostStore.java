@@ -0,0 +1,205 @@
+package smanalyzer.java.service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.AuthorStats;
+import smanalyzer.java.model.EngagementStats;
+import smanalyzer.java.model.Post;
+
+// The post collection as seen by Menu. Each storage engine implements this interface and is
+// picked at startup through Engine, so engines can be compared on the real code path.
+public interface PostStore {
+
+	// Intialise the store to either a CSV, a binary PostFile or the hard-coded default.
+	// Returns what was loaded, and for a CSV, what was skipped and why.
+	default LoadReport init(String type, File csv) throws FileNotFoundException {
+		if (type.equals("csv")) {
+			return new CsvLoader().load(csv, this);
+		} else if (type.equals("binary")) {
+			return PostFile.load(csv, this);
+		} else if (type.equals("default")) {
+			return DefaultPosts.generate(this);
+		}
+		return new LoadReport();
+	}
+
+	// Retrieve 1 post of given ID from the store.
+	Post get(int ID) throws PostNotExistException;
+
+	// Adds 1 post to the store. A post is considered to already exist in the store
+	// if it has the same ID, no other parameters are checked.
+	void put(Post post) throws PostAlreadyExistsException;
+
+	// Deletes 1 post of given ID from the store.
+	void delete(int ID) throws PostNotExistException;
+
+	// Retrieve 1 post of given ID, or an empty Optional if there is none. Engines answer a
+	// miss without creating an exception, so this is the lookup to use when misses are common.
+	default Optional<Post> find(int ID) {
+		try {
+			return Optional.of(get(ID));
+		} catch (PostNotExistException e) {
+			return Optional.empty();
+		}
+	}
+
+	// Adds 1 post unless a post of the same ID is already in the store. Returns whether it was
+	// added. Engines reject a duplicate without creating an exception.
+	default boolean putIfAbsent(Post post) {
+		try {
+			put(post);
+			return true;
+		} catch (PostAlreadyExistsException e) {
+			return false;
+		}
+	}
+
+	// Adds every post of 'batch' whose ID is not already in the store. Duplicates, including
+	// repeats within the batch, are marked as failed in the result instead of throwing.
+	default BatchResult putAll(List<Post> batch) {
+		BatchResult result = new BatchResult(batch.size());
+
+		for (int i = 0; i < batch.size(); i++) {
+			if (!putIfAbsent(batch.get(i))) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Deletes the posts of the given IDs. Missing IDs are marked as failed in the result.
+	default BatchResult deleteAll(int[] IDs) {
+		BatchResult result = new BatchResult(IDs.length);
+
+		for (int i = 0; i < IDs.length; i++) {
+			try {
+				delete(IDs[i]);
+			} catch (PostNotExistException e) {
+				result.fail(i);
+			}
+		}
+		return result;
+	}
+
+	// Retrieves the posts of the given IDs. Element i holds the post of IDs[i], or null if it
+	// does not exist.
+	default Post[] getAll(int[] IDs) {
+		Post[] found = new Post[IDs.length];
+
+		for (int i = 0; i < IDs.length; i++) {
+			found[i] = find(IDs[i]).orElse(null);
+		}
+		return found;
+	}
+
+	// Records 'delta' new likes on the post of given ID and returns its new number of likes.
+	// Rankings reflect the change immediately.
+	int incrementLikes(int ID, int delta) throws PostNotExistException;
+
+	// Records 'delta' new shares on the post of given ID and returns its new number of shares.
+	int incrementShares(int ID, int delta) throws PostNotExistException;
+
+	// Returns list of size 'count' containing posts sorted in descending order on number of
+	// "likes" or "shares". Any other query returns 'count' posts in no particular order.
+	List<Post> getMulti(String query, int count);
+
+	// getMulti for an arbitrary ranking, best post first.
+	List<Post> getMulti(Comparator<? super Post> ranking, int count);
+
+	// Returns every post dated in [from, to), oldest first. This default scans the whole store;
+	// engines with a date-time index answer from the matching range only.
+	default List<Post> getBetween(LocalDateTime from, LocalDateTime to) {
+		return stream().filter(post -> isBetween(post, from, to))
+			.sorted(Database.SORT_ON_DATE_TIME).collect(Collectors.toList());
+	}
+
+	// getMulti restricted to the posts dated in [from, to). Queries other than "likes" and
+	// "shares" return the oldest 'count' posts in the range.
+	default List<Post> getMultiBetween(String query, LocalDateTime from, LocalDateTime to, int count) {
+		Comparator<Post> ranking = Database.ranking(query);
+
+		if (ranking == null) {
+			return getBetween(from, to).stream().limit(Math.max(0, count)).collect(Collectors.toList());
+		}
+		return TopN.select(stream().filter(post -> isBetween(post, from, to))::iterator, ranking, count);
+	}
+
+	// Returns 'count' posts whose content contains every word of 'keywords', or any of them if
+	// not 'matchAll', sorted as getMulti sorts on 'query'. Words are matched whole and ignoring
+	// case. This default scans the whole store; engines with a content index look up the words.
+	default List<Post> search(String keywords, boolean matchAll, String query, int count) {
+		Comparator<Post> ranking = Database.ranking(query);
+		Stream<Post> matching = stream().filter(post -> ContentIndex.matches(post.getContent(), keywords, matchAll));
+
+		if (ranking == null) {
+			return matching.limit(Math.max(0, count)).collect(Collectors.toList());
+		}
+		return TopN.select(matching::iterator, ranking, count);
+	}
+
+	// Returns every post by 'author', which may be null. This default scans the whole store;
+	// engines with an author index answer from the author's posts only.
+	default List<Post> getByAuthor(String author) {
+		return stream().filter(post -> Objects.equals(post.getAuthor(), author)).collect(Collectors.toList());
+	}
+
+	// Returns the number of posts and total likes and shares of 'author', all zero if the
+	// author has no posts.
+	default AuthorStats getAuthorStats(String author) {
+		AuthorStats stats = AuthorStats.none(author);
+
+		for (Post post : getByAuthor(author)) {
+			stats = stats.plus(post);
+		}
+		return stats;
+	}
+
+	// Returns 'count' authors sorted in descending order on total "likes", total "shares" or
+	// number of "posts", ties broken on author.
+	default List<AuthorStats> getTopAuthors(String query, int count) {
+		Map<String, AuthorStats> authors = new HashMap<String, AuthorStats>();
+
+		stream().forEach(post -> authors.compute(post.getAuthor(),
+			(author, stats) -> (stats == null ? AuthorStats.none(author) : stats).plus(post)));
+		return TopN.select(authors.values(), Database.authorRanking(query), count);
+	}
+
+	// Returns the mean, variance and percentiles of likes and shares over every post, and the
+	// number of posts per hour of the day and day of the week. This default aggregates the
+	// whole store on each call; engines that keep the statistics up to date answer in O(1).
+	default EngagementStats getEngagementStats() {
+		EngagementAggregator aggregator = new EngagementAggregator();
+
+		stream().forEach(aggregator::add);
+		return aggregator.snapshot();
+	}
+
+	// Runs 'query' over every post and returns its results. Stores of more than a few thousand
+	// posts are scanned in parallel on the common fork-join pool; as for stream, engines that
+	// are not thread-safe must not be changed while a query runs.
+	default <R> List<R> query(Query<R> query) {
+		return query.run(stream(), size());
+	}
+
+	private static boolean isBetween(Post post, LocalDateTime from, LocalDateTime to) {
+		return !post.getDateTime().isBefore(from) && post.getDateTime().isBefore(to);
+	}
+
+	// Returns the size of the store.
+	int size();
+
+	// Streams every post in no particular order. Engines that are not thread-safe must not be
+	// changed while the stream is consumed.
+	Stream<Post> stream();
+}
@@ -0,0 +1,92 @@
+package smanalyzer.java.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import smanalyzer.java.model.Post;
+
+// An ad-hoc query for anything the indexes cannot answer: a filter, an optional ranking and
+// limit, and a projection of each resulting post. Queries are never changed; each method
+// returns a new query, so a query can be built up in steps and reused. For example, the ten
+// most-liked long posts by ID:
+//
+//     Query.all().where(post -> post.getContent().length() > 200)
+//         .orderBy(Comparator.comparingInt(Post::getLikes).reversed()).limit(10).select(Post::getID)
+//
+// Run a query with PostStore.query. Large stores are scanned in parallel, with each worker
+// keeping its own top-N before the partial results are merged, so the filter and projection
+// must be safe to call from several threads at once.
+public final class Query<R> {
+
+	// Stores smaller than this are scanned on the calling thread, where splitting the work
+	// would cost more than it saves.
+	static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	private final Predicate<? super Post> filter;
+	private final Comparator<? super Post> ranking; // null for no particular order
+	private final int limit; // negative for no limit
+	private final Function<? super Post, ? extends R> projection;
+
+	private Query(Predicate<? super Post> filter, Comparator<? super Post> ranking, int limit,
+			Function<? super Post, ? extends R> projection) {
+		this.filter = filter;
+		this.ranking = ranking;
+		this.limit = limit;
+		this.projection = projection;
+	}
+
+	// Every post, in no particular order.
+	public static Query<Post> all() {
+		return new Query<Post>(post -> true, null, -1, post -> post);
+	}
+
+	// Returns this query restricted to the posts that also match 'predicate'.
+	public Query<R> where(Predicate<? super Post> predicate) {
+		Objects.requireNonNull(predicate);
+		Predicate<? super Post> current = filter;
+
+		return new Query<R>(post -> current.test(post) && predicate.test(post), ranking, limit, projection);
+	}
+
+	// Returns this query with its results sorted best first by 'ranking'.
+	public Query<R> orderBy(Comparator<? super Post> ranking) {
+		return new Query<R>(filter, Objects.requireNonNull(ranking), limit, projection);
+	}
+
+	// Returns this query with at most 'count' results: the first 'count' under the ranking,
+	// or any 'count' if there is none.
+	public Query<R> limit(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Limit cannot be negative.");
+		}
+		return new Query<R>(filter, ranking, count, projection);
+	}
+
+	// Returns this query with each resulting post mapped by 'projection', in place of any
+	// earlier projection. Projections are applied after the ranking and limit, so only to the
+	// posts returned.
+	public <S> Query<S> select(Function<? super Post, ? extends S> projection) {
+		return new Query<S>(filter, ranking, limit, Objects.requireNonNull(projection));
+	}
+
+	// Runs the query over 'posts', a stream of 'size' posts, in parallel if there are enough.
+	List<R> run(Stream<Post> posts, int size) {
+		Stream<Post> matching = (size >= PARALLEL_THRESHOLD ? posts.parallel() : posts.sequential()).filter(filter);
+
+		if (ranking != null && limit >= 0) {
+			List<Post> top = matching.collect(TopN.collector(ranking, limit));
+			return top.stream().map(projection).collect(Collectors.toList());
+		}
+		if (ranking != null) {
+			matching = matching.sorted(ranking);
+		} else if (limit >= 0) {
+			matching = matching.unordered().limit(limit);
+		}
+		return matching.map(projection).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,212 @@
+package smanalyzer.java.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+
+// Runs commands read from a file or pipe instead of the interactive Menu, for automated
+// workloads. There is one command per line:
+//
+//     add <ID>,<content>,<author>,<likes>,<shares>,<DD/MM/YYYY HH:MM>
+//     delete <ID>
+//     get <ID>
+//     top likes|shares <N>
+//
+// The row of an add may quote its content and author as in a CSV file, e.g. to include a comma:
+//
+//     add 7,"Hello, world",author,0,0,01/01/2024 12:00
+//
+// Blank lines and lines starting with '#' are skipped. Every other line gets one answer, in
+// order: "OK", or "OK <n>" followed by n posts as CSV rows for get and top, or
+// "ERROR line <number>: <reason>". A failed command does not stop the script.
+//
+// Runs of adds are put as one batch, and answers are only flushed when the input has nothing
+// more buffered, so a file is processed in large writes while a program feeding commands
+// through a pipe still gets each answer as soon as it stops to wait for one.
+public class ScriptRunner {
+
+	static final int BATCH_SIZE = 1024;
+
+	private final PostStore db;
+	private final Writer out;
+
+	// Add lines waiting to be put, in order.
+	private final List<PendingAdd> pendingAdds;
+
+	private long commands;
+	private long failures;
+
+	// Writes answers to 'out', which should be buffered; the runner only flushes it.
+	public ScriptRunner(PostStore db, Writer out) {
+		this.db = db;
+		this.out = out;
+		this.pendingAdds = new ArrayList<PendingAdd>(BATCH_SIZE);
+	}
+
+	// Runs every command of 'in' until it ends. Returns the number of commands that failed.
+	public long run(BufferedReader in) throws IOException {
+		String line;
+		int lineNumber = 0;
+
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			if (!line.isBlank() && !line.startsWith("#")) {
+				execute(line.strip(), lineNumber);
+			}
+			if (!in.ready()) {
+				flush();
+			}
+		}
+		flush();
+		return failures;
+	}
+
+	// Number of commands run so far, excluding blank and comment lines.
+	public long getCommands() {
+		return commands;
+	}
+
+	private void execute(String line, int lineNumber) throws IOException {
+		int space = line.indexOf(' ');
+		String command = space < 0 ? line : line.substring(0, space);
+		String argument = space < 0 ? "" : line.substring(space + 1).strip();
+
+		commands++;
+		if (command.equals("add")) {
+			queueAdd(argument, lineNumber);
+			return;
+		}
+		putPending();
+
+		try {
+			switch (command) {
+			case "delete":
+				db.delete(parseNumber(argument, "ID"));
+				out.write("OK\n");
+				break;
+			case "get":
+				int ID = parseNumber(argument, "ID");
+				Post post = db.find(ID).orElse(null);
+				if (post == null) {
+					fail(lineNumber, PostNotExistException.message(ID));
+				} else {
+					out.write("OK 1\n");
+					writePost(post);
+				}
+				break;
+			case "top":
+				top(argument);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown command: " + command);
+			}
+		} catch (PostNotExistException | IllegalArgumentException e) {
+			fail(lineNumber, e.getMessage());
+		}
+	}
+
+	// Answers "top <ranking> <N>".
+	private void top(String argument) throws IOException {
+		int space = argument.indexOf(' ');
+		String query = space < 0 ? argument : argument.substring(0, space);
+		int count = parseNumber(space < 0 ? "" : argument.substring(space + 1).strip(), "count");
+
+		if (count < 0) {
+			throw new IllegalArgumentException("Count cannot be negative: " + count);
+		}
+		if (Database.ranking(query) == null) {
+			throw new IllegalArgumentException("Unknown ranking: " + query + ". Use likes or shares.");
+		}
+		List<Post> topPosts = db.getMulti(query, count);
+
+		out.write("OK ");
+		out.write(Integer.toString(topPosts.size()));
+		out.write('\n');
+		for (Post post : topPosts) {
+			writePost(post);
+		}
+	}
+
+	private void queueAdd(String row, int lineNumber) throws IOException {
+		try {
+			pendingAdds.add(new PendingAdd(lineNumber, Post.convertFromCSV(row), null));
+		} catch (InvalidPostException e) {
+			pendingAdds.add(new PendingAdd(lineNumber, null, e.getMessage()));
+		}
+
+		if (pendingAdds.size() >= BATCH_SIZE) {
+			putPending();
+		}
+	}
+
+	// Puts the queued adds as one batch and answers each of them.
+	private void putPending() throws IOException {
+		if (pendingAdds.isEmpty()) {
+			return;
+		}
+		List<Post> posts = new ArrayList<Post>(pendingAdds.size());
+		for (PendingAdd add : pendingAdds) {
+			if (add.post != null) {
+				posts.add(add.post);
+			}
+		}
+		BatchResult result = db.putAll(posts);
+		int next = 0;
+
+		for (PendingAdd add : pendingAdds) {
+			if (add.post == null) {
+				fail(add.lineNumber, add.error);
+			} else if (!result.isSuccess(next++)) {
+				fail(add.lineNumber, PostAlreadyExistsException.message(add.post.getID()));
+			} else {
+				out.write("OK\n");
+			}
+		}
+		pendingAdds.clear();
+	}
+
+	// An add line waiting to be put: its post, or why it could not be parsed.
+	private static class PendingAdd {
+		final int lineNumber;
+		final Post post;
+		final String error;
+
+		PendingAdd(int lineNumber, Post post, String error) {
+			this.lineNumber = lineNumber;
+			this.post = post;
+			this.error = error;
+		}
+	}
+
+	private void flush() throws IOException {
+		putPending();
+		out.flush();
+	}
+
+	private void writePost(Post post) throws IOException {
+		out.write(post.convertToCSV());
+		out.write('\n');
+	}
+
+	private void fail(int lineNumber, String reason) throws IOException {
+		failures++;
+		out.write("ERROR line ");
+		out.write(Integer.toString(lineNumber));
+		out.write(": ");
+		out.write(reason);
+		out.write('\n');
+	}
+
+	private static int parseNumber(String value, String name) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + ": " + value);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package smanalyzer.java.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.model.OperationStats;
+
+// Counters and latency histograms for the operations of one store, kept by MeteredPostStore.
+// Recording never locks, so threads calling the store do not wait on each other to record.
+public class StoreMetrics implements StoreMetricsMXBean {
+
+	static final String OBJECT_NAME = "smanalyzer:type=StoreMetrics";
+
+	// The operations timed, each under the name of the PostStore method.
+	public enum Operation {
+		GET("get"), FIND("find"), PUT("put"), PUT_IF_ABSENT("putIfAbsent"), DELETE("delete"),
+		PUT_ALL("putAll"), DELETE_ALL("deleteAll"), GET_ALL("getAll"), INCREMENT("increment"),
+		GET_MULTI("getMulti"), GET_BETWEEN("getBetween"), SEARCH("search"), BY_AUTHOR("getByAuthor"),
+		QUERY("query");
+
+		private final String method;
+
+		Operation(String method) {
+			this.method = method;
+		}
+
+		@Override
+		public String toString() {
+			return method;
+		}
+	}
+
+	private final PostStore store;
+	// Indexed by Operation.ordinal(), which is cheaper on every call than an EnumMap lookup.
+	private final LatencyHistogram[] latencies;
+	private final LongAdder[] failures;
+	private volatile LoadReport ingest;
+
+	StoreMetrics(PostStore store) {
+		this.store = store;
+		this.latencies = new LatencyHistogram[Operation.values().length];
+		this.failures = new LongAdder[Operation.values().length];
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = new LatencyHistogram();
+			failures[i] = new LongAdder();
+		}
+	}
+
+	// Records one call of 'operation' that started at System.nanoTime() 'start'.
+	void record(Operation operation, long start) {
+		latencies[operation.ordinal()].record(System.nanoTime() - start);
+	}
+
+	void recordFailure(Operation operation) {
+		failures[operation.ordinal()].increment();
+	}
+
+	void recordIngest(LoadReport report) {
+		this.ingest = report;
+	}
+
+	// Statistics of 'operation', called or not.
+	public OperationStats getOperation(Operation operation) {
+		LatencyHistogram latency = latencies[operation.ordinal()];
+
+		return new OperationStats(operation.toString(), latency.getCount(), failures[operation.ordinal()].sum(),
+			latency.getMeanNanos(), latency.percentile(0.50), latency.percentile(0.99), latency.getMaxNanos());
+	}
+
+	@Override
+	public List<OperationStats> getOperations() {
+		List<OperationStats> operations = new ArrayList<OperationStats>();
+		for (Operation operation : Operation.values()) {
+			if (latencies[operation.ordinal()].getCount() > 0) {
+				operations.add(getOperation(operation));
+			}
+		}
+		return operations;
+	}
+
+	@Override
+	public int getPosts() {
+		return store.size();
+	}
+
+	// The report of the last bulk import, or null if there was none.
+	public LoadReport getIngest() {
+		return ingest;
+	}
+
+	@Override
+	public long getIngestRows() {
+		LoadReport report = ingest;
+		return report == null ? 0 : report.getRows();
+	}
+
+	@Override
+	public double getIngestRowsPerSecond() {
+		LoadReport report = ingest;
+		return report == null ? 0 : report.getRowsPerSecond();
+	}
+
+	@Override
+	public Map<String, Long> getRejectedRows() {
+		Map<String, Long> rejected = new TreeMap<String, Long>();
+		LoadReport report = ingest;
+
+		for (InvalidPostException.Reason reason : InvalidPostException.Reason.values()) {
+			rejected.put(reason.name(), report == null ? 0 : report.getInvalid(reason));
+		}
+		return rejected;
+	}
+
+	// An estimate only: everything else on the heap is counted as well, and until the first
+	// collection the current usage is used, garbage included.
+	@Override
+	public long getHeapBytesPerPost() {
+		int posts = store.size();
+		if (posts == 0) {
+			return 0;
+		}
+		long used = 0;
+
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				MemoryUsage usage = pool.getCollectionUsage();
+				if (usage == null || usage.getUsed() == 0) {
+					usage = pool.getUsage();
+				}
+				used += usage.getUsed();
+			}
+		}
+		return used / posts;
+	}
+
+	// Registers these metrics with the platform MBean server, replacing any registered before.
+	public void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(this, name);
+	}
+
+	// Formats the metrics as a table of operations followed by the ingest and memory figures.
+	public String formatMetrics() {
+		StringBuilder metrics = new StringBuilder();
+		List<OperationStats> operations = getOperations();
+
+		metrics.append(String.format("%-14s %10s %9s %11s %10s %10s %10s\n", "Operation", "Calls", "Failures",
+			"Mean (us)", "p50 (us)", "p99 (us)", "Max (us)"));
+		for (OperationStats operation : operations) {
+			metrics.append(operation.formatStats()).append('\n');
+		}
+		if (operations.isEmpty()) {
+			metrics.append("No operations yet.\n");
+		}
+
+		LoadReport report = ingest;
+		if (report != null) {
+			metrics.append(String.format("Ingest: %d rows at %.0f rows/s, %.1fx string dedup\n", report.getRows(),
+				report.getRowsPerSecond(), report.getDedupRatio()));
+			metrics.append("Rejected:");
+			for (Map.Entry<String, Long> rejected : getRejectedRows().entrySet()) {
+				metrics.append(String.format(" %s %d", rejected.getKey(), rejected.getValue()));
+			}
+			metrics.append('\n');
+		}
+		metrics.append(String.format("Posts: %d | Heap: ~%d bytes per post", getPosts(), getHeapBytesPerPost()));
+		return metrics.toString();
+	}
+}
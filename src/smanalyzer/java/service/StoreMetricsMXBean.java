@@ -0,0 +1,26 @@
+package smanalyzer.java.service;
+
+import java.util.List;
+import java.util.Map;
+
+import smanalyzer.java.model.OperationStats;
+
+// What StoreMetrics shows over JMX, for example in JConsole under "smanalyzer".
+public interface StoreMetricsMXBean {
+
+	// Statistics of every operation called at least once.
+	List<OperationStats> getOperations();
+
+	int getPosts();
+
+	// Rows read by the last bulk import, and how fast.
+	long getIngestRows();
+
+	double getIngestRowsPerSecond();
+
+	// Rows the last bulk import skipped as invalid, by InvalidPostException.Reason.
+	Map<String, Long> getRejectedRows();
+
+	// Heap in use after the last garbage collection divided by the number of posts.
+	long getHeapBytesPerPost();
+}
@@ -0,0 +1,139 @@
+package smanalyzer.java.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Canonical instances of the strings read during one import, so every post by the same author
+// shares one author String instead of each holding its own copy. The pool only lives as long
+// as the import; the posts keep the shared strings, not the pool.
+//
+// Each parsing thread looks strings up through a Local of its own, which finds a string it has
+// seen before by its UTF-8 bytes alone, so a repeated author costs a hash and a compare with no
+// decoding and no garbage. Only strings new to that Local reach the shared map. Locals are
+// handed back when a thread is done with them and reused, so what one chunk of a file learnt
+// serves the next.
+final class StringPool {
+
+	private final ConcurrentHashMap<String, String> canonical;
+	private final LongAdder requests;
+	private final ConcurrentLinkedQueue<Local> idle;
+
+	StringPool() {
+		this.canonical = new ConcurrentHashMap<String, String>();
+		this.requests = new LongAdder();
+		this.idle = new ConcurrentLinkedQueue<Local>();
+	}
+
+	// A front of this pool for one thread at a time, until it is released.
+	Local acquire() {
+		Local local = idle.poll();
+		return local == null ? new Local() : local;
+	}
+
+	void release(Local local) {
+		requests.add(local.requests);
+		local.requests = 0;
+		idle.add(local);
+	}
+
+	// Number of strings looked up through released Locals, and the number of distinct strings
+	// among them.
+	long getRequests() {
+		return requests.sum();
+	}
+
+	int getDistinct() {
+		return canonical.size();
+	}
+
+	// A get first, as putIfAbsent locks even when the string is already there.
+	private String intern(String value) {
+		String existing = canonical.get(value);
+		if (existing == null) {
+			existing = canonical.putIfAbsent(value, value);
+		}
+		return existing == null ? value : existing;
+	}
+
+	// Open-addressed table from bytes to canonical strings, kept at most half full. It grows
+	// up to MAX_CAPACITY slots and then stops taking new entries, so mostly unique text such
+	// as post content cannot grow it without bound; strings missing from a full table are
+	// still interned through the shared map.
+	final class Local {
+
+		static final int INITIAL_CAPACITY = 1 << 10;
+		static final int MAX_CAPACITY = 1 << 17;
+
+		private byte[][] keys;
+		private String[] values;
+		private int[] hashes;
+		private int size;
+		private long requests;
+
+		private Local() {
+			this.keys = new byte[INITIAL_CAPACITY][];
+			this.values = new String[INITIAL_CAPACITY];
+			this.hashes = new int[INITIAL_CAPACITY];
+		}
+
+		// Returns the canonical string of the UTF-8 bytes in [start, end).
+		String get(byte[] bytes, int start, int end) {
+			requests++;
+			int hash = hash(bytes, start, end);
+			int mask = keys.length - 1;
+
+			for (int i = hash & mask; ; i = (i + 1) & mask) {
+				byte[] key = keys[i];
+				if (key == null) {
+					String value = intern(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+					if (size < keys.length / 2) {
+						keys[i] = Arrays.copyOfRange(bytes, start, end);
+						values[i] = value;
+						hashes[i] = hash;
+						size++;
+						if (size == keys.length / 2 && keys.length < MAX_CAPACITY) {
+							grow();
+						}
+					}
+					return value;
+				}
+				if (hashes[i] == hash && Arrays.equals(key, 0, key.length, bytes, start, end)) {
+					return values[i];
+				}
+			}
+		}
+
+		private void grow() {
+			byte[][] oldKeys = keys;
+			String[] oldValues = values;
+			int[] oldHashes = hashes;
+			int mask = oldKeys.length * 2 - 1;
+
+			keys = new byte[oldKeys.length * 2][];
+			values = new String[oldKeys.length * 2];
+			hashes = new int[oldKeys.length * 2];
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldKeys[j] != null) {
+					int i = oldHashes[j] & mask;
+					while (keys[i] != null) {
+						i = (i + 1) & mask;
+					}
+					keys[i] = oldKeys[j];
+					values[i] = oldValues[j];
+					hashes[i] = oldHashes[j];
+				}
+			}
+		}
+
+		private int hash(byte[] bytes, int start, int end) {
+			int hash = 1;
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + bytes[i];
+			}
+			return hash ^ (hash >>> 16);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package smanalyzer.java.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+// Partial selection of the first 'count' posts (or authors) under a ranking, used whenever a
+// ranking has no dedicated index. Only a bounded heap of 'count' items is kept, so a top-N
+// query costs O(n log count) with no copy of the whole collection.
+public final class TopN {
+
+	private TopN() {
+	}
+
+	// Returns the first 'count' posts of 'posts' in the order given by 'ranking'. The result
+	// is a new list owned by the caller, never a view.
+	public static <T> List<T> select(Iterable<? extends T> posts, Comparator<? super T> ranking, int count) {
+		Heap<T> heap = new Heap<T>(ranking, count);
+		Iterator<? extends T> iterator = posts.iterator();
+
+		while (iterator.hasNext()) {
+			heap.offer(iterator.next());
+		}
+		return heap.toList();
+	}
+
+	// select as a Collector. A parallel stream keeps one heap per partition and merges them
+	// pairwise, so each worker only ever holds 'count' posts and the merge costs O(count log count).
+	public static <T> Collector<T, ?, List<T>> collector(Comparator<? super T> ranking, int count) {
+		return Collector.of(() -> new Heap<T>(ranking, count), Heap::offer, Heap::merge, Heap::toList,
+			Collector.Characteristics.UNORDERED);
+	}
+
+	private static final class Heap<T> {
+
+		private final Comparator<? super T> ranking;
+		private final int count;
+		private final PriorityQueue<T> heap;
+
+		Heap(Comparator<? super T> ranking, int count) {
+			this.ranking = ranking;
+			this.count = count;
+			// The heap is ordered worst-first so the current Nth post can be evicted in O(log count).
+			this.heap = new PriorityQueue<T>(Math.max(1, Math.min(count, 1024)), (p1, p2) -> ranking.compare(p2, p1));
+		}
+
+		void offer(T post) {
+			if (heap.size() < count) {
+				heap.offer(post);
+			} else if (count > 0 && ranking.compare(post, heap.peek()) < 0) {
+				heap.poll();
+				heap.offer(post);
+			}
+		}
+
+		Heap<T> merge(Heap<T> other) {
+			Heap<T> larger = heap.size() >= other.heap.size() ? this : other;
+			Heap<T> smaller = larger == this ? other : this;
+
+			for (T post : smaller.heap) {
+				larger.offer(post);
+			}
+			return larger;
+		}
+
+		List<T> toList() {
+			List<T> topPosts = new ArrayList<T>(heap.size());
+			while (!heap.isEmpty()) {
+				topPosts.add(heap.poll());
+			}
+			Collections.reverse(topPosts);
+			return topPosts;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.CachingPostStore;
+import smanalyzer.java.service.ColumnarDatabase;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.PostStore;
+
+public class CachingPostStoreTest {
+
+    CachingPostStore db;
+
+    @Before
+    public void setUp() throws InvalidPostException, PostAlreadyExistsException {
+        db = new CachingPostStore(new Database());
+        for (int ID = 1; ID <= 10; ID++) {
+            db.put(createPost(ID, ID * 10, 100 - ID));
+        }
+    }
+
+    @Test
+    public void GetMulti_Success_Hit() {
+        List<Post> first = db.getMulti("likes", 3);
+        List<Post> second = db.getMulti("likes", 3);
+
+        assertEquals("Cached answer should match", first, second);
+        assertEquals("First query should miss", 1, db.getMisses());
+        assertEquals("Second query should hit", 1, db.getHits());
+    }
+
+    @Test
+    public void GetMulti_Success_KeyedOnRankingAndCount() {
+        db.getMulti("likes", 3);
+        db.getMulti("likes", 5);
+        db.getMulti("shares", 3);
+        db.getMulti("other", 3);
+        db.getMulti("other", 3);
+
+        assertEquals("Each ranking and count should be cached apart", 3, db.getCachedAnswers());
+        assertEquals("Queries with no ranking should not be cached", 0, db.getHits());
+    }
+
+    @Test
+    public void Put_Success_LowPostKeepsAnswer() throws InvalidPostException, PostAlreadyExistsException {
+        db.getMulti("likes", 3);
+        db.put(createPost(11, 5, 0));
+
+        assertEquals("A post below the top 3 should not invalidate", 0, db.getInvalidations());
+        assertEquals("Answer should still be cached", Arrays.asList(10, 9, 8), ids(db.getMulti("likes", 3)));
+        assertEquals("Query should hit", 1, db.getHits());
+    }
+
+    @Test
+    public void Put_Success_HighPostInvalidates() throws InvalidPostException, PostAlreadyExistsException {
+        db.getMulti("likes", 3);
+        db.getMulti("shares", 3);
+        db.put(createPost(11, 1000, 0));
+
+        assertEquals("Only the likes answer should be dropped", 1, db.getInvalidations());
+        assertEquals("New post should rank first", Arrays.asList(11, 10, 9), ids(db.getMulti("likes", 3)));
+    }
+
+    @Test
+    public void Delete_Success_InvalidatesOnlyContaining() throws PostNotExistException {
+        db.getMulti("likes", 3);
+        db.delete(1);
+
+        assertEquals("Deleting a post outside the answer should not invalidate", 0, db.getInvalidations());
+
+        db.delete(10);
+        assertEquals("Deleting a post in the answer should invalidate", 1, db.getInvalidations());
+        assertEquals("Deleted post should be gone", Arrays.asList(9, 8, 7), ids(db.getMulti("likes", 3)));
+    }
+
+    @Test
+    public void Increment_Success_PostEntersAnswer() throws PostNotExistException {
+        db.getMulti("likes", 3);
+        db.incrementLikes(1, 1000);
+
+        assertEquals("Incremented post should rank first", Arrays.asList(1, 10, 9), ids(db.getMulti("likes", 3)));
+    }
+
+    @Test
+    public void GetMulti_Success_EvictsLeastRecentlyUsed() {
+        db = new CachingPostStore(db.getDelegate(), 8);
+        db.getMulti("likes", 4);
+        db.getMulti("shares", 4);
+        db.getMulti("likes", 4);
+        db.getMulti("likes", 2);
+
+        assertEquals("Capacity is in posts, so one answer should be evicted", 1, db.getEvictions());
+        assertEquals("Cached posts should stay within capacity", 6, db.getCachedPosts());
+        db.getMulti("likes", 4);
+        assertEquals("Recently used answer should be kept", 2, db.getHits());
+    }
+
+    @Test
+    public void GetMulti_Success_MatchesUncachedStore() throws InvalidPostException {
+        PostStore expected = new ColumnarDatabase();
+        CachingPostStore cached = new CachingPostStore(new Database(), 64);
+        Random random = new Random(7);
+
+        for (int step = 0; step < 5000; step++) {
+            int ID = random.nextInt(200);
+            switch (random.nextInt(5)) {
+            case 0:
+                Post post = createPost(ID, random.nextInt(1000), random.nextInt(1000));
+                assertEquals(expected.putIfAbsent(post), cached.putIfAbsent(post));
+                break;
+            case 1:
+                assertEquals(expected.deleteAll(new int[] {ID}).getSucceeded(), cached.deleteAll(new int[] {ID}).getSucceeded());
+                break;
+            case 2:
+                if (expected.find(ID).isPresent()) {
+                    try {
+                        expected.incrementShares(ID, 50);
+                        cached.incrementShares(ID, 50);
+                    } catch (PostNotExistException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+                break;
+            default:
+                String query = random.nextBoolean() ? "likes" : "shares";
+                int count = 1 + random.nextInt(20);
+                assertEquals("Answer at step " + step, ids(expected.getMulti(query, count)), ids(cached.getMulti(query, count)));
+            }
+        }
+        assertFalse("Some answers should come from the cache", cached.getHits() == 0);
+    }
+
+    private static List<Integer> ids(List<Post> posts) {
+        List<Integer> IDs = new ArrayList<Integer>();
+        for (Post post : posts) {
+            IDs.add(post.getID());
+        }
+        return IDs;
+    }
+
+    private static Post createPost(int ID, int likes, int shares) throws InvalidPostException {
+        return new Post(ID, "content", "author", likes, shares, "01/01/2000 12:00");
+    }
+}
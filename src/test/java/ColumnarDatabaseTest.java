@@ -0,0 +1,124 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.exception.PostAlreadyExistsException;
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.ColumnarDatabase;
+import smanalyzer.java.service.Database;
+
+public class ColumnarDatabaseTest {
+
+    ColumnarDatabase db;
+    Post post;
+
+    @Before
+    public void setUpDatabase() throws PostAlreadyExistsException, InvalidPostException {
+        db = new ColumnarDatabase();
+        post = new Post(1, "test content \u2713", "test author", 10, 10, "01/01/2000 12:00");
+
+        db.put(post);
+    }
+
+    @Test
+    public void Get_Success_RebuildsEqualPost() throws PostNotExistException {
+        assertEquals("Database should rebuild an equal post", post, db.get(post.getID()));
+    }
+
+    @Test
+    public void Get_Success_NullAuthor() throws PostNotExistException, PostAlreadyExistsException, InvalidPostException {
+        Post authorless = new Post(2, "", null, 0, 0, "29/02/1904 00:00");
+        db.put(authorless);
+
+        assertEquals("Null and empty strings should survive storage", authorless, db.get(2));
+    }
+
+    @Test
+    public void Delete_Success_MovesLastPost() throws PostNotExistException, PostAlreadyExistsException, InvalidPostException {
+        Post last = new Post(2, "last content", "last author", 20, 20, "02/02/2000 12:00");
+        db.put(last);
+        db.delete(post.getID());
+
+        assertEquals("Remaining post should still be found after being moved", last, db.get(2));
+        assertThrows("Deleted post should no longer exist", PostNotExistException.class, () -> db.get(post.getID()));
+    }
+
+    // Random puts and deletes, enough to force map resizing, probe-run shifting and arena compaction,
+    // should leave the engine answering exactly like the HashMap database.
+    @Test
+    public void RandomOperations_Success_MatchesDatabase() throws InvalidPostException, PostNotExistException {
+        Database reference = new Database();
+        db = new ColumnarDatabase();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            int ID = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                try {
+                    reference.delete(ID);
+                    db.delete(ID);
+                } catch (PostNotExistException e) {
+                    assertThrows("Both engines should agree on missing posts", PostNotExistException.class, () -> db.delete(ID));
+                }
+            } else {
+                Post next = new Post(ID, "content " + i + " " + "x".repeat(random.nextInt(40)), "author" + random.nextInt(50),
+                    random.nextInt(1000), random.nextInt(1000), "01/01/2000 12:00");
+                try {
+                    reference.put(next);
+                    db.put(next);
+                } catch (PostAlreadyExistsException e) {
+                    assertThrows("Both engines should agree on duplicates", PostAlreadyExistsException.class, () -> db.put(next));
+                }
+            }
+        }
+
+        assertEquals("Sizes should match", reference.size(), db.size());
+        for (int ID = 0; ID < 5_000; ID++) {
+            try {
+                assertEquals("Posts should match", reference.get(ID), db.get(ID));
+            } catch (PostNotExistException e) {
+                final int missing = ID;
+                assertThrows("Missing posts should match", PostNotExistException.class, () -> db.get(missing));
+            }
+        }
+        assertEquals("Top liked should match", reference.getMulti("likes", 50), db.getMulti("likes", 50));
+        assertEquals("Top shared should match", reference.getMulti("shares", 50), db.getMulti("shares", 50));
+    }
+
+    // Text larger than one arena segment, including one post larger than a segment on its own,
+    // should be stored and survive compaction across segments.
+    @Test
+    public void Put_Success_TextAcrossSegments() throws InvalidPostException, PostNotExistException {
+        db = new ColumnarDatabase();
+        int posts = 12;
+
+        for (int ID = 0; ID < posts; ID++) {
+            db.putIfAbsent(new Post(ID, content(ID, 4 << 20), "author" + ID, ID, ID, "01/01/2000 12:00"));
+        }
+        db.putIfAbsent(new Post(posts, content(posts, 17 << 20), "large", 0, 0, "01/01/2000 12:00"));
+        // Deleting three in four small posts leaves more garbage than live text, forcing compaction.
+        for (int ID = 0; ID < posts; ID++) {
+            if (ID % 4 != 3) {
+                db.delete(ID);
+            }
+        }
+
+        for (int ID = 3; ID < posts; ID += 4) {
+            assertEquals("Content should survive compaction", content(ID, 4 << 20), db.get(ID).getContent());
+            assertEquals("Author should survive compaction", "author" + ID, db.get(ID).getAuthor());
+        }
+        assertEquals("Text larger than a segment should be kept whole", content(posts, 17 << 20), db.get(posts).getContent());
+    }
+
+    private static String content(int ID, int length) {
+        return String.valueOf((char) ('a' + ID % 26)).repeat(length);
+    }
+}
@@ -0,0 +1,195 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.exception.PostAlreadyExistsException;
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.ConcurrentDatabase;
+
+// Stress tests for the concurrent engine. The contract itself is covered by DatabaseTest.
+public class ConcurrentDatabaseTest {
+
+    static int THREADS = 8;
+    static int POSTS = 5_000;
+
+    ConcurrentDatabase db;
+    ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        db = new ConcurrentDatabase();
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Every thread tries to insert every ID; exactly one insert per ID may succeed.
+    @Test
+    public void Put_Success_NoDuplicatesAccepted() throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            final int likes = thread;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int ID = 0; ID < POSTS; ID++) {
+                    try {
+                        db.put(post(ID, likes));
+                        accepted.incrementAndGet();
+                    } catch (PostAlreadyExistsException e) {
+                        // Another thread won this ID.
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        assertEquals("Exactly one insert per ID should be accepted", POSTS, accepted.get());
+        assertEquals("Database should hold every ID once", POSTS, db.size());
+        assertEquals("Likes index should hold every ID once", POSTS, db.getMulti("likes", Integer.MAX_VALUE).size());
+        assertEquals("Shares index should hold every ID once", POSTS, db.getMulti("shares", Integer.MAX_VALUE).size());
+    }
+
+    // Writers add and delete posts while readers rank them; no post may be lost and every
+    // ranking must be ordered and free of duplicates.
+    @Test
+    public void PutDelete_Success_ConcurrentReaders() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger badSnapshots = new AtomicInteger();
+        List<Future<?>> writers = new ArrayList<Future<?>>();
+        List<Future<?>> readers = new ArrayList<Future<?>>();
+
+        for (int thread = 0; thread < THREADS / 2; thread++) {
+            final int first = thread * POSTS;
+            writers.add(pool.submit(() -> {
+                for (int ID = first; ID < first + POSTS; ID++) {
+                    db.put(post(ID, ID % 997));
+                    if (ID % 2 == 0) {
+                        db.delete(ID);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int thread = 0; thread < THREADS / 2; thread++) {
+            readers.add(pool.submit(() -> {
+                while (writing.get()) {
+                    if (!isRanked(db.getMulti("likes", 100))) {
+                        badSnapshots.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+
+        int expected = (THREADS / 2) * POSTS / 2;
+        assertEquals("Every ranking should be ordered without duplicates", 0, badSnapshots.get());
+        assertEquals("No odd post should be lost", expected, db.size());
+        assertEquals("Index should match the collection", expected, db.getMulti("likes", Integer.MAX_VALUE).size());
+        for (int ID = 1; ID < (THREADS / 2) * POSTS; ID += 2) {
+            assertEquals("Odd posts should all be present", ID, db.get(ID).getID());
+        }
+    }
+
+    // Every thread likes every post many times; no increment may be lost and the ranking must
+    // agree with the final counts.
+    @Test
+    public void IncrementLikes_Success_NoLostUpdates() throws Exception {
+        final int posts = 50;
+        final int increments = 2_000;
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+
+        for (int ID = 0; ID < posts; ID++) {
+            db.put(post(ID, 0));
+        }
+        for (int thread = 0; thread < THREADS; thread++) {
+            workers.add(pool.submit(() -> {
+                for (int i = 0; i < increments; i++) {
+                    db.incrementLikes(i % posts, 1 + i % posts);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        for (int ID = 0; ID < posts; ID++) {
+            assertEquals("Every increment should be counted", THREADS * (increments / posts) * (1 + ID), db.get(ID).getLikes());
+        }
+        List<Post> ranked = db.getMulti("likes", Integer.MAX_VALUE);
+        assertEquals("Every post should be ranked once", posts, ranked.size());
+        assertEquals("Most liked post should rank first", posts - 1, ranked.get(0).getID());
+    }
+
+    @Test
+    public void Delete_Success_ThenPutAgain() throws Exception {
+        db.put(post(1, 10));
+        db.delete(1);
+        db.put(post(1, 20));
+
+        assertEquals("Re-added post should replace the deleted one", 20, db.get(1).getLikes());
+        assertEquals("Index should only hold the re-added post", 1, db.getMulti("likes", 10).size());
+    }
+
+    @Test(expected = PostNotExistException.class)
+    public void Delete_Fail_PostNotExist() throws PostNotExistException {
+        db.delete(1);
+    }
+
+    private static boolean isRanked(List<Post> posts) {
+        Set<Integer> seen = new HashSet<Integer>();
+        for (int i = 0; i < posts.size(); i++) {
+            if (!seen.add(posts.get(i).getID())) {
+                return false;
+            }
+            if (i > 0 && posts.get(i - 1).getLikes() < posts.get(i).getLikes()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Post post(int ID, int likes) {
+        try {
+            return new Post(ID, "content " + ID, "author", likes, likes, "01/01/2000 12:00");
+        } catch (InvalidPostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.service.CsvLoader;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.LoadReport;
+
+public class CsvLoaderTest {
+
+    static String HEADER = "ID,content,author,likes,shares,date-time\r\n";
+
+    Database db;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        db = new Database();
+    }
+
+    @Test
+    public void Load_Success_ManyChunks() throws IOException, PostNotExistException {
+        StringBuilder rows = new StringBuilder(HEADER);
+        for (int ID = 0; ID < 1000; ID++) {
+            rows.append(String.format("%d,content %d,author,%d,%d,01/01/2000 12:00\r\n", ID, ID, ID, ID * 2));
+        }
+
+        // A tiny chunk size forces rows to be split across many parallel chunks.
+        LoadReport report = new CsvLoader(4, 64).load(createCSV(rows.toString()), db);
+
+        assertEquals("Every row should be imported", 1000, report.getImported());
+        assertEquals("Database should contain every row", 1000, db.size());
+        assertEquals("Fields should be parsed from the right row", "content 500", db.get(500).getContent());
+        assertEquals("Numbers should be parsed from the right row", 1000, db.get(500).getShares());
+    }
+
+    @Test
+    public void Load_Success_SkipsInvalidAndDuplicateRows() throws IOException {
+        String rows = HEADER
+            + "1,first,author,10,10,01/01/2000 12:00\n"
+            + "invalidID,content,author,likes,shares,date\n"
+            + "\n"
+            + "2,second,author,10,10,99/99/2000 12:00\n"
+            + "1,duplicate,author,10,10,01/01/2000 12:00\n"
+            + "3,third,author,10,10,01/01/2000 12:00";
+
+        LoadReport report = new CsvLoader(2, 16).load(createCSV(rows), db);
+
+        assertEquals("Valid rows should be imported", 2, report.getImported());
+        assertEquals("Invalid rows should be skipped", 3, report.getInvalid());
+        assertEquals("Duplicate rows should be skipped", 1, report.getDuplicates());
+        assertEquals("Database should only contain valid rows", 2, db.size());
+        assertEquals("The bad ID should be counted", 1, report.getInvalid(InvalidPostException.Reason.INVALID_NUMBER));
+        assertEquals("The empty row should be counted", 1, report.getInvalid(InvalidPostException.Reason.MISSING_FIELD));
+        assertEquals("The bad date should be counted", 1, report.getInvalid(InvalidPostException.Reason.INVALID_DATE));
+    }
+
+    @Test
+    public void Load_Success_NegativeCount() throws IOException, PostNotExistException {
+        String rows = HEADER + "1,hello,a,-5,3,01/01/2020 10:00\n";
+
+        LoadReport report = new CsvLoader().load(createCSV(rows), db);
+
+        assertEquals("A row with a negative count should still be imported", 1, report.getImported());
+        assertEquals("Negative likes should be kept", -5, db.get(1).getLikes());
+        assertEquals("Statistics should count the post", 1, db.getEngagementStats().getPosts());
+    }
+
+    @Test
+    public void Load_Success_SharesAuthors() throws IOException, PostNotExistException {
+        StringBuilder rows = new StringBuilder(HEADER);
+        for (int ID = 0; ID < 1000; ID++) {
+            rows.append(String.format("%d,content %d,author%d,1,1,01/01/2000 12:00\n", ID, ID % 2, ID % 3));
+        }
+
+        LoadReport report = new CsvLoader(4, 64).load(createCSV(rows.toString()), db);
+
+        assertSame("Posts by the same author should share one string", db.get(1).getAuthor(), db.get(997).getAuthor());
+        assertNotSame("Content should not be pooled by default", db.get(1).getContent(), db.get(3).getContent());
+        assertEquals("Every author should be looked up", 1000, report.getPooledStrings());
+        assertEquals("Only distinct authors should be kept", 3, report.getDistinctStrings());
+        assertEquals("Dedup ratio should be rows per author", 1000 / 3.0, report.getDedupRatio(), 0.001);
+    }
+
+    @Test
+    public void Load_Success_SharesContent() throws IOException, PostNotExistException {
+        StringBuilder rows = new StringBuilder(HEADER);
+        for (int ID = 0; ID < 100; ID++) {
+            rows.append(String.format("%d,content %d,author,1,1,01/01/2000 12:00\n", ID, ID % 2));
+        }
+
+        LoadReport report = new CsvLoader(2, 64, true).load(createCSV(rows.toString()), db);
+
+        assertSame("Repeated content should share one string", db.get(1).getContent(), db.get(99).getContent());
+        assertEquals("Content should read the same", "content 1", db.get(99).getContent());
+        assertEquals("Authors and content should be looked up", 200, report.getPooledStrings());
+        assertEquals("Two contents and one author should be kept", 3, report.getDistinctStrings());
+    }
+
+    @Test
+    public void Load_Success_QuotedFields() throws IOException, PostNotExistException {
+        StringBuilder rows = new StringBuilder(HEADER);
+        for (int ID = 0; ID < 200; ID++) {
+            rows.append(String.format("%d,\"line one, with comma\r\n\"\"line\"\" %d\",\"a,b\",%d,1,01/01/2000 12:00\r\n", ID, ID, ID));
+        }
+        rows.append("200,12\" pizza,author,1,1,01/01/2000 12:00\n");
+
+        File csv = createCSV(rows.toString());
+
+        // Small chunks so that many quoted line breaks fall where a chunk would otherwise end,
+        // parsed both on one thread and in parallel.
+        for (int threads : new int[] {1, 4}) {
+            db = new Database();
+            LoadReport report = new CsvLoader(threads, 50).load(csv, db);
+
+            assertEquals("Every row should be imported", 201, report.getImported());
+            assertEquals("Quoted line breaks should not end a row", "line one, with comma\r\n\"line\" 150", db.get(150).getContent());
+            assertEquals("Quoted author should keep its comma", "a,b", db.get(150).getAuthor());
+            assertEquals("Fields after quoted ones should be read", 150, db.get(150).getLikes());
+            assertEquals("A quote inside a field should be kept", "12\" pizza", db.get(200).getContent());
+        }
+    }
+
+    @Test
+    public void Load_Success_HeaderOnly() throws IOException {
+        LoadReport report = new CsvLoader().load(createCSV(HEADER), db);
+
+        assertEquals("No rows should be read", 0, report.getRows());
+        assertEquals("Rows should follow the header", HEADER.length(), report.getEndOffset());
+    }
+
+    @Test
+    public void Load_Success_EndOffset() throws IOException {
+        String whole = HEADER + "1,first,author,10,10,01/01/2000 12:00\n" + "2,second,author,10,10,01/01/2000 12:00\n";
+        String partial = "3,\"third,\nstill being";
+
+        File wholeCSV = createCSV("whole.csv", whole);
+        File partialCSV = createCSV("partial.csv", whole + partial);
+
+        for (int threads : new int[] {1, 4}) {
+            LoadReport wholeReport = new CsvLoader(threads, 16).load(wholeCSV, new Database());
+
+            assertEquals("Offset should be the end of the file", whole.length(), wholeReport.getEndOffset());
+
+            LoadReport partialReport = new CsvLoader(threads, 16).load(partialCSV, new Database());
+
+            assertEquals("Offset should stop before a row without a line break", whole.length(), partialReport.getEndOffset());
+        }
+    }
+
+    @Test
+    public void Load_Fail_FileNotFound() {
+        final File missing = new File(tempFolder.getRoot(), "missing.csv");
+
+        assertThrows("Load should fail as the file does not exist", FileNotFoundException.class,
+            () -> new CsvLoader().load(missing, db));
+    }
+
+    private File createCSV(String content) throws IOException {
+        return createCSV("temp.csv", content);
+    }
+
+    private File createCSV(String name, String content) throws IOException {
+        File csv = tempFolder.newFile(name);
+        FileWriter writer = new FileWriter(csv);
+        writer.write(content);
+        writer.close();
+
+        return csv;
+    }
+}
@@ -0,0 +1,189 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.BatchResult;
+import smanalyzer.java.service.ConcurrentDatabase;
+import smanalyzer.java.service.CsvLoader;
+import smanalyzer.java.service.CsvTailer;
+import smanalyzer.java.service.ForwardingPostStore;
+import smanalyzer.java.service.LoadReport;
+
+public class CsvTailerTest {
+
+    static String HEADER = "ID,content,author,likes,shares,date-time\r\n";
+
+    ConcurrentDatabase db;
+    File csv;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        db = new ConcurrentDatabase();
+        csv = new File(tempFolder.getRoot(), "posts.csv");
+        append(HEADER + row(1) + row(2));
+    }
+
+    @Test
+    public void Poll_Success_AppendedRows() throws IOException, PostNotExistException {
+        LoadReport loaded = new CsvLoader().load(csv, db);
+        CsvTailer tailer = new CsvTailer(csv, db, loaded.getEndOffset());
+
+        assertEquals("Nothing should be read before rows are appended", 0, tailer.poll());
+
+        append(row(3) + row(4));
+
+        assertEquals("Only the appended rows should be read", 2, tailer.poll());
+        assertEquals("Appended rows should be added", 4, db.size());
+        assertEquals("Fields should be read from the appended row", "content 4", db.get(4).getContent());
+        assertEquals("Offset should be the end of the file", csv.length(), tailer.getOffset());
+        assertEquals("Nothing should be read twice", 0, tailer.poll());
+    }
+
+    @Test
+    public void Poll_Success_FromStart() throws IOException {
+        CsvTailer tailer = new CsvTailer(csv, db, 0);
+
+        assertEquals("Every row after the header should be read", 2, tailer.poll());
+        assertEquals("Rows should be added", 2, db.size());
+    }
+
+    @Test
+    public void Poll_Success_WaitsForWholeRow() throws IOException, PostNotExistException {
+        CsvTailer tailer = new CsvTailer(csv, db, csv.length());
+
+        append("3,\"first line,\nsecond");
+
+        assertEquals("A row still being written should not be read", 0, tailer.poll());
+        assertFalse("A row still being written should not be added", db.find(3).isPresent());
+
+        append(" line\",author,1,1,01/01/2000 12:00\n");
+
+        assertEquals("The row should be read once written", 1, tailer.poll());
+        assertEquals("The quoted line break should be kept", "first line,\nsecond line", db.get(3).getContent());
+    }
+
+    @Test
+    public void Poll_Success_ReportsInvalidAndDuplicateRows() throws IOException {
+        CsvTailer tailer = new CsvTailer(csv, db, 0);
+        tailer.poll();
+
+        append("invalidID,content,author,1,1,01/01/2000 12:00\n" + row(1) + row(3));
+        tailer.poll();
+        LoadReport report = tailer.getReport();
+
+        assertEquals("Every row should be counted", 5, report.getRows());
+        assertEquals("Valid rows should be imported", 3, report.getImported());
+        assertEquals("The bad ID should be counted", 1, report.getInvalid(InvalidPostException.Reason.INVALID_NUMBER));
+        assertEquals("The repeated ID should be counted", 1, report.getDuplicates());
+    }
+
+    @Test
+    public void Poll_Success_Batches() throws IOException {
+        final int[] batches = new int[1];
+        ForwardingPostStore counting = new ForwardingPostStore(db) {
+            @Override
+            public BatchResult putAll(List<Post> batch) {
+                batches[0]++;
+                return super.putAll(batch);
+            }
+        };
+        StringBuilder rows = new StringBuilder();
+        for (int ID = 3; ID < 10; ID++) {
+            rows.append(row(ID));
+        }
+        append(rows.toString());
+
+        new CsvTailer(csv, counting, 0, CsvTailer.DEFAULT_INTERVAL_MILLIS, 3).poll();
+
+        assertEquals("Every row should be added", 9, db.size());
+        assertEquals("Rows should be put at most 3 at a time", 3, batches[0]);
+    }
+
+    @Test
+    public void Poll_Success_Truncated() throws IOException {
+        CsvTailer tailer = new CsvTailer(csv, db, 0);
+        tailer.poll();
+
+        csv.delete();
+        append(HEADER + row(5));
+
+        assertEquals("A shorter file should be read from the start", 1, tailer.poll());
+        assertTrue("Rows of the new file should be added", db.find(5).isPresent());
+    }
+
+    @Test
+    public void Poll_Success_Replaced() throws IOException, PostNotExistException {
+        CsvTailer tailer = new CsvTailer(csv, db, 0);
+        tailer.poll();
+
+        // A rotated file longer than the old one, moved into its place.
+        File rotated = new File(tempFolder.getRoot(), "rotated.csv");
+        Files.write(rotated.toPath(), (HEADER + row(5) + row(6) + row(7)).getBytes(StandardCharsets.UTF_8));
+        Files.move(rotated.toPath(), csv.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        assertEquals("A replaced file should be read from the start", 3, tailer.poll());
+        assertEquals("Every row of the new file should be added", "content 5", db.get(5).getContent());
+        assertEquals("Offset should be the end of the new file", csv.length(), tailer.getOffset());
+
+        append(row(8));
+        assertEquals("The new file should then be followed", 1, tailer.poll());
+    }
+
+    @Test
+    public void Poll_Success_MissingFile() throws IOException {
+        CsvTailer tailer = new CsvTailer(new File(tempFolder.getRoot(), "missing.csv"), db, 0);
+
+        assertEquals("A missing file should read as empty", 0, tailer.poll());
+    }
+
+    @Test
+    public void Start_Success_AddsAppendedRows() throws IOException, InterruptedException {
+        CsvTailer tailer = new CsvTailer(csv, db, csv.length(), 20, 100);
+        tailer.start();
+        try {
+            append(row(3));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!db.find(3).isPresent() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertTrue("Appended row should be added while following", db.find(3).isPresent());
+        } finally {
+            tailer.close();
+        }
+        append(row(4));
+
+        assertFalse("Rows should not be added once closed", db.find(4).isPresent());
+    }
+
+    private static String row(int ID) {
+        return String.format("%d,content %d,author,%d,1,01/01/2000 12:00\n", ID, ID, ID);
+    }
+
+    private void append(String rows) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(csv, true)) {
+            out.write(rows.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,31 +1,59 @@
 package test.java;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
 
 import smanalyzer.java.exception.InvalidPostException;
 import smanalyzer.java.exception.PostAlreadyExistsException;
 import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.model.AuthorStats;
+import smanalyzer.java.model.EngagementStats;
 import smanalyzer.java.model.Post;
-import smanalyzer.java.service.Database;
+import smanalyzer.java.service.BatchResult;
+import smanalyzer.java.service.Engine;
+import smanalyzer.java.service.PostStore;
+import smanalyzer.java.service.Query;
 
+// Runs the whole suite once per storage engine.
+@RunWith(Parameterized.class)
 public class DatabaseTest {
 
-    Database db;
+    @Parameters(name = "{0}")
+    public static Object[] engines() {
+        return Engine.values();
+    }
+
+    @Parameter
+    public Engine engine;
+
+    PostStore db;
     Post post;
     static int DATABASE_SIZE = 1;
     
@@ -34,7 +62,7 @@ public class DatabaseTest {
 
     @Before
     public void setUpDatabase() throws PostAlreadyExistsException, InvalidPostException {
-        db = new Database();
+        db = engine.create();
         post = new Post(1,"test content","test author", 10, 10, "01/01/2000 12:00");
 
         db.put(post);
@@ -52,6 +80,38 @@ public class DatabaseTest {
         assertThrows("Get should fail as post not exist", PostNotExistException.class, () -> db.get(ID));
     }
 
+    @Test
+    public void Get_Fail_NoStackTrace() {
+        PostNotExistException e = assertThrows(PostNotExistException.class, () -> db.get(9999));
+
+        assertEquals("Miss should not record a stack trace", 0, e.getStackTrace().length);
+        assertEquals("Message should name the ID", "Post of ID 9999 does not exist in the collection.", e.getMessage());
+    }
+
+    @Test
+    public void Find_Success() {
+        assertEquals("Find should return the post", Optional.of(post), db.find(post.getID()));
+        assertEquals("Find should return nothing for a missing ID", Optional.empty(), db.find(9999));
+    }
+
+    @Test
+    public void PutIfAbsent_Success() throws InvalidPostException, PostNotExistException {
+        Post post = new Post(2,"test content 2","test author 2", 20, 20, "02/02/2000 12:00");
+
+        assertTrue("New post should be added", db.putIfAbsent(post));
+        assertEquals("Database should now contain the new post", post, db.get(post.getID()));
+        assertEquals("Database size should increase by 1", 2, db.size());
+    }
+
+    @Test
+    public void PutIfAbsent_Fail_PostAlreadyExists() throws InvalidPostException, PostNotExistException {
+        Post duplicate = new Post(1,"duplicate","test author", 99, 99, "02/02/2000 12:00");
+
+        assertFalse("Duplicate should be rejected", db.putIfAbsent(duplicate));
+        assertEquals("Existing post should be kept", post, db.get(1));
+        assertEquals("Database size should stay the same", 1, db.size());
+    }
+
     @Test
     public void Put_Success() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
         Post post = new Post(2,"test content 2","test author 2", 20, 20, "02/02/2000 12:00");
@@ -132,11 +192,474 @@ public class DatabaseTest {
         assertEquals("List should be sorted on shares", expectedList, actualList);
     }
 
+    @Test
+    public void GetMulti_Success_SortOnLikes_AfterDelete() throws PostNotExistException, PostAlreadyExistsException, InvalidPostException {
+        final int count = 2;
+        db = databaseForSorting();
+        db.delete(1);
+        List<Post> actualList = db.getMulti("likes", count);
+        List<Post> expectedList = new ArrayList<Post>(Arrays.asList(db.get(2), db.get(3)));
+
+        assertEquals("Deleted post should no longer be ranked", expectedList, actualList);
+    }
+
+    @Test
+    public void GetMulti_Success_SortOnLikes_EqualLikes() throws PostNotExistException, PostAlreadyExistsException, InvalidPostException {
+        Post tiedPost = new Post(2, "Same likes as the first post", "test author", 10, 5, "01/01/2000 12:00");
+        db.put(tiedPost);
+        List<Post> actualList = db.getMulti("likes", 2);
+
+        assertEquals("Posts with equal likes should both be ranked", 2, actualList.size());
+        assertEquals("Database size should include both posts", 2, db.size());
+    }
+
+    // Imports reject negative counts, but a post built in code may still hold one, and it
+    // should rank last on every engine.
+    @Test
+    public void GetMulti_Success_NegativeCountRanksLast() throws PostNotExistException {
+        Post negative = new Post(2, "negative", "author", -5, Integer.MIN_VALUE, LocalDateTime.of(2020, 1, 1, 10, 0));
+        Post zero = new Post(3, "zero", "author", 0, 0, LocalDateTime.of(2020, 1, 1, 10, 0));
+        db.putIfAbsent(negative);
+        db.putIfAbsent(zero);
+
+        assertEquals("Negative likes should rank last", Arrays.asList(post, zero, negative), db.getMulti("likes", 3));
+        assertEquals("Negative shares should rank last", Arrays.asList(post, zero, negative), db.getMulti("shares", 3));
+    }
+
+    @Test
+    public void IncrementLikes_Success_Reranks() throws PostNotExistException, PostAlreadyExistsException, InvalidPostException {
+        db = databaseForSorting();
+        int likes = db.incrementLikes(4, 1000);
+
+        assertEquals("Increment should return the new number of likes", 1000, likes);
+        assertEquals("Post should hold the new number of likes", 1000, db.get(4).getLikes());
+        assertEquals("Post should now be the most liked", 4, db.getMulti("likes", 1).get(0).getID());
+        assertEquals("Post should still be ranked once", 4, db.getMulti("likes", 10).size());
+    }
+
+    @Test
+    public void IncrementShares_Success_Reranks() throws PostNotExistException, PostAlreadyExistsException, InvalidPostException {
+        db = databaseForSorting();
+        db.incrementShares(1, 500);
+        db.incrementShares(1, 500);
+
+        assertEquals("Post should hold every new share", 1000, db.get(1).getShares());
+        assertEquals("Post should now be the most shared", 1, db.getMulti("shares", 1).get(0).getID());
+        assertEquals("Likes should be unchanged", 999, db.get(1).getLikes());
+    }
+
+    @Test
+    public void IncrementLikes_Fail_PostNotExist() {
+        final int ID = 9999;
+
+        assertThrows("Increment should fail as post does not exist", PostNotExistException.class, () -> db.incrementLikes(ID, 1));
+    }
+
+    @Test
+    public void IncrementLikes_Fail_NegativeTotal() throws PostNotExistException {
+        assertThrows("Likes should not become negative", IllegalArgumentException.class, () -> db.incrementLikes(post.getID(), -11));
+        assertEquals("Likes should be unchanged", 10, db.get(post.getID()).getLikes());
+    }
+
+    @Test
+    public void PutAll_Success_ReportsDuplicates() throws PostNotExistException, InvalidPostException {
+        List<Post> batch = new ArrayList<Post>();
+        for (int ID = 0; ID < 100; ID++) {
+            batch.add(new Post(ID, "batch content", "batch author", ID, ID, "01/01/2000 12:00"));
+        }
+        batch.add(new Post(50, "repeated in batch", "batch author", 1, 1, "01/01/2000 12:00"));
+
+        BatchResult result = db.putAll(batch);
+
+        assertEquals("Every new ID should be added", 99, result.getSucceeded());
+        assertArrayEquals("Existing and repeated IDs should fail", new int[] {1, 100}, result.failedIndexes());
+        assertEquals("Database should hold the original and new posts", 100, db.size());
+        assertEquals("First post of a repeated ID should win", "batch content", db.get(50).getContent());
+        assertEquals("Existing post should be kept", post, db.get(1));
+    }
+
+    @Test
+    public void DeleteAll_Success_ReportsMissing() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForSorting();
+        BatchResult result = db.deleteAll(new int[] {1, 9999, 3, 1});
+
+        assertArrayEquals("Missing and already deleted IDs should fail", new int[] {1, 3}, result.failedIndexes());
+        assertEquals("Deleted posts should be removed", 2, db.size());
+        assertEquals("Deleted posts should no longer be ranked", 2, db.getMulti("likes", 10).size());
+    }
+
+    @Test
+    public void GetAll_Success_NullForMissing() {
+        Post[] found = db.getAll(new int[] {9999, 1});
+
+        assertNull("Missing ID should give null", found[0]);
+        assertEquals("Existing ID should give its post", post, found[1]);
+    }
+
+    @Test
+    public void GetBetween_Success_OldestFirst() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForDates();
+        List<Post> november = db.getBetween(dateTime("01/11/2022 00:00"), dateTime("01/12/2022 00:00"));
+
+        assertEquals("Only posts within the range should be returned", 3, november.size());
+        assertEquals("Start of the range should be inclusive", 20, november.get(0).getID());
+        assertEquals("Posts at the same date-time should be ordered on ID", 21, november.get(1).getID());
+        assertEquals("Posts should be ordered oldest first", 22, november.get(2).getID());
+    }
+
+    @Test
+    public void GetBetween_Success_EmptyRange() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForDates();
+
+        assertEquals("End of the range should be exclusive", 0,
+            db.getBetween(dateTime("01/11/2022 00:00"), dateTime("01/11/2022 00:00")).size());
+        assertEquals("Reversed range should be empty", 0,
+            db.getBetween(dateTime("01/12/2022 00:00"), dateTime("01/11/2022 00:00")).size());
+    }
+
+    @Test
+    public void GetMultiBetween_Success_SortOnLikes() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
+        db = databaseForDates();
+        db.incrementLikes(20, 100);
+        db.delete(22);
+        List<Post> top = db.getMultiBetween("likes", dateTime("01/11/2022 00:00"), dateTime("01/12/2022 00:00"), 5);
+
+        assertEquals("Deleted posts should leave the range", 2, top.size());
+        assertEquals("Range should be ranked on current likes", 20, top.get(0).getID());
+        assertEquals("Range should hold the updated post", 101, top.get(0).getLikes());
+        assertEquals("Posts outside the range should be ignored", 21, top.get(1).getID());
+    }
+
+    @Test
+    public void GetMultiBetween_Success_SortOnShares() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForDates();
+        List<Post> top = db.getMultiBetween("shares", dateTime("01/01/2000 00:00"), dateTime("01/01/2030 00:00"), 2);
+
+        assertEquals("Only 'count' posts should be returned", 2, top.size());
+        assertEquals("Most shared post should be first", 22, top.get(0).getID());
+        assertEquals("Second most shared post should be second", 1, top.get(1).getID());
+    }
+
+    @Test
+    public void GetByAuthor_Success() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForAuthors();
+        List<Post> posts = db.getByAuthor("SD2C45");
+
+        assertEquals("Every post by the author should be returned", 3, posts.size());
+        assertEquals("Posts by other authors should be ignored", 1, db.getByAuthor(null).size());
+        assertEquals("Unknown author should have no posts", 0, db.getByAuthor("nobody").size());
+    }
+
+    @Test
+    public void GetAuthorStats_Success_KeptUpToDate() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
+        db = databaseForAuthors();
+        assertEquals("Totals should cover every post", new AuthorStats("SD2C45", 3, 60, 6), db.getAuthorStats("SD2C45"));
+
+        db.incrementLikes(11, 100);
+        db.incrementShares(12, 4);
+        db.delete(13);
+        assertEquals("Totals should follow increments and deletes", new AuthorStats("SD2C45", 2, 130, 7), db.getAuthorStats("SD2C45"));
+
+        db.delete(11);
+        db.delete(12);
+        assertEquals("Author without posts should have zero totals", AuthorStats.none("SD2C45"), db.getAuthorStats("SD2C45"));
+        assertEquals("Author without posts should leave the ranking", 3, db.getTopAuthors("likes", 10).size());
+    }
+
+    @Test
+    public void GetTopAuthors_Success_SortOnLikes() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
+        db = databaseForAuthors();
+        List<AuthorStats> top = db.getTopAuthors("likes", 2);
+
+        assertEquals("Only 'count' authors should be returned", 2, top.size());
+        assertEquals("Most liked author should be first", "A567VF", top.get(0).getAuthor());
+        assertEquals("Second most liked author should be second", "SD2C45", top.get(1).getAuthor());
+
+        db.incrementLikes(2, 1000);
+        assertEquals("Increment should re-rank the author", null, db.getTopAuthors("likes", 1).get(0).getAuthor());
+    }
+
+    @Test
+    public void GetTopAuthors_Success_SortOnSharesAndPosts() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForAuthors();
+
+        assertEquals("Most shared author should be first", "A567VF", db.getTopAuthors("shares", 1).get(0).getAuthor());
+        assertEquals("Most prolific author should be first", "SD2C45", db.getTopAuthors("posts", 1).get(0).getAuthor());
+        assertEquals("Ties should be broken on author, null first", Arrays.asList(null, "A567VF"),
+            Arrays.asList(db.getTopAuthors("posts", 3).subList(1, 3).stream().map(AuthorStats::getAuthor).toArray()));
+    }
+
+    @Test
+    public void Search_Success_MatchAll() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForSearch();
+        List<Post> found = db.search("meet building", true, "likes", 10);
+
+        assertEquals("Only posts containing every word should match", 2, found.size());
+        assertEquals("Matches should be ranked on likes", 32, found.get(0).getID());
+        assertEquals("Matches should be ranked on likes", 31, found.get(1).getID());
+    }
+
+    @Test
+    public void Search_Success_MatchAny() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForSearch();
+        List<Post> found = db.search("film christmas", false, "shares", 2);
+
+        assertEquals("Only 'count' posts should be returned", 2, found.size());
+        assertEquals("Matches should be ranked on shares", 34, found.get(0).getID());
+        assertEquals("Matches should be ranked on shares", 33, found.get(1).getID());
+    }
+
+    @Test
+    public void Search_Success_WholeWordsIgnoringCase() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForSearch();
+
+        assertEquals("Case and punctuation should be ignored", 3, db.search("FILM!", true, "likes", 10).size());
+        assertEquals("Only whole words should match", 0, db.search("fil", true, "likes", 10).size());
+        assertEquals("Unknown word should fail a match-all search", 0, db.search("film unknown", true, "likes", 10).size());
+        assertEquals("Keywords without words should match nothing", 0, db.search(" ,.!", false, "likes", 10).size());
+    }
+
+    @Test
+    public void Search_Success_AfterChanges() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
+        db = databaseForSearch();
+        db.delete(32);
+        db.incrementLikes(31, 1000);
+        db.put(new Post(30, "Meet me at the building", null, 0, 0, "01/01/2000 12:00"));
+        List<Post> found = db.search("meet building", true, "likes", 10);
+
+        assertEquals("Deleted posts should not match, new posts should", 2, found.size());
+        assertEquals("Matches should hold the updated post", 1010, found.get(0).getLikes());
+        assertEquals("New post should match", 30, found.get(1).getID());
+    }
+
+    @Test
+    public void Search_Success_MatchesScan() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
+        Random random = new Random(11);
+        String[] words = {"alpha", "beta", "gamma", "delta", "epsilon"};
+
+        // Adds and deletes in random order so posting lists are merged many times.
+        for (int i = 0; i < 5000; i++) {
+            int ID = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                try {
+                    db.delete(ID);
+                } catch (PostNotExistException e) {
+                    // Not present, nothing to delete.
+                }
+            } else {
+                String content = words[random.nextInt(5)] + " " + words[random.nextInt(5)];
+                try {
+                    db.put(new Post(ID, content, null, random.nextInt(100), 0, "01/01/2000 12:00"));
+                } catch (PostAlreadyExistsException e) {
+                    // Already present.
+                }
+            }
+        }
+
+        Comparator<Post> likesThenID = Comparator.comparingInt(Post::getLikes).reversed().thenComparingInt(Post::getID);
+        List<Post> all = db.getMulti(likesThenID, db.size());
+        for (boolean matchAll : new boolean[] {true, false}) {
+            List<Post> expected = new ArrayList<Post>();
+            for (Post candidate : all) {
+                List<String> contentWords = Arrays.asList(String.valueOf(candidate.getContent()).split(" "));
+                boolean alpha = contentWords.contains("alpha");
+                boolean gamma = contentWords.contains("gamma");
+                if (matchAll ? alpha && gamma : alpha || gamma) {
+                    expected.add(candidate);
+                }
+            }
+            assertEquals("Search should agree with a scan", expected, db.search("alpha gamma", matchAll, "likes", db.size()));
+        }
+    }
+
+    @Test
+    public void Search_Success_LongListsWithPendingChanges() throws PostAlreadyExistsException, InvalidPostException,
+            PostNotExistException {
+        // IDs in order pack every list; the deletes and the late post below ID 0 stay pending.
+        db = engine.create();
+        for (int ID = 0; ID < 10000; ID++) {
+            db.put(new Post(ID, "common" + (ID % 2 == 0 ? " mid" : "") + (ID % 97 == 0 ? " rare" : ""), null, 0, 0,
+                "01/01/2000 12:00"));
+        }
+        for (int ID = 0; ID < 10000; ID += 388) {
+            db.delete(ID);
+        }
+        db.put(new Post(-194, "rare mid common", null, 0, 0, "01/01/2000 12:00"));
+
+        List<Object> expected = new ArrayList<Object>();
+        expected.add(-194);
+        for (int ID = 194; ID < 10000; ID += 388) {
+            expected.add(ID);
+        }
+        for (int i = 0; i < 2; i++) {
+            assertEquals("Search should skip through the long lists and see pending changes", expected,
+                Arrays.asList(db.search("common rare mid", true, "likes", db.size()).stream().map(Post::getID).toArray()));
+        }
+    }
+
+    @Test
+    public void GetEngagementStats_Success() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForDates();
+        EngagementStats stats = db.getEngagementStats();
+
+        assertEquals("Every post should be counted", 6, stats.getPosts());
+        assertEquals("Likes should be totalled", 916, stats.getLikes().getSum());
+        assertEquals("Mean likes should be exact", 916 / 6.0, stats.getLikes().getMean(), 1e-9);
+        assertEquals("Variance should be the population variance", variance(1, 2, 3, 10, 400, 500), stats.getLikes().getVariance(), 1e-6);
+        assertEquals("Median should be exact for small counts", 3, stats.getLikes().getP50());
+        assertEquals("p99 should be within 1%", 500, stats.getLikes().getP99(), 5);
+        assertEquals("Shares should be totalled", 317, stats.getShares().getSum());
+        assertEquals("Posts at midnight should be counted", 3, stats.getPostsAt(0));
+        assertEquals("Posts at 23:00 should be counted", 2, stats.getPostsAt(23));
+        assertEquals("Posts on Tuesday should be counted", 2, stats.getPostsOn(DayOfWeek.TUESDAY));
+        assertEquals("No posts were made on Friday", 0, stats.getPostsOn(DayOfWeek.FRIDAY));
+    }
+
+    @Test
+    public void GetEngagementStats_Success_NegativeCount() throws PostNotExistException {
+        Post negative = new Post(2, "negative", "author", -5, 3, LocalDateTime.of(2020, 1, 1, 10, 0));
+
+        assertTrue("Post with a negative count should be added", db.putIfAbsent(negative));
+        EngagementStats stats = db.getEngagementStats();
+
+        assertEquals("Both posts should be counted", 2, stats.getPosts());
+        assertEquals("Negative likes should be totalled exactly", 5, stats.getLikes().getSum());
+        assertEquals("Negative likes should count in the lowest bucket", 0, stats.getLikes().getP50());
+
+        db.delete(2);
+        assertEquals("Removing it should leave one post", 1, db.getEngagementStats().getPosts());
+    }
+
+    @Test
+    public void GetEngagementStats_Success_Empty() throws PostNotExistException {
+        db.delete(post.getID());
+        EngagementStats stats = db.getEngagementStats();
+
+        assertEquals("No posts should be counted", 0, stats.getPosts());
+        assertEquals("Mean of nothing should be zero", 0, stats.getLikes().getMean(), 0);
+        assertEquals("Variance of nothing should be zero", 0, stats.getShares().getVariance(), 0);
+        assertEquals("Percentiles of nothing should be zero", 0, stats.getLikes().getP95());
+    }
+
+    @Test
+    public void GetEngagementStats_Success_KeptUpToDate() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
+        db = databaseForDates();
+
+        db.incrementLikes(post.getID(), 90);
+        db.incrementShares(22, 10);
+        db.delete(10);
+        EngagementStats stats = db.getEngagementStats();
+
+        assertEquals("Deleted post should not be counted", 5, stats.getPosts());
+        assertEquals("Likes should follow increments and deletes", 506, stats.getLikes().getSum());
+        assertEquals("Variance should follow increments and deletes", variance(100, 2, 3, 1, 400), stats.getLikes().getVariance(), 1e-6);
+        assertEquals("Shares should follow increments", 326, stats.getShares().getSum());
+        assertEquals("Deleted post should leave its hour", 1, stats.getPostsAt(23));
+        assertEquals("Deleted post should leave its day", 0, stats.getPostsOn(DayOfWeek.MONDAY));
+    }
+
+    @Test
+    public void GetEngagementStats_Success_MatchesScan() throws PostAlreadyExistsException, InvalidPostException, PostNotExistException {
+        Random random = new Random(5);
+
+        for (int i = 0; i < 5000; i++) {
+            int ID = random.nextInt(2000);
+            if (random.nextInt(4) == 0) {
+                try {
+                    db.delete(ID);
+                } catch (PostNotExistException e) {
+                    // Not present, nothing to delete.
+                }
+            } else {
+                // Likes spread over several orders of magnitude so most land in wide buckets.
+                int likes = (int) Math.pow(10, random.nextDouble() * 7);
+                try {
+                    db.put(new Post(ID, "content", null, likes, random.nextInt(100), LocalDateTime.of(2020, 1, 1, 0, 0).plusHours(ID)));
+                } catch (PostAlreadyExistsException e) {
+                    db.incrementLikes(ID, likes);
+                }
+            }
+        }
+
+        List<Post> all = db.getMulti("likes", db.size());
+        int[] likes = new int[all.size()];
+        int[] perHour = new int[24];
+        for (int i = 0; i < likes.length; i++) {
+            likes[i] = all.get(likes.length - 1 - i).getLikes();
+            perHour[all.get(i).getDateTime().getHour()]++;
+        }
+        EngagementStats stats = db.getEngagementStats();
+
+        assertEquals("Every post should be counted", likes.length, stats.getPosts());
+        assertEquals("Mean should agree with a scan", Arrays.stream(likes).average().getAsDouble(), stats.getLikes().getMean(), 1e-6);
+        assertEquals("Variance should agree with a scan", 1, stats.getLikes().getVariance() / variance(likes), 1e-9);
+        for (double fraction : new double[] {0.50, 0.95, 0.99}) {
+            int exact = likes[(int) Math.ceil(fraction * likes.length) - 1];
+            int percentile = fraction == 0.50 ? stats.getLikes().getP50() : fraction == 0.95 ? stats.getLikes().getP95() : stats.getLikes().getP99();
+            assertEquals("Percentile should be within 1% of a scan", exact, percentile, exact * 0.01);
+        }
+        assertArrayEquals("Posts per hour should agree with a scan", perHour, stats.getPostsPerHour());
+    }
+
+    @Test
+    public void Query_Success_FilterOrderLimitProject() throws PostAlreadyExistsException, InvalidPostException {
+        db = databaseForSorting();
+        Query<Integer> query = Query.all().where(post -> post.getShares() > 0)
+            .orderBy(SORT_ON_LIKES).limit(2).select(Post::getID);
+
+        assertEquals("Query should filter, rank, limit and project", Arrays.asList(2, 3), db.query(query));
+        assertEquals("Filters should be combined", Arrays.asList(4),
+            db.query(query.where(post -> post.getShares() > 800)));
+        assertEquals("Unranked, unlimited query should return every match", 2,
+            db.query(Query.all().where(post -> post.getLikes() > 500)).size());
+        assertEquals("Limit should apply without a ranking", 3, db.query(Query.all().limit(3)).size());
+        assertEquals("Zero limit should return nothing", 0, db.query(Query.all().orderBy(SORT_ON_LIKES).limit(0)).size());
+    }
+
+    @Test
+    public void Query_Fail_NegativeLimit() {
+        assertThrows(IllegalArgumentException.class, () -> Query.all().limit(-1));
+    }
+
+    @Test
+    public void Query_Success_ParallelMatchesSequential() throws PostAlreadyExistsException, InvalidPostException {
+        Random random = new Random(3);
+        List<Post> posts = new ArrayList<Post>();
+
+        // Enough posts that the query is run in parallel.
+        for (int ID = 2; ID < 30000; ID++) {
+            posts.add(new Post(ID, "x".repeat(random.nextInt(50)), null, random.nextInt(1000), random.nextInt(1000),
+                LocalDateTime.of(2020, 1, 1, 0, 0)));
+        }
+        db.putAll(posts);
+        posts.add(post);
+
+        Comparator<Post> ratio = Comparator.comparingDouble((Post p) -> (double) p.getShares() / (p.getLikes() + 1))
+            .reversed().thenComparingInt(Post::getID);
+        List<Integer> expected = posts.stream().filter(p -> p.getContent().length() > 25).sorted(ratio)
+            .limit(100).map(Post::getID).collect(Collectors.toList());
+
+        assertEquals("Parallel top-N should match a sequential sort", expected,
+            db.query(Query.all().where(p -> p.getContent().length() > 25).orderBy(ratio).limit(100).select(Post::getID)));
+        assertEquals("Parallel full sort should match a sequential sort", posts.stream().sorted(ratio).collect(Collectors.toList()),
+            db.query(Query.all().orderBy(ratio)));
+        assertEquals("Parallel filter should find every match", posts.stream().filter(p -> p.getLikes() < 10).count(),
+            db.query(Query.all().where(p -> p.getLikes() < 10)).size());
+    }
+
     @Test
     public void Size_Success() {
         assertEquals("Should return the correct size", DATABASE_SIZE, db.size());
     }
 
+    @Test
+    public void Init_Success_Default() throws IOException {
+        db = engine.create();
+        db.init("default", null);
+
+        assertEquals("Hard-coded database should contain 5 posts", 5, db.size());
+    }
+
     @Test
     public void ReadCSV_Success() throws PostNotExistException, IOException {
         final String formattedDateTime = post.getDateTime().format(DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm"));
@@ -146,7 +669,7 @@ public class DatabaseTest {
                     postString);
 
         // Using a fresh database
-        db = new Database();
+        db = engine.create();
         db.init("csv", csv);
 
         assertEquals("Retrieved ID should equal post ID", 
@@ -170,7 +693,7 @@ public class DatabaseTest {
                                     invalidPostString);
 
         // Using a fresh database
-        db = new Database();
+        db = engine.create();
         db.init("csv", csv);
 
         assertEquals("Database should not contain invalid post", 0, db.size());
@@ -198,13 +721,13 @@ public class DatabaseTest {
         return csv;
     }
 
-    private Database databaseForSorting() throws PostAlreadyExistsException, InvalidPostException {
+    private PostStore databaseForSorting() throws PostAlreadyExistsException, InvalidPostException {
         Post p1 = new Post(1, "Highest likes, lowest shares", null, 999, 0, "12/12/1212 12:30");
         Post p2 = new Post(2, "Second highest likes, second lowest shares", null, 777, 222, "12/12/1212 12:30");
         Post p3 = new Post(3, "Second lowest likes, second highest shares", null, 222, 777, "12/12/1212 12:30");
         Post p4 = new Post(4, "Lowest likes, highest shares", null, 0, 999, "12/12/1212 12:30");
 
-        Database dbForSorting = new Database();
+        PostStore dbForSorting = engine.create();
         dbForSorting.put(p3);
         dbForSorting.put(p1);
         dbForSorting.put(p4);
@@ -213,6 +736,45 @@ public class DatabaseTest {
         return dbForSorting;
     }
 
+    private PostStore databaseForSearch() throws PostAlreadyExistsException, InvalidPostException {
+        db.put(new Post(31, "Come and meet us at Building 14.", null, 10, 1, "01/01/2000 12:00"));
+        db.put(new Post(32, "Meet the team at the new building!", null, 20, 2, "01/01/2000 12:00"));
+        db.put(new Post(33, "Check out this epic film.", null, 30, 3, "01/01/2000 12:00"));
+        db.put(new Post(34, "Film night: Christmas classics", null, 40, 4, "01/01/2000 12:00"));
+        db.put(new Post(35, "A film about building a film set", null, 50, 0, "01/01/2000 12:00"));
+
+        return db;
+    }
+
+    private PostStore databaseForAuthors() throws PostAlreadyExistsException, InvalidPostException {
+        db.put(new Post(2, "No author", null, 10, 10, "01/01/2000 12:00"));
+        db.put(new Post(11, "First", "SD2C45", 10, 1, "01/01/2000 12:00"));
+        db.put(new Post(12, "Second", "SD2C45", 20, 2, "01/01/2000 12:00"));
+        db.put(new Post(13, "Third", "SD2C45", 30, 3, "01/01/2000 12:00"));
+        db.put(new Post(20, "Popular", "A567VF", 100, 50, "01/01/2000 12:00"));
+
+        return db;
+    }
+
+    private PostStore databaseForDates() throws PostAlreadyExistsException, InvalidPostException {
+        db.put(new Post(10, "October", null, 500, 1, "31/10/2022 23:59"));
+        db.put(new Post(22, "Late November", null, 3, 300, "30/11/2022 23:59"));
+        db.put(new Post(21, "Early November", null, 2, 2, "01/11/2022 00:00"));
+        db.put(new Post(20, "Early November", null, 1, 1, "01/11/2022 00:00"));
+        db.put(new Post(30, "December", null, 400, 3, "01/12/2022 00:00"));
+
+        return db;
+    }
+
+    private static double variance(int... values) {
+        double mean = Arrays.stream(values).average().orElse(0);
+        return Arrays.stream(values).mapToDouble(value -> (value - mean) * (value - mean)).sum() / values.length;
+    }
+
+    private static LocalDateTime dateTime(String dateTime) {
+        return LocalDateTime.parse(dateTime, Post.DATE_TIME_FORMATTER);
+    }
+
     private static Comparator<Post> SORT_ON_LIKES = new Comparator<Post>() {
 		public int compare(Post p1, Post p2) {
 			return p2.getLikes() - p1.getLikes();
@@ -0,0 +1,173 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.JournaledPostStore;
+
+public class JournaledPostStoreTest {
+
+    File dataDir;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        dataDir = tempFolder.newFolder("data");
+    }
+
+    @Test
+    public void Open_Success_Empty() throws IOException {
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertFalse("A new data directory holds nothing to recover", db.isRecovered());
+            assertEquals("Store should be empty", 0, db.size());
+        }
+    }
+
+    @Test
+    public void Open_Success_ReplaysLog() throws IOException, InvalidPostException, PostAlreadyExistsException,
+            PostNotExistException {
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            db.put(createPost(1, 10));
+            db.put(createPost(2, 20));
+            db.put(createPost(3, 30));
+            db.delete(2);
+            db.incrementLikes(1, 5);
+            db.incrementShares(3, 7);
+            db.putAll(Arrays.asList(createPost(4, 40), createPost(1, 0)));
+            db.deleteAll(new int[] {3, 99});
+        }
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertTrue("Existing data should be recovered", db.isRecovered());
+            assertEquals("Every change should be replayed", 2, db.size());
+            assertEquals("Increment should be replayed", 15, db.get(1).getLikes());
+            assertEquals("Batch put should be replayed", 40, db.get(4).getLikes());
+            assertThrows("Delete should be replayed", PostNotExistException.class, () -> db.get(2));
+            assertThrows("Batch delete should be replayed", PostNotExistException.class, () -> db.get(3));
+        }
+    }
+
+    @Test
+    public void Open_Success_SnapshotAndTail() throws IOException, InvalidPostException, PostAlreadyExistsException,
+            PostNotExistException {
+        // Checkpoints every 10 changes, so the last few changes only exist in the log.
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database(), 10)) {
+            for (int ID = 0; ID < 25; ID++) {
+                db.put(createPost(ID, ID));
+            }
+            db.incrementLikes(0, 100);
+        }
+        assertTrue("A snapshot should have been written", new File(dataDir, "snapshot.bin").exists());
+        assertEquals("Older logs should be deleted after a checkpoint", 1,
+            dataDir.listFiles((dir, name) -> name.endsWith(".log")).length);
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertEquals("Snapshot and log tail should both be recovered", 25, db.size());
+            assertEquals("Change after the snapshot should be recovered", 100, db.get(0).getLikes());
+            assertEquals("Post from the snapshot should be recovered", createPost(24, 24), db.get(24));
+        }
+    }
+
+    @Test
+    public void Open_Success_AfterInit() throws IOException, PostNotExistException {
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            db.init("default", null);
+        }
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertTrue("Initialised data should be recovered", db.isRecovered());
+            assertEquals("Every default post should be recovered", 5, db.size());
+            assertEquals("Post content should be recovered", "Check out this epic film.", db.get(10).getContent());
+        }
+    }
+
+    @Test
+    public void Open_Success_AfterFailedInit() throws IOException {
+        File missing = new File(tempFolder.getRoot(), "missing.csv");
+        JournaledPostStore failed = JournaledPostStore.open(dataDir, new Database());
+        assertThrows(FileNotFoundException.class, () -> failed.init("csv", missing));
+        // Left open, as by a run that exits on the failed import.
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertFalse("A failed first import should leave nothing to recover", db.isRecovered());
+            db.init("default", null);
+        }
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertTrue("The import after the failed one should be recovered", db.isRecovered());
+            assertEquals("Every default post should be recovered", 5, db.size());
+        }
+    }
+
+    @Test
+    public void Open_Success_TornTail() throws IOException, InvalidPostException, PostAlreadyExistsException {
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            db.put(createPost(1, 10));
+            db.put(createPost(2, 20));
+        }
+
+        // Simulate a crash part way through writing the last record.
+        File log = dataDir.listFiles((dir, name) -> name.endsWith(".log"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        long tornLength = log.length();
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertEquals("Only the intact record should be recovered", 1, db.size());
+            assertTrue("Torn record should be cut off", log.length() < tornLength);
+            db.put(createPost(3, 30));
+        }
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertEquals("Changes after the torn record should be recovered", 2, db.size());
+        }
+    }
+
+    @Test
+    public void Put_Fail_NotJournaled() throws IOException, InvalidPostException, PostAlreadyExistsException,
+            PostNotExistException {
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            db.put(createPost(1, 10));
+            assertThrows(PostAlreadyExistsException.class, () -> db.put(createPost(1, 20)));
+        }
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertEquals("Rejected put should not be replayed", 10, db.get(1).getLikes());
+        }
+    }
+
+    @Test
+    public void PutIfAbsent_Success_Journaled() throws IOException, InvalidPostException, PostNotExistException {
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertTrue("New post should be added", db.putIfAbsent(createPost(1, 10)));
+            assertFalse("Duplicate should be rejected", db.putIfAbsent(createPost(1, 20)));
+        }
+
+        try (JournaledPostStore db = JournaledPostStore.open(dataDir, new Database())) {
+            assertEquals("Added post should be replayed, the duplicate not", 10, db.get(1).getLikes());
+        }
+    }
+
+    private static Post createPost(int ID, int likes) throws InvalidPostException {
+        return new Post(ID, "content " + ID, "author", likes, 0, "01/01/2000 12:00");
+    }
+}
@@ -0,0 +1,192 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.exception.PostAlreadyExistsException;
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.LoadReport;
+import smanalyzer.java.service.MappedDatabase;
+import smanalyzer.java.service.PostFile;
+
+public class MappedDatabaseTest {
+
+    MappedDatabase db;
+    List<Post> posts;
+    File file;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException, InvalidPostException {
+        posts = new ArrayList<Post>();
+        posts.add(new Post(30, "most liked \u2713", "author a", 300, 1, "01/01/2000 12:00"));
+        posts.add(new Post(10, "", null, 100, 3, "29/02/2004 23:59"));
+        posts.add(new Post(20, "tied with 40", "author b", 200, 2, "31/12/1999 00:00"));
+        posts.add(new Post(40, "tied with 20", "author c", 200, 4, "15/06/2023 08:30"));
+
+        file = tempFolder.newFile("posts.bin");
+        PostFile.write(file, posts);
+
+        db = new MappedDatabase();
+        db.init("binary", file);
+    }
+
+    @Test
+    public void Open_Success_ReadsEveryPost() throws IOException {
+        PostFile opened = PostFile.open(file);
+
+        assertEquals("File should hold every post", 4, opened.size());
+        assertEquals("Posts should be decoded unchanged", posts, Arrays.asList(opened.stream().toArray()));
+    }
+
+    @Test
+    public void Write_Success_UnpairedSurrogate() throws IOException, InvalidPostException {
+        List<Post> written = Arrays.asList(new Post(1, "broken \uD800 text", "author", 0, 0, "01/01/2000 12:00"),
+            new Post(2, "next", "next author", 0, 0, "01/01/2000 12:00"));
+        PostFile.write(file, written);
+        List<Object> read = Arrays.asList(PostFile.open(file).stream().toArray());
+
+        assertEquals("An unpaired surrogate should be written as one byte", "broken ? text", ((Post) read.get(0)).getContent());
+        assertEquals("Strings after it should be read from their own positions", written.get(1), read.get(1));
+    }
+
+    @Test
+    public void Open_Fail_NotAPostFile() throws IOException {
+        File csv = tempFolder.newFile("posts.csv");
+        Files.write(csv.toPath(), "ID,content,author,likes,shares,date-time\n".repeat(10).getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> PostFile.open(csv));
+    }
+
+    @Test
+    public void Get_Success_FromFile() throws PostNotExistException {
+        for (Post post : posts) {
+            assertEquals("Every file post should be found by ID", post, db.get(post.getID()));
+        }
+        assertThrows(PostNotExistException.class, () -> db.get(25));
+    }
+
+    @Test
+    public void GetMulti_Success_StoredRanking() {
+        assertEquals("Likes ranking should be read from the file, ties broken on ID",
+            Arrays.asList(posts.get(0), posts.get(2), posts.get(3), posts.get(1)), db.getMulti("likes", 10));
+        assertEquals("Shares ranking should be read from the file",
+            Arrays.asList(posts.get(3), posts.get(1)), db.getMulti("shares", 2));
+    }
+
+    @Test
+    public void Put_Fail_PostAlreadyInFile() throws InvalidPostException {
+        Post duplicate = new Post(20, "duplicate", "author", 0, 0, "01/01/2000 12:00");
+
+        assertThrows(PostAlreadyExistsException.class, () -> db.put(duplicate));
+    }
+
+    @Test
+    public void Delete_Success_HidesFilePost() throws PostNotExistException, PostAlreadyExistsException, InvalidPostException {
+        db.delete(30);
+
+        assertThrows(PostNotExistException.class, () -> db.get(30));
+        assertThrows(PostNotExistException.class, () -> db.delete(30));
+        assertEquals("Size should exclude the deleted post", 3, db.size());
+        assertEquals("Deleted post should leave the ranking", 20, db.getMulti("likes", 1).get(0).getID());
+
+        Post replacement = new Post(30, "replacement", "author", 0, 0, "01/01/2000 12:00");
+        db.put(replacement);
+        assertEquals("ID of a deleted file post should be reusable", replacement, db.get(30));
+    }
+
+    @Test
+    public void IncrementLikes_Success_ReranksFilePost() throws PostNotExistException {
+        assertEquals("Increment should start from the file's count", 400, db.incrementLikes(10, 300));
+
+        assertEquals("Updated post should move to the top", 10, db.getMulti("likes", 1).get(0).getID());
+        assertEquals("Updated post should be returned by get", 400, db.get(10).getLikes());
+        assertEquals("Updating should not change the size", 4, db.size());
+    }
+
+    @Test
+    public void GetMulti_Success_MergesRandomChanges() throws PostNotExistException, PostAlreadyExistsException,
+            InvalidPostException, IOException {
+        Random random = new Random(7);
+        Database expected = new Database();
+        List<Post> many = new ArrayList<Post>();
+
+        for (int ID = 0; ID < 500; ID++) {
+            many.add(new Post(ID, "content " + ID, "author", random.nextInt(50), random.nextInt(50), "01/01/2000 12:00"));
+        }
+        PostFile.write(file, many);
+        db.init("binary", file);
+        expected.putAll(many);
+
+        for (int i = 0; i < 1000; i++) {
+            int ID = random.nextInt(600);
+            int action = random.nextInt(3);
+            try {
+                if (action == 0) {
+                    Post post = new Post(ID, "new " + ID, "author", random.nextInt(50), 0, "01/01/2000 12:00");
+                    expected.put(post);
+                    db.put(post);
+                } else if (action == 1) {
+                    expected.delete(ID);
+                    db.delete(ID);
+                } else {
+                    int delta = random.nextInt(20);
+                    expected.incrementLikes(ID, delta);
+                    db.incrementLikes(ID, delta);
+                }
+            } catch (PostAlreadyExistsException | PostNotExistException e) {
+                // The expected store rejected the change before the mapped store saw it.
+            }
+        }
+
+        assertEquals("Size should match the hashmap engine", expected.size(), db.size());
+        assertEquals("Likes ranking should match the hashmap engine", expected.getMulti("likes", 100), db.getMulti("likes", 100));
+        assertEquals("Shares ranking should match the hashmap engine", expected.getMulti("shares", 700), db.getMulti("shares", 700));
+    }
+
+    @Test
+    public void Convert_Success_RoundTrip() throws IOException {
+        File csv = tempFolder.newFile("in.csv");
+        try (FileWriter writer = new FileWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("ID,content,author,likes,shares,date-time\n"
+                + "1,first post,author,10,20,01/01/2000 12:00\n"
+                + "invalid row\n"
+                + "2,second post \u2713,author,30,40,29/02/2004 23:59\n");
+        }
+        File converted = tempFolder.newFile("converted.bin");
+        File back = tempFolder.newFile("back.csv");
+
+        LoadReport report = PostFile.convertCSV(csv, converted);
+        PostFile.convertToCSV(converted, back);
+
+        assertEquals("Valid rows should be converted", 2, report.getImported());
+        assertEquals("Invalid rows should be reported", 1, report.getInvalid());
+
+        Database reloaded = new Database();
+        reloaded.init("csv", back);
+        Database mapped = new Database();
+        mapped.init("binary", converted);
+        assertEquals("CSV written back should hold the same posts", 2, reloaded.size());
+        assertEquals("Posts should survive both conversions", reloaded.getMulti("likes", 2), mapped.getMulti("likes", 2));
+    }
+}
@@ -0,0 +1,142 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import smanalyzer.java.exception.*;
+import smanalyzer.java.model.OperationStats;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.LatencyHistogram;
+import smanalyzer.java.service.MeteredPostStore;
+import smanalyzer.java.service.StoreMetrics;
+import smanalyzer.java.service.StoreMetrics.Operation;
+
+public class MeteredPostStoreTest {
+
+    MeteredPostStore db;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        db = new MeteredPostStore(new Database());
+    }
+
+    @Test
+    public void Operations_Success_Counted() throws InvalidPostException, PostAlreadyExistsException,
+            PostNotExistException {
+        db.put(createPost(1, 10));
+        db.put(createPost(2, 20));
+        db.get(1);
+        db.find(3);
+        db.putAll(Arrays.asList(createPost(3, 30), createPost(1, 0)));
+        db.getMulti("likes", 2);
+
+        StoreMetrics metrics = db.getMetrics();
+        assertEquals("Every put should be counted", 2, metrics.getOperation(Operation.PUT).getCalls());
+        assertEquals("Every get should be counted", 1, metrics.getOperation(Operation.GET).getCalls());
+        assertEquals("A find that misses should count as failed", 1, metrics.getOperation(Operation.FIND).getFailures());
+        assertEquals("A batch should count as one call", 1, metrics.getOperation(Operation.PUT_ALL).getCalls());
+        assertEquals("Only called operations should be listed", 5, metrics.getOperations().size());
+        assertEquals("Metrics should see the posts of the store", 3, metrics.getPosts());
+    }
+
+    @Test
+    public void Operations_Success_FailuresCounted() throws InvalidPostException, PostAlreadyExistsException {
+        db.put(createPost(1, 10));
+
+        assertThrows(PostAlreadyExistsException.class, () -> db.put(createPost(1, 10)));
+        assertThrows(PostNotExistException.class, () -> db.get(2));
+        assertThrows(PostNotExistException.class, () -> db.delete(2));
+
+        StoreMetrics metrics = db.getMetrics();
+        assertEquals("A failed put is still a call", 2, metrics.getOperation(Operation.PUT).getCalls());
+        assertEquals("The duplicate put should count as failed", 1, metrics.getOperation(Operation.PUT).getFailures());
+        assertEquals("The missing get should count as failed", 1, metrics.getOperation(Operation.GET).getFailures());
+        assertEquals("The missing delete should count as failed", 1, metrics.getOperation(Operation.DELETE).getFailures());
+    }
+
+    @Test
+    public void Init_Success_RejectedRowsByReason() throws IOException {
+        File csv = tempFolder.newFile("posts.csv");
+        try (FileWriter writer = new FileWriter(csv)) {
+            writer.write("ID,content,author,likes,shares,date-time\n"
+                + "1,first,author,10,10,01/01/2000 12:00\n"
+                + "2,second,author,many,10,01/01/2000 12:00\n"
+                + "3,third,author\n"
+                + "4,fourth,author,10,10,31/02/2000 12:00\n"
+                + "5,fifth,author,10,10,01/01/2000 12:00\n");
+        }
+
+        db.init("csv", csv);
+
+        StoreMetrics metrics = db.getMetrics();
+        assertEquals("Every row should be counted", 5, metrics.getIngestRows());
+        assertEquals("The bad number should be counted", 1L, (long) metrics.getRejectedRows().get("INVALID_NUMBER"));
+        assertEquals("The short row should be counted", 1L, (long) metrics.getRejectedRows().get("MISSING_FIELD"));
+        assertEquals("The bad date should be counted", 1L, (long) metrics.getRejectedRows().get("INVALID_DATE"));
+        assertTrue("Import speed should be measured", metrics.getIngestRowsPerSecond() > 0);
+    }
+
+    @Test
+    public void Register_Success_ReadableOverJmx() throws JMException, InvalidPostException, PostNotExistException,
+            PostAlreadyExistsException {
+        db.put(createPost(1, 10));
+        db.get(1);
+        db.getMetrics().register();
+
+        Object posts = ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName("smanalyzer:type=StoreMetrics"), "Posts");
+        Object rejected = ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName("smanalyzer:type=StoreMetrics"), "RejectedRows");
+
+        assertEquals("Attributes should be readable over JMX", 1, posts);
+        assertTrue("Maps should be published as open data", rejected instanceof TabularData);
+    }
+
+    @Test
+    public void Percentile_Success() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int nanos = 1; nanos <= 100; nanos++) {
+            histogram.record(nanos * 1000L);
+        }
+
+        assertEquals("Every value should be counted", 100, histogram.getCount());
+        assertEquals("Mean should be exact", 50500.0, histogram.getMeanNanos(), 0.001);
+        assertEquals("Max should be exact", 100000, histogram.getMaxNanos());
+        assertEquals("Median should be within 3%", 50000, histogram.percentile(0.50), 50000 * 0.03);
+        assertEquals("p99 should be within 3%", 99000, histogram.percentile(0.99), 99000 * 0.03);
+    }
+
+    @Test
+    public void FormatMetrics_Success() throws InvalidPostException, PostNotExistException, PostAlreadyExistsException {
+        db.put(createPost(1, 10));
+        db.get(1);
+
+        String metrics = db.getMetrics().formatMetrics();
+        assertTrue("Called operations should be listed", metrics.contains("get "));
+        assertTrue("Operations not called should be left out", !metrics.contains("delete"));
+    }
+
+    private static Post createPost(int ID, int likes) throws InvalidPostException {
+        return new Post(ID, "content", "author", likes, 0, "01/01/2000 12:00");
+    }
+}
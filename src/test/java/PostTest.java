@@ -2,7 +2,10 @@ package test.java;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.ResolverStyle;
@@ -40,6 +43,43 @@ public class PostTest {
             InvalidDateException.class, () -> Post.convertDateTime(invalidDateTimeString));
     }
 
+    @Test
+    public void ConvertDateTime_Success_LeapDay() throws InvalidDateException {
+        assertEquals("29th of February should be accepted in a leap year",
+            LocalDateTime.of(2000, 2, 29, 23, 59), Post.convertDateTime("29/02/2000 23:59"));
+    }
+
+    @Test
+    public void ConvertDateTime_Fail_NotLeapYear() {
+        assertThrows("29th of February should be rejected outside a leap year",
+            InvalidDateException.class, () -> Post.convertDateTime("29/02/2001 12:00"));
+    }
+
+    @Test
+    public void ConvertDateTime_Fail_InvalidDayOfMonth() {
+        assertThrows("31st should be rejected for a 30 day month",
+            InvalidDateException.class, () -> Post.convertDateTime("31/04/2000 12:00"));
+    }
+
+    @Test
+    public void ConvertDateTime_Fail_InvalidTime() {
+        assertThrows("Hour 24 should be rejected",
+            InvalidDateException.class, () -> Post.convertDateTime("01/01/2000 24:00"));
+    }
+
+    @Test
+    public void ConvertDateTime_Fail_MissingPadding() {
+        assertThrows("Single digit days should be rejected",
+            InvalidDateException.class, () -> Post.convertDateTime("1/01/2000 12:00"));
+    }
+
+    @Test
+    public void FormatDateTime_Success() {
+        final LocalDateTime dateTime = LocalDateTime.of(987, 3, 4, 5, 6);
+
+        assertEquals("Date-time should be formatted with padding", "04/03/0987 05:06", Post.formatDateTime(dateTime));
+    }
+
     @Test
     public void FormatPost_Success() throws InvalidPostException {
         final String formattedPost = String.format("--------------------------------------------------------------------------------\n" 
@@ -71,6 +111,40 @@ public class PostTest {
         assertEquals("Content should be formatted properly", formattedPost, post.formatPost());
     }
 
+    @Test
+    public void FormatPost_Success_ContentOfMaxLength() throws InvalidPostException {
+        final String content = "x".repeat(70);
+        final Post post = new Post(1, content, "test author", 10, 10, "01/01/2000 12:00");
+
+        assertTrue("Content of exactly 70 characters should stay on one line",
+            post.formatPost().contains("| " + content + "\n"));
+    }
+
+    @Test
+    public void FormatPost_Success_WordLongerThanLine() throws InvalidPostException {
+        final String word = "x".repeat(100);
+        final Post post = new Post(1, "short " + word, "test author", 10, 10, "01/01/2000 12:00");
+
+        assertTrue("Long word should be broken at the end of the line",
+            post.formatPost().contains("| short\n|  " + "x".repeat(69) + "\n| " + "x".repeat(31) + "\n"));
+    }
+
+    @Test
+    public void FormatTo_Success_MatchesFormatPost() throws InvalidPostException, IOException {
+        final Post post = new Post(-42, "This is a pointless message about nothing purely designed to waste our time.",
+            null, 0, Integer.MAX_VALUE, LocalDateTime.of(987, 3, 4, 5, 6));
+        StringWriter writer = new StringWriter();
+        StringBuilder builder = new StringBuilder("before\n");
+
+        post.formatTo(writer);
+        post.formatTo(builder).append("after\n");
+
+        assertEquals("Writer should receive the formatted post", post.formatPost(), writer.toString());
+        assertEquals("Builder should be appended to", "before\n" + post.formatPost() + "after\n", builder.toString());
+        assertTrue("Negative ID, null author and padded date should be formatted",
+            post.formatPost().contains("| -42 | null | 04/03/0987 05:06\n"));
+    }
+
     @Test
     public void ConvertFromCSV_Success() throws InvalidPostException {
         final String validPostString = "1,test content,test author,10,10,01/01/2000 12:00";
@@ -84,6 +158,51 @@ public class PostTest {
         assertEquals("DateTime of posts should be equal", post.getDateTime(), convertedPost.getDateTime());
     }
 
+    @Test
+    public void ConvertFromCSV_Success_Quoted() throws InvalidPostException {
+        final Post convertedPost = Post.convertFromCSV("1,\"Hello, \"\"world\"\"\nbye\",\"a,b\",10,10,\"01/01/2000 12:00\"");
+
+        assertEquals("Quoted content should keep commas, quotes and line breaks", "Hello, \"world\"\nbye",
+            convertedPost.getContent());
+        assertEquals("Quoted author should keep commas", "a,b", convertedPost.getAuthor());
+        assertEquals("Quoted date-time should be read", post.getDateTime(), convertedPost.getDateTime());
+    }
+
+    @Test
+    public void ConvertFromCSV_Success_QuoteInsideField() throws InvalidPostException {
+        final Post convertedPost = Post.convertFromCSV("1,a 12\" pizza,\"\",10,10,01/01/2000 12:00");
+
+        assertEquals("A quote that does not start a field should be kept", "a 12\" pizza", convertedPost.getContent());
+        assertEquals("An empty quoted field should be empty", "", convertedPost.getAuthor());
+    }
+
+    @Test
+    public void ConvertToCSV_Success_RoundTrip() throws InvalidPostException {
+        final Post quotedPost = new Post(1, "Hello, \"world\"\r\nbye", "plain", 10, 10, "01/01/2000 12:00");
+        final Post convertedPost = Post.convertFromCSV(quotedPost.convertToCSV());
+
+        assertEquals("Plain fields should not be quoted", "1,test content,test author,10,10,01/01/2000 12:00",
+            post.convertToCSV());
+        assertEquals("Content should survive quoting", quotedPost.getContent(), convertedPost.getContent());
+        assertEquals("Author should survive quoting", quotedPost.getAuthor(), convertedPost.getAuthor());
+    }
+
+    @Test
+    public void ConvertToCSV_Success_NullFields() throws InvalidPostException {
+        final Post nullPost = new Post(1, null, null, 10, 10, "01/01/2000 12:00");
+
+        assertEquals("Null content and author should be written empty", "1,,,10,10,01/01/2000 12:00",
+            nullPost.convertToCSV());
+    }
+
+    @Test
+    public void ConvertFromCSV_Fail_UnterminatedQuote() {
+        final String unterminatedPost = "1,\"test content,test author,10,10,01/01/2000 12:00";
+
+        assertThrows("Exception should be thrown for an unterminated quote",
+            InvalidPostException.class, () -> Post.convertFromCSV(unterminatedPost));
+    }
+
     @Test
     public void ConvertDateTime_Fail_InvalidFormat() {
         final String invalidFormatPost = "not a post";
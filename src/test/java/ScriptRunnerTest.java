@@ -0,0 +1,94 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import smanalyzer.java.exception.PostNotExistException;
+import smanalyzer.java.service.Database;
+import smanalyzer.java.service.ScriptRunner;
+
+public class ScriptRunnerTest {
+
+    Database db;
+    StringWriter out;
+    ScriptRunner runner;
+
+    @Before
+    public void setUp() {
+        db = new Database();
+        out = new StringWriter();
+        runner = new ScriptRunner(db, out);
+    }
+
+    private long run(String script) throws IOException {
+        return runner.run(new BufferedReader(new StringReader(script)));
+    }
+
+    @Test
+    public void Run_Success_EveryCommand() throws IOException {
+        long failures = run("# comment\n"
+            + "add 1,first post,author a,10,5,01/01/2000 12:00\n"
+            + "add 2,second post,author b,20,1,02/01/2000 12:00\n"
+            + "\n"
+            + "get 1\n"
+            + "top likes 5\n"
+            + "delete 1\n"
+            + "top shares 1\n");
+
+        assertEquals("No command should fail", 0, failures);
+        assertEquals("Commands should be counted, skipping comments and blank lines", 6, runner.getCommands());
+        assertEquals("Answers should follow the commands in order",
+            "OK\n"
+            + "OK\n"
+            + "OK 1\n1,first post,author a,10,5,01/01/2000 12:00\n"
+            + "OK 2\n2,second post,author b,20,1,02/01/2000 12:00\n1,first post,author a,10,5,01/01/2000 12:00\n"
+            + "OK\n"
+            + "OK 1\n2,second post,author b,20,1,02/01/2000 12:00\n",
+            out.toString());
+    }
+
+    @Test
+    public void Run_Fail_ReportsLineAndContinues() throws IOException, PostNotExistException {
+        long failures = run("add 1,post,author,10,5,01/01/2000 12:00\n"
+            + "add 1,duplicate,author,10,5,01/01/2000 12:00\n"
+            + "add 2,post,author,ten,5,01/01/2000 12:00\n"
+            + "get 3\n"
+            + "top views 3\n"
+            + "explode\n"
+            + "add 3,post,author,10,5,01/01/2000 12:00\n");
+
+        assertEquals("Every bad command should be counted", 5, failures);
+        String[] answers = out.toString().split("\n");
+        assertEquals("Valid add should succeed", "OK", answers[0]);
+        assertEquals("Duplicate should report its line", "ERROR line 2: Post of ID 1 already exists in the collection.", answers[1]);
+        assertEquals("Invalid row should report its line", "ERROR line 3: Invalid post: For input string: \"ten\"", answers[2]);
+        assertEquals("Missing post should report its line", "ERROR line 4: Post of ID 3 does not exist in the collection.", answers[3]);
+        assertEquals("Unknown ranking should be reported", "ERROR line 5: Unknown ranking: views. Use likes or shares.", answers[4]);
+        assertEquals("Unknown command should be reported", "ERROR line 6: Unknown command: explode", answers[5]);
+        assertEquals("Commands after a failure should still run", "OK", answers[6]);
+        assertEquals("Both valid posts should be stored", 2, db.size());
+        assertEquals("First of the duplicate IDs should be kept", "post", db.get(1).getContent());
+    }
+
+    @Test
+    public void Run_Success_AddsBeforeLaterCommands() throws IOException {
+        StringBuilder script = new StringBuilder();
+        for (int ID = 0; ID < 3000; ID++) {
+            script.append("add ").append(ID).append(",post,author,").append(ID).append(",0,01/01/2000 12:00\n");
+        }
+        script.append("top likes 1\n");
+
+        run(script.toString());
+
+        assertEquals("Every add should be put across batches", 3000, db.size());
+        assertEquals("Queued adds should be put before the next command", "OK 1\n2999,post,author,2999,0,01/01/2000 12:00\n",
+            out.toString().substring("OK\n".length() * 3000));
+    }
+}
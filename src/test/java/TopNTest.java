@@ -0,0 +1,77 @@
+package test.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import smanalyzer.java.exception.InvalidPostException;
+import smanalyzer.java.model.Post;
+import smanalyzer.java.service.TopN;
+
+public class TopNTest {
+
+    List<Post> posts;
+
+    @Before
+    public void setUp() throws InvalidPostException {
+        posts = new ArrayList<Post>(Arrays.asList(
+            new Post(1, "first", "author", 5, 50, "01/01/2000 12:00"),
+            new Post(2, "second", "author", 40, 10, "02/01/2000 12:00"),
+            new Post(3, "third", "author", 15, 30, "03/01/2000 12:00"),
+            new Post(4, "fourth", "author", 25, 20, "04/01/2000 12:00"),
+            new Post(5, "fifth", "author", 35, 40, "05/01/2000 12:00")));
+    }
+
+    @Test
+    public void Select_Success() {
+        final int count = 3;
+        List<Post> actualList = TopN.select(posts, SORT_ON_LIKES, count);
+        List<Post> expectedList = new ArrayList<Post>(posts);
+
+        expectedList.sort(SORT_ON_LIKES);
+        expectedList = expectedList.subList(0, count);
+        assertEquals("Selection should equal the first posts of a full sort", expectedList, actualList);
+    }
+
+    @Test
+    public void Select_Success_OverMax() {
+        List<Post> actualList = TopN.select(posts, SORT_ON_DATE, 10);
+        List<Post> expectedList = new ArrayList<Post>(posts);
+
+        expectedList.sort(SORT_ON_DATE);
+        assertEquals("Selection should contain every post when count is over the size", expectedList, actualList);
+    }
+
+    @Test
+    public void Select_Success_ModifiableResult() {
+        List<Post> actualList = TopN.select(posts, SORT_ON_LIKES, 2);
+
+        actualList.clear();
+        assertTrue("Result should be an independent list", actualList.isEmpty());
+        assertEquals("Source should be untouched", 5, posts.size());
+    }
+
+    @Test
+    public void Select_Success_ZeroCount() {
+        assertEquals("Selection of zero posts should be empty", 0, TopN.select(posts, SORT_ON_LIKES, 0).size());
+    }
+
+    private static Comparator<Post> SORT_ON_LIKES = new Comparator<Post>() {
+		public int compare(Post p1, Post p2) {
+			return p2.getLikes() - p1.getLikes();
+		}
+	};
+
+    private static Comparator<Post> SORT_ON_DATE = new Comparator<Post>() {
+		public int compare(Post p1, Post p2) {
+			return p2.getDateTime().compareTo(p1.getDateTime());
+		}
+	};
+}